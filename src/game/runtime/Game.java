@@ -2,6 +2,7 @@ package game.runtime;
 
 import io.InputListener;
 import io.graphics.GameFrame;
+import io.graphics.ImageLoader;
 
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
@@ -20,6 +21,23 @@ public abstract class Game implements Observer{
 	
 	public abstract void gameLoop();
 	
+	/**
+	 * Advances the simulation by one fixed time step.<br>
+	 * This method is called by a GameLoop at its fixed tick rate. By default, it does nothing.
+	 */
+	public void tick(){
+	}
+	
+	/**
+	 * Renders the current state of the game.<br>
+	 * This method is called by a GameLoop once per frame. By default, it does nothing.
+	 * 
+	 * @param alpha The fraction of a time step (between 0 and 1) which has passed since the last tick.
+	 * 				It can be used to interpolate between the previous and the current state of the simulation.
+	 */
+	public void render(double alpha){
+	}
+	
 	public GameFrame getFrame(){
 		return GameFrame.getInstance();
 	}
@@ -28,6 +46,17 @@ public abstract class Game implements Observer{
 		return this.gameMode;
 	}
 	
+	/**
+	 * Sets the current Mode and pins the images it requires in the ImageLoader,
+	 * so they stay loaded while the Mode is active.
+	 * 
+	 * @param mode The new Mode
+	 */
+	protected void setMode(Mode mode){
+		this.gameMode = mode;
+		ImageLoader.getInstance().pinMode(mode);
+	}
+	
 	public void setInputListener(InputListener in){
 		this.inListener = in;
 	}
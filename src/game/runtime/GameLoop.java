@@ -0,0 +1,320 @@
+package game.runtime;
+
+import io.graphics.AnimationClock;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A GameLoop drives a Game with a fixed simulation rate and an independent rendering rate.<br>
+ * The simulation is advanced by calling Game.tick() once per fixed time step, while Game.render(double)
+ * is called as often as the rendering allows (usually limited by the vertical sync of BufferStrategy.show()).
+ * The alpha value passed to render is the fraction of a time step which has passed since the last tick
+ * and can be used to interpolate between the previous and the current simulation state.<br>
+ * <br>
+ * If the simulation falls behind, at most maxTicksPerFrame ticks are run before the next frame is rendered.
+ * What happens with the remaining ticks is decided by the LagPolicy of the loop.<br>
+ * <br>
+ * Right before a frame is rendered, the AnimationClock of the loop is ticked with the time since the last frame.
+ *
+ * @author Maxmanski
+ */
+public class GameLoop implements Runnable {
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	/**
+	 * The maximum lag kept by LagPolicy.CATCH_UP. Ticks beyond it (e.g. after the process was suspended) are dropped.
+	 */
+	private static final long MAX_CATCH_UP_NANOS = NANOS_PER_SECOND;
+
+	private final Game game;
+	private final long tickNanos;
+	private volatile LagPolicy policy;
+	private volatile int maxTicksPerFrame;
+	private volatile long minFrameNanos;
+	private volatile boolean running;
+	private volatile AnimationClock clock;
+	private Thread thread;
+	private volatile int generation;
+
+	private volatile long lagNanos;
+	private volatile long ticks, frames, droppedTicks;
+
+	/**
+	 * Creates a new GameLoop for the specified Game, which will be ticked ticksPerSecond times per second.<br>
+	 * Initially, the loop catches up on at most 5 ticks per frame and does not limit the frame rate.
+	 *
+	 * @param game The Game to be driven by this loop. Cannot be a NULL reference.
+	 * @param ticksPerSecond The fixed simulation rate. Must be greater than 0.
+	 */
+	public GameLoop(Game game, int ticksPerSecond){
+		if(game==null){
+			throw new IllegalArgumentException("The Game cannot be null!");
+		}
+		if(ticksPerSecond<=0){
+			throw new IllegalArgumentException("The tick rate must not be <= 0!");
+		}
+
+		this.game=game;
+		this.tickNanos=NANOS_PER_SECOND/ticksPerSecond;
+		this.policy=LagPolicy.CATCH_UP;
+		this.maxTicksPerFrame=5;
+		this.minFrameNanos=0;
+		this.running=false;
+		this.clock=AnimationClock.getInstance();
+	}
+
+	/**
+	 * Sets the AnimationClock which is ticked once per frame.<br>
+	 * Initially, the shared AnimationClock is used.
+	 *
+	 * @param clock The AnimationClock to be ticked or NULL, if no clock should be ticked
+	 */
+	public void setAnimationClock(AnimationClock clock){
+		this.clock=clock;
+	}
+
+	/**
+	 * Returns the AnimationClock which is ticked once per frame.
+	 *
+	 * @return The ticked AnimationClock or NULL, if there is none
+	 */
+	public AnimationClock getAnimationClock(){
+		return this.clock;
+	}
+
+	/**
+	 * Sets the policy which is used if more ticks are due than can be run within one frame.
+	 *
+	 * @param policy The LagPolicy to be used. Cannot be a NULL reference.
+	 */
+	public void setLagPolicy(LagPolicy policy){
+		if(policy==null){
+			throw new IllegalArgumentException("The LagPolicy cannot be null!");
+		}
+		this.policy=policy;
+	}
+
+	/**
+	 * Returns the policy which is used if more ticks are due than can be run within one frame.
+	 *
+	 * @return The currently used LagPolicy
+	 */
+	public LagPolicy getLagPolicy(){
+		return this.policy;
+	}
+
+	/**
+	 * Sets the amount of ticks which may be run before the next frame has to be rendered.
+	 *
+	 * @param maxTicks The maximum amount of ticks per frame. Must be at least 1.
+	 */
+	public void setMaxTicksPerFrame(int maxTicks){
+		if(maxTicks<=0){
+			throw new IllegalArgumentException("The maximum amount of ticks per frame must not be <= 0!");
+		}
+		this.maxTicksPerFrame=maxTicks;
+	}
+
+	/**
+	 * Limits the rendering rate to the specified amount of frames per second.<br>
+	 * A value of 0 removes the limit, in which case the rendering rate is only limited by
+	 * the time the rendering itself takes (e.g. by waiting for the vertical sync).
+	 *
+	 * @param fps The maximum amount of frames per second or 0 for no limit.
+	 */
+	public void setMaxFramesPerSecond(int fps){
+		if(fps<0){
+			throw new IllegalArgumentException("The frame limit must not be < 0!");
+		}
+		this.minFrameNanos = (fps==0) ? 0 : NANOS_PER_SECOND/fps;
+	}
+
+	/**
+	 * Starts the loop in a new Thread.<br>
+	 * If the loop is already running, nothing happens. If it has been stopped from within itself and
+	 * is still finishing its last frame, the new Thread waits for it, so two loops never run at once.
+	 */
+	public synchronized void start(){
+		if(this.running){
+			return;
+		}
+
+		final Thread previous = this.thread;
+		final int gen = ++this.generation;
+		this.running=true;
+		this.thread=new Thread(new Runnable(){
+			@Override
+			public void run(){
+				if(previous!=null){
+					GameLoop.joinUninterruptibly(previous);
+				}
+				GameLoop.this.loop(gen);
+			}
+		}, "GameLoop");
+		this.thread.start();
+	}
+
+	/**
+	 * Stops the loop and waits until the last frame has been finished.<br>
+	 * If called from within the loop itself (e.g. from Game.tick()), the loop will end after the current frame.
+	 *
+	 * @throws InterruptedException If the calling Thread was interrupted while waiting for the loop to end.
+	 */
+	public void stop() throws InterruptedException{
+		Thread t;
+		synchronized(this){
+			this.running=false;
+			t=this.thread;
+		}
+
+		if(t!=null && t!=Thread.currentThread()){
+			t.join();
+		}
+	}
+
+	/**
+	 * Checks if the loop is currently running.
+	 *
+	 * @return TRUE, if the loop is running. FALSE otherwise.
+	 */
+	public boolean isRunning(){
+		return this.running;
+	}
+
+	/**
+	 * Returns the simulated time which is due but has not been run yet, in nanoseconds.<br>
+	 * Values of at least one tick duration mean that the simulation is lagging behind.
+	 *
+	 * @return The lag of the simulation in nanoseconds, as measured after the last frame.
+	 */
+	public long getLagNanos(){
+		return this.lagNanos;
+	}
+
+	/**
+	 * Returns the lag of the simulation measured in ticks.
+	 *
+	 * @return The lag of the simulation in ticks, as measured after the last frame.
+	 */
+	public double getLagTicks(){
+		return this.lagNanos / (double) this.tickNanos;
+	}
+
+	/**
+	 * Returns the amount of ticks which were dropped, either by the LagPolicy DROP or because CATCH_UP exceeded its maximum lag.
+	 *
+	 * @return The total amount of dropped ticks.
+	 */
+	public long getDroppedTicks(){
+		return this.droppedTicks;
+	}
+
+	/**
+	 * Returns the amount of ticks which were run since the loop was created.
+	 *
+	 * @return The total amount of ticks.
+	 */
+	public long getTickCount(){
+		return this.ticks;
+	}
+
+	/**
+	 * Returns the amount of frames which were rendered since the loop was created.
+	 *
+	 * @return The total amount of frames.
+	 */
+	public long getFrameCount(){
+		return this.frames;
+	}
+
+	/**
+	 * Runs the loop in the calling Thread until stop() is called.<br>
+	 * If the loop is already running, this method returns immediately. Like start, it waits for a loop
+	 * which has been stopped but is still finishing its last frame.
+	 */
+	@Override
+	public void run(){
+		final Thread previous;
+		final int gen;
+		synchronized(this){
+			if(this.running){
+				return;
+			}
+
+			previous = this.thread;
+			gen = ++this.generation;
+			this.running=true;
+			this.thread=Thread.currentThread();
+		}
+
+		if(previous!=null && previous!=Thread.currentThread()){
+			GameLoop.joinUninterruptibly(previous);
+		}
+		this.loop(gen);
+	}
+
+	/**
+	 * Runs the loop until it is stopped or a newer loop has been started.
+	 */
+	private void loop(int gen){
+		long previous = System.nanoTime(), now, elapsed, accumulator = 0, due;
+		int ticked;
+		AnimationClock animationClock;
+
+		while(this.running && this.generation==gen){
+			now = System.nanoTime();
+			elapsed = now-previous;
+			accumulator += elapsed;
+			previous = now;
+
+			ticked = 0;
+			while(accumulator>=this.tickNanos && ticked<this.maxTicksPerFrame && this.running && this.generation==gen){
+				this.game.tick();
+				accumulator -= this.tickNanos;
+				ticked++;
+			}
+			this.ticks += ticked;
+
+			if(accumulator>=this.tickNanos && this.policy==LagPolicy.DROP){
+				due = accumulator / this.tickNanos;
+				accumulator -= due*this.tickNanos;
+				this.droppedTicks += due;
+			}else if(accumulator>MAX_CATCH_UP_NANOS){
+				due = (accumulator-MAX_CATCH_UP_NANOS) / this.tickNanos + 1;
+				accumulator -= due*this.tickNanos;
+				this.droppedTicks += due;
+			}
+			this.lagNanos = accumulator;
+
+			animationClock = this.clock;
+			if(animationClock!=null){
+				animationClock.tick(elapsed);
+			}
+
+			this.game.render(Math.min(1.0, accumulator / (double) this.tickNanos));
+			this.frames++;
+
+			if(this.minFrameNanos>0){
+				due = previous + this.minFrameNanos - System.nanoTime();
+				if(due>0){
+					LockSupport.parkNanos(due);
+				}
+			}
+		}
+	}
+
+	private static void joinUninterruptibly(Thread t){
+		boolean interrupted = false;
+		while(t.isAlive()){
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if(interrupted){
+			Thread.currentThread().interrupt();
+		}
+	}
+}
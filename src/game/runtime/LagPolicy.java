@@ -0,0 +1,24 @@
+package game.runtime;
+
+/**
+ * Determines how a GameLoop reacts if the simulation falls behind the wall clock,
+ * i.e. if more ticks are due than may be run before the next frame is rendered.
+ *
+ * @author Maxmanski
+ */
+public enum LagPolicy {
+
+	/**
+	 * Keeps every due tick and runs it within the following frames.<br>
+	 * The simulation never loses time, but frames are rendered with an increasing delay
+	 * as long as the machine cannot keep up. A lag of more than a second (e.g. after the process was suspended)
+	 * is not caught up on, the ticks beyond it are dropped.
+	 */
+	CATCH_UP,
+
+	/**
+	 * Discards every tick that could not be run within the current frame.<br>
+	 * The simulation slows down while the machine is loaded, but frame pacing stays stable.
+	 */
+	DROP
+}
@@ -1,10 +1,24 @@
 package game.runtime;
 
 import java.awt.Canvas;
+import java.util.Collection;
+import java.util.Collections;
 
 public interface Mode extends Observable, Observer{
 	
 	public Mode execute();
 	
 	public Canvas getCanvas();
+	
+	/**
+	 * Returns the names of the images this Mode needs while it is active.<br>
+	 * The ImageLoader never evicts these images while this Mode is the current Mode of the Game.
+	 * 
+	 * Modes which do not override this method do not require any image.
+	 * 
+	 * @return The names of the required images. May be empty.
+	 */
+	public default Collection<String> getRequiredImages(){
+		return Collections.emptySet();
+	}
 }
@@ -3,17 +3,27 @@ package io.graphics;
 import java.awt.image.BufferedImage;
 
 /**
+ * An Animation plays the frames of a FrameSet.<br>
+ * The frames are shared and never copied: an Animation itself only consists of its playback state
+ * (the current step, the ended flag and its AnimationStrategy), so copies are cheap.<br>
+ * <br>
+ * An Animation can also be registered at an AnimationClock, which then advances it once per frame
+ * according to an AnimationTiming. While it is registered, its AnimationStrategy is ignored and the clock
+ * publishes the current step to it, so reading the step never locks the clock.
  * 
  * @author Maxmanski
  *
  */
 public class Animation {
 
-	private final BufferedImage[] anim;
-	private final int height, width;
+	private final FrameSet frames;
 	private final AnimationStrategy stepStrategy;
 	private int currentStep;
 	private boolean hasEnded;
+	private volatile AnimationClock clock;
+	private volatile int clockStep;
+	private volatile boolean clockEnded;
+	private int clockSlot;
 
 	/**
 	 * Creates a new Animation from the specified source BuffererdImage, where it is split into
@@ -39,31 +49,39 @@ public class Animation {
 	 *					If this reference is a Nullpointer, every call of the nextImage method will return the next animation step.
 	 */
 	public Animation(BufferedImage anim, int rows, int columns, AnimationStrategy strategy){
-		if(rows<=0 || columns<=0){
-			throw new IllegalArgumentException("Columns and Rows must not be <= 0!");
-		}
-		if(anim==null){
-			throw new IllegalArgumentException("The specified source image cannot be null!");
-		}
-
-		this.height=anim.getHeight()/rows;
-		this.width=anim.getWidth()/columns;
-
-		if(this.height*rows!=anim.getHeight() || this.width*columns!=anim.getWidth()){
-			throw new IllegalArgumentException("Given spritesheet cannot be split into the given amount of rows and columns");
-		}
-
-		this.anim=new BufferedImage[rows*columns];
-		for(int i=0; i<rows; i++){
-			for(int j=0; j<columns; j++){
-				this.anim[i*rows+j] = anim.getSubimage(j*width, i*height, width, height);
-			}
+		this(new FrameSet(anim, rows, columns), strategy);
+	}
+	
+	/**
+	 * Creates a new Animation playing the specified FrameSet, which is shared and not copied.<br>
+	 * The AnimationStrategy is handled the same way as in the constructor Animation(BufferedImage anim, int rows, int columns, AnimationStrategy strategy).
+	 * 
+	 * @param frames The frames of the Animation. Cannot be a NULL reference.
+	 * @param strategy Specifies the AnimationStrategy used to determine when the next animation step should be returned by the nextImage method
+	 *					If this reference is a Nullpointer, every call of the nextImage method will return the next animation step.
+	 */
+	public Animation(FrameSet frames, AnimationStrategy strategy){
+		if(frames==null){
+			throw new IllegalArgumentException("The specified frames cannot be null!");
 		}
 
-		this.hasEnded=false;
+		this.frames=frames;
 		this.stepStrategy=strategy;
-		currentStep=0;
-		
+		this.hasEnded=false;
+		this.currentStep=0;
+	}
+	
+	/**
+	 * Creates a new Animation whose animation steps are the specified regions of a TextureAtlas.<br>
+	 * Every region must have the same size. Animations of the same atlas page share the same sheet ID.<br>
+	 * The AnimationStrategy is handled the same way as in the constructor Animation(BufferedImage anim, int rows, int columns, AnimationStrategy strategy).
+	 * 
+	 * @param frames The regions used as animation steps. Cannot be NULL or empty.
+	 * @param strategy Specifies the AnimationStrategy used to determine when the next animation step should be returned by the nextImage method
+	 *					If this reference is a Nullpointer, every call of the nextImage method will return the next animation step.
+	 */
+	public Animation(AtlasRegion[] frames, AnimationStrategy strategy){
+		this(new FrameSet(frames), strategy);
 	}
 	
 	/**
@@ -94,21 +112,22 @@ public class Animation {
 	}
 
 	/**
-	 * Creates a deep copy of the specified Animation.
+	 * Creates a copy of the specified Animation, which starts at the first animation step.<br>
+	 * The frames are shared with the copied Animation, only the AnimationStrategy is copied.
+	 * If the copied Animation is registered at an AnimationClock, the copy is registered there with the same AnimationTiming.
 	 * 
 	 * @param toCopy
 	 */
 	public Animation(Animation toCopy){
-		this.height=toCopy.height;
-		this.width=toCopy.width;
-		this.stepStrategy=toCopy.stepStrategy.clone();
-		this.anim=new BufferedImage[toCopy.anim.length];
-		BufferedImage tmp;
-		for(int i=0; i<toCopy.anim.length; i++){
-			tmp=toCopy.anim[i];
-			this.anim[i] = tmp.getSubimage(0, 0, tmp.getWidth(), tmp.getHeight());
-		}
+		this.frames=toCopy.frames;
+		this.stepStrategy=(toCopy.stepStrategy!=null) ? toCopy.stepStrategy.clone() : null;
+		this.currentStep=0;
 		this.hasEnded=false;
+
+		AnimationClock c = toCopy.clock;
+		if(c!=null){
+			c.registerCopy(this, toCopy);
+		}
 	}
 
 	/**
@@ -123,47 +142,136 @@ public class Animation {
 	 * @return The next animation step
 	 */
 	public BufferedImage nextImage(){
-
+		return this.frames.getFrame(this.nextStep());
+	}
+	
+	/**
+	 * Advances this Animation the same way as nextImage, but returns the region of the next animation step.
+	 * 
+	 * @return The region of the next animation step or NULL, if this Animation has not been created from a TextureAtlas.
+	 */
+	public AtlasRegion nextRegion(){
+		return this.frames.getRegion(this.nextStep());
+	}
+	
+	/**
+	 * Returns the region of the current animation step without advancing the Animation.
+	 * 
+	 * @return The region of the current animation step or NULL, if this Animation has not been created from a TextureAtlas.
+	 */
+	public AtlasRegion getCurrentRegion(){
+		return this.frames.getRegion(this.currentStep());
+	}
+	
+	/**
+	 * Advances this Animation the same way as nextImage and returns the index of the next animation step,
+	 * so the frame, region and offsets of a single step can be looked up in the FrameSet.
+	 */
+	int nextStep(){
+		AnimationClock c = this.clock;
+		if(c!=null){
+			return this.clockStep;
+		}
+		this.advance();
+		return this.currentStep;
+	}
+	
+	private void advance(){
 		if(stepStrategy!=null){
 			if(stepStrategy.isNextReady()){
 				currentStep++;
-				if(currentStep>=anim.length){
+				if(currentStep>=this.frames.size()){
 					currentStep=0;
 				}
 			}
 		}else{
 			
 			currentStep++;
-			if(currentStep>=anim.length){
+			if(currentStep>=this.frames.size()){
 				currentStep=0;
 			}
 		}
 		
-		if(currentStep==anim.length-1){
+		if(currentStep==this.frames.size()-1){
 			hasEnded=true;
 		}
-		
-		return anim[currentStep];
 	}
 	
+	/**
+	 * Two Animations are equal, if their frames have the same contents (see FrameSet) and their
+	 * AnimationStrategies are equal. The playback state is not compared.
+	 */
+	@Override
 	public boolean equals(Object other){
+		if(this==other){
+			return true;
+		}
 		if(other==null || other.getClass()!=this.getClass()){
 			return false;
 		}
 
 		Animation otherAnim = (Animation)other;
 
-		for(int i=0; i<anim.length; i++){
-			if(!this.anim[i].equals(otherAnim.anim[i])){
-				return false;
-			}
+		if(!this.frames.equals(otherAnim.frames)){
+			return false;
 		}
 
-		return this.stepStrategy.equals(otherAnim.stepStrategy) && this.height==otherAnim.height
-				&& this.width==otherAnim.height;
+		return (this.stepStrategy==null) ? otherAnim.stepStrategy==null : this.stepStrategy.equals(otherAnim.stepStrategy);
 
 	}
 	
+	@Override
+	public int hashCode(){
+		return this.frames.hashCode();
+	}
+	
+	/**
+	 * Returns the current animation step without advancing the Animation.
+	 * 
+	 * @return The animation step which has been returned by the last call of nextImage
+	 */
+	public BufferedImage getCurrentImage(){
+		return this.frames.getFrame(this.currentStep());
+	}
+	
+	/**
+	 * Returns the width of a single animation step.
+	 * 
+	 * @return The width of the animation steps in pixels
+	 */
+	public int getWidth(){
+		return this.frames.getWidth();
+	}
+	
+	/**
+	 * Returns the height of a single animation step.
+	 * 
+	 * @return The height of the animation steps in pixels
+	 */
+	public int getHeight(){
+		return this.frames.getHeight();
+	}
+	
+	/**
+	 * Returns the ID of the source image the animation steps are drawn from (see FrameSet.getSheetId).<br>
+	 * Animations drawn from the same atlas page share the same ID, so drawing them one after another
+	 * avoids switching between source images.
+	 * 
+	 * @return The ID of the source image (at least 1)
+	 */
+	public int getSheetId(){
+		return this.frames.getSheetId();
+	}
+	
+	/**
+	 * Returns the shared frames played by this Animation.
+	 * 
+	 * @return The FrameSet of this Animation
+	 */
+	public FrameSet getFrameSet(){
+		return this.frames;
+	}
+	
 	/**
 	 * Checks if the Animation has reached its final animation step at least.
 	 * 
@@ -171,14 +279,65 @@ public class Animation {
 	 * 			FALSE otherwise.
 	 */
 	public boolean hasEnded(){
-		return this.hasEnded;
+		AnimationClock c = this.clock;
+		return (c!=null) ? this.clockEnded : this.hasEnded;
 	}
 	
 	/**
 	 * Resets the Animation and its hasEnded property.
 	 */
 	public void reset(){
+		AnimationClock c = this.clock;
+		if(c!=null){
+			c.reset(this);
+		}
 		this.currentStep=0;
 		this.hasEnded=false;
 	}
+	
+	/**
+	 * Returns the AnimationClock this Animation is registered at.
+	 * 
+	 * @return The driving AnimationClock or NULL, if this Animation is advanced by its AnimationStrategy
+	 */
+	public AnimationClock getClock(){
+		return this.clock;
+	}
+	
+	int getClockSlot(){
+		return this.clockSlot;
+	}
+	
+	/**
+	 * Called by the AnimationClock when this Animation is registered or moved to another slot.
+	 */
+	void attach(AnimationClock clock, int slot){
+		this.clockSlot=slot;
+		this.clock=clock;
+	}
+	
+	/**
+	 * Called by the AnimationClock whenever it has changed the step of this Animation.
+	 */
+	void publish(int step, boolean ended){
+		this.clockEnded=ended;
+		this.clockStep=step;
+	}
+	
+	/**
+	 * Called by the AnimationClock when this Animation is unregistered, handing back the playback state.
+	 */
+	void detach(int step, boolean ended){
+		this.currentStep=step;
+		this.hasEnded=ended;
+		this.clock=null;
+	}
+	
+	/**
+	 * Returns the index of the current animation step.
+	 */
+	int currentStep(){
+		AnimationClock c = this.clock;
+		return (c!=null) ? this.clockStep : this.currentStep;
+	}
 }
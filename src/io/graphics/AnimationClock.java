@@ -0,0 +1,352 @@
+package io.graphics;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * The AnimationClock advances every registered Animation in a single pass, once per frame.<br>
+ * It is ticked by the GameLoop with the time which has passed since the last frame, so the registered
+ * Animations neither read the clock themselves nor depend on being drawn to advance.<br>
+ * <br>
+ * The playback state of the registered Animations (current frame, elapsed time, direction, ended flag)
+ * is kept in parallel primitive arrays, indexed by the slot of the Animation. Unregistering an Animation
+ * moves the last slot into the freed one, so the arrays stay dense.<br>
+ * Every tick publishes the current frame and the ended flag to the Animations themselves, so drawing an
+ * Animation never locks the clock.<br>
+ * <br>
+ * The clock only holds weak references to its Animations: an Animation which is not used anymore
+ * is unregistered automatically by the next tick after it has been collected.<br>
+ * While an Animation is registered, its AnimationStrategy is ignored and nextImage only returns the
+ * frame chosen by the clock. The AnimationTiming of the Animation decides how long every frame is shown
+ * and how the frames are walked through. Copies of a registered Animation are registered with the same timing.
+ *
+ * @author Maxmanski
+ */
+public class AnimationClock {
+
+	private static AnimationClock instance;
+
+	private WeakReference<Animation>[] animations;
+	private AnimationTiming[] timings;
+	private int[] step, frameCount, direction;
+	private long[] elapsed, frameNanos, cycleNanos;
+	private long[][] durations;
+	private byte[] mode;
+	private boolean[] ended;
+	private int size;
+	private long tickCount;
+
+	/**
+	 * Creates a new, empty AnimationClock.<br>
+	 * Usually, the shared instance returned by getInstance is used.
+	 */
+	public AnimationClock(){
+		this.size=0;
+		this.tickCount=0;
+		this.grow(16);
+	}
+
+	/**
+	 * Returns the shared AnimationClock, which is ticked by the GameLoop.
+	 *
+	 * @return The shared instance of the AnimationClock
+	 */
+	public static synchronized AnimationClock getInstance(){
+		if(instance==null){
+			instance = new AnimationClock();
+		}
+		return instance;
+	}
+
+	/**
+	 * Registers the specified Animation, which is then advanced by this clock according to the specified timing.<br>
+	 * The Animation starts at its first frame. If it is already registered (at this or another clock),
+	 * it is unregistered first.
+	 *
+	 * @param animation The Animation to be driven. Cannot be a NULL reference.
+	 * @param timing The timing of the Animation. Cannot be a NULL reference and if it has per-frame durations,
+	 * 					their amount has to match the amount of frames.
+	 */
+	public void register(Animation animation, AnimationTiming timing){
+		if(animation==null || timing==null){
+			throw new IllegalArgumentException("The Animation and the AnimationTiming cannot be null!");
+		}
+		int frames = animation.getFrameSet().size();
+		if(timing.getFrameCount()!=-1 && timing.getFrameCount()!=frames){
+			throw new IllegalArgumentException("The AnimationTiming has " + timing.getFrameCount() + " durations, but the Animation has " + frames + " frames!");
+		}
+
+		// the registration of an Animation is only changed while holding its lock, before the lock of a clock
+		synchronized(animation){
+			AnimationClock previous = animation.getClock();
+			if(previous!=null){
+				previous.unregister(animation);
+			}
+
+			synchronized(this){
+				if(this.size==this.animations.length){
+					this.grow(this.size*2);
+				}
+
+				int s = this.size++;
+				long[] d = timing.durations();
+				this.animations[s] = new WeakReference<>(animation);
+				this.timings[s] = timing;
+				this.frameCount[s] = frames;
+				this.frameNanos[s] = timing.frameNanos();
+				this.durations[s] = d;
+				this.mode[s] = (byte) timing.getMode().ordinal();
+				this.cycleNanos[s] = AnimationClock.cycleOf(d, timing.frameNanos(), frames, timing.getMode());
+				this.resetSlot(s);
+				animation.attach(this, s);
+				animation.publish(this.step[s], this.ended[s]);
+			}
+		}
+	}
+
+	/**
+	 * Stops driving the specified Animation. It keeps its current frame and is advanced by
+	 * its AnimationStrategy again.<br>
+	 * If the Animation is not registered at this clock, nothing happens.
+	 *
+	 * @param animation The Animation to be removed
+	 */
+	public void unregister(Animation animation){
+		if(animation==null){
+			return;
+		}
+
+		synchronized(animation){
+			synchronized(this){
+				if(animation.getClock()!=this){
+					return;
+				}
+
+				int s = animation.getClockSlot();
+				animation.detach(this.step[s], this.ended[s]);
+				this.removeSlot(s);
+			}
+		}
+	}
+
+	/**
+	 * Returns the AnimationTiming the specified Animation is registered with.
+	 *
+	 * @param animation The Animation
+	 * @return The timing of the Animation or NULL, if it is not registered at this clock
+	 */
+	public synchronized AnimationTiming getTiming(Animation animation){
+		return (animation!=null && animation.getClock()==this) ? this.timings[animation.getClockSlot()] : null;
+	}
+
+	/**
+	 * Registers the specified copy with the timing of the original Animation, if the original is registered at this clock.
+	 */
+	void registerCopy(Animation copy, Animation original){
+		AnimationTiming timing;
+		synchronized(original){
+			timing = this.getTiming(original);
+		}
+		if(timing!=null){
+			this.register(copy, timing);
+		}
+	}
+
+	/**
+	 * Advances every registered Animation by the specified amount of time.<br>
+	 * Called once per frame by the GameLoop.
+	 *
+	 * @param elapsedNanos The time which has passed since the last tick, in nanoseconds
+	 */
+	public synchronized void tick(long elapsedNanos){
+		if(elapsedNanos<=0){
+			return;
+		}
+		this.tickCount++;
+
+		final int loop = PlaybackMode.LOOP.ordinal(), pingPong = PlaybackMode.PING_PONG.ordinal();
+		long e, d;
+		long[] dur;
+		int st, n, m;
+
+		Animation a;
+		boolean wasEnded;
+		for(int i=0; i<this.size; i++){
+			a = this.animations[i].get();
+			if(a==null){
+				// collected, the last slot is moved here and advanced next
+				this.removeSlot(i--);
+				continue;
+			}
+			m = this.mode[i];
+			if(this.ended[i] && m!=loop && m!=pingPong){
+				continue;
+			}
+			wasEnded = this.ended[i];
+
+			n = this.frameCount[i];
+			e = this.elapsed[i] + elapsedNanos;
+			// whole cycles end where they started, so only the remainder has to be walked through
+			if(this.cycleNanos[i]>0 && e>=this.cycleNanos[i]){
+				e %= this.cycleNanos[i];
+				this.ended[i] = true;
+			}
+
+			st = this.step[i];
+			dur = this.durations[i];
+			d = (dur==null) ? this.frameNanos[i] : dur[st];
+			while(e>=d){
+				e -= d;
+				if(m==loop){
+					st = (st+1<n) ? st+1 : 0;
+				}else if(m==pingPong){
+					if(st+this.direction[i]<0 || st+this.direction[i]>=n){
+						this.direction[i] = -this.direction[i];
+					}
+					st = (n>1) ? st+this.direction[i] : 0;
+				}else{
+					if(st+1>=n){
+						this.ended[i] = true;
+						e = 0;
+						break;
+					}
+					st++;
+				}
+				if(st==n-1){
+					this.ended[i] = true;
+					if(m!=loop && m!=pingPong){
+						e = 0;
+						break;
+					}
+				}
+				d = (dur==null) ? this.frameNanos[i] : dur[st];
+			}
+
+			this.elapsed[i] = e;
+			if(st!=this.step[i] || wasEnded!=this.ended[i]){
+				this.step[i] = st;
+				a.publish(st, this.ended[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns the amount of registered Animations.<br>
+	 * Animations which have been collected are counted until the next tick.
+	 *
+	 * @return The amount of Animations driven by this clock
+	 */
+	public synchronized int size(){
+		return this.size;
+	}
+
+	/**
+	 * Returns the amount of ticks since this clock has been created.
+	 *
+	 * @return The amount of ticks
+	 */
+	public synchronized long getTickCount(){
+		return this.tickCount;
+	}
+
+	/**
+	 * Lets the specified Animation start anew at its first frame.
+	 */
+	synchronized void reset(Animation animation){
+		if(animation.getClock()==this){
+			int s = animation.getClockSlot();
+			this.resetSlot(s);
+			animation.publish(this.step[s], this.ended[s]);
+		}
+	}
+
+	/**
+	 * Frees the specified slot by moving the last slot into it.
+	 */
+	private void removeSlot(int s){
+		int last = --this.size;
+		if(s!=last){
+			this.animations[s] = this.animations[last];
+			this.timings[s] = this.timings[last];
+			this.step[s] = this.step[last];
+			this.frameCount[s] = this.frameCount[last];
+			this.direction[s] = this.direction[last];
+			this.elapsed[s] = this.elapsed[last];
+			this.frameNanos[s] = this.frameNanos[last];
+			this.cycleNanos[s] = this.cycleNanos[last];
+			this.durations[s] = this.durations[last];
+			this.mode[s] = this.mode[last];
+			this.ended[s] = this.ended[last];
+			Animation moved = this.animations[s].get();
+			if(moved!=null){
+				moved.attach(this, s);
+			}
+		}
+		this.animations[last] = null;
+		this.timings[last] = null;
+		this.durations[last] = null;
+	}
+
+	private void resetSlot(int s){
+		this.step[s] = 0;
+		this.elapsed[s] = 0;
+		this.direction[s] = 1;
+		this.ended[s] = (this.frameCount[s]==1);
+	}
+
+	/**
+	 * Returns the time after which an Animation is back at its first frame, moving forwards,
+	 * or 0 if it never returns there (one-shot).
+	 */
+	private static long cycleOf(long[] durations, long frameNanos, int frames, PlaybackMode mode){
+		if(mode==PlaybackMode.ONE_SHOT){
+			return 0;
+		}
+
+		long forward = 0, inner = 0;
+		for(int i=0; i<frames; i++){
+			long d = (durations==null) ? frameNanos : durations[i];
+			forward += d;
+			if(i>0 && i<frames-1){
+				inner += d;
+			}
+		}
+		return (mode==PlaybackMode.PING_PONG && frames>1) ? forward+inner : forward;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void grow(int capacity){
+		WeakReference<Animation>[] a = (WeakReference<Animation>[]) new WeakReference<?>[capacity];
+		AnimationTiming[] ti = new AnimationTiming[capacity];
+		int[] st = new int[capacity], fc = new int[capacity], dir = new int[capacity];
+		long[] el = new long[capacity], fn = new long[capacity], cy = new long[capacity];
+		long[][] du = new long[capacity][];
+		byte[] mo = new byte[capacity];
+		boolean[] en = new boolean[capacity];
+
+		if(this.animations!=null){
+			System.arraycopy(this.animations, 0, a, 0, this.size);
+			System.arraycopy(this.timings, 0, ti, 0, this.size);
+			System.arraycopy(this.step, 0, st, 0, this.size);
+			System.arraycopy(this.frameCount, 0, fc, 0, this.size);
+			System.arraycopy(this.direction, 0, dir, 0, this.size);
+			System.arraycopy(this.elapsed, 0, el, 0, this.size);
+			System.arraycopy(this.frameNanos, 0, fn, 0, this.size);
+			System.arraycopy(this.cycleNanos, 0, cy, 0, this.size);
+			System.arraycopy(this.durations, 0, du, 0, this.size);
+			System.arraycopy(this.mode, 0, mo, 0, this.size);
+			System.arraycopy(this.ended, 0, en, 0, this.size);
+		}
+
+		this.animations = a;
+		this.timings = ti;
+		this.step = st;
+		this.frameCount = fc;
+		this.direction = dir;
+		this.elapsed = el;
+		this.frameNanos = fn;
+		this.cycleNanos = cy;
+		this.durations = du;
+		this.mode = mo;
+		this.ended = en;
+	}
+}
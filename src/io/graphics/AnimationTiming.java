@@ -0,0 +1,116 @@
+package io.graphics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An AnimationTiming describes how long the frames of an Animation are shown when it is driven by
+ * an AnimationClock, and how it walks through them (see PlaybackMode).<br>
+ * The durations are measured in elapsed time, so the speed of an Animation does not depend on the frame rate.<br>
+ * <br>
+ * AnimationTimings are immutable and can be shared by any amount of Animations.
+ *
+ * @author Maxmanski
+ */
+public final class AnimationTiming {
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	private final long frameNanos;
+	private final long[] durations;
+	private final PlaybackMode mode;
+
+	private AnimationTiming(long frameNanos, long[] durations, PlaybackMode mode){
+		if(mode==null){
+			throw new IllegalArgumentException("The PlaybackMode cannot be null!");
+		}
+		this.frameNanos=frameNanos;
+		this.durations=durations;
+		this.mode=mode;
+	}
+
+	/**
+	 * Creates a new AnimationTiming which shows every frame for the same time.
+	 *
+	 * @param fps The amount of frames shown per second. Must be greater than 0.
+	 * @param mode The way the frames are walked through. Cannot be a NULL reference.
+	 * @return The new AnimationTiming
+	 */
+	public static AnimationTiming fixedRate(double fps, PlaybackMode mode){
+		if(fps<=0){
+			throw new IllegalArgumentException("The frame rate must not be <= 0!");
+		}
+		return new AnimationTiming(Math.max(1, (long)(NANOS_PER_SECOND/fps)), null, mode);
+	}
+
+	/**
+	 * Creates a new AnimationTiming which shows every frame for its own duration.<br>
+	 * The amount of durations has to match the amount of frames of the Animations using this timing.
+	 *
+	 * @param mode The way the frames are walked through. Cannot be a NULL reference.
+	 * @param unit The unit of the durations
+	 * @param durations The duration of every frame, in order. Cannot be empty and every duration must be greater than 0.
+	 * @return The new AnimationTiming
+	 */
+	public static AnimationTiming perFrame(PlaybackMode mode, TimeUnit unit, long... durations){
+		if(durations==null || durations.length==0){
+			throw new IllegalArgumentException("The durations cannot be null or empty!");
+		}
+
+		long[] nanos = new long[durations.length];
+		for(int i=0; i<durations.length; i++){
+			if(durations[i]<=0){
+				throw new IllegalArgumentException("The duration of a frame must not be <= 0!");
+			}
+			nanos[i]=unit.toNanos(durations[i]);
+		}
+		return new AnimationTiming(0, nanos, mode);
+	}
+
+	/**
+	 * Returns the way the frames are walked through.
+	 *
+	 * @return The PlaybackMode of this timing
+	 */
+	public PlaybackMode getMode(){
+		return this.mode;
+	}
+
+	/**
+	 * Checks if every frame is shown for the same time.
+	 *
+	 * @return TRUE, if this timing has been created with a fixed frame rate. FALSE otherwise.
+	 */
+	public boolean isFixedRate(){
+		return this.durations==null;
+	}
+
+	/**
+	 * Returns the amount of frames this timing has durations for.
+	 *
+	 * @return The amount of durations or -1, if this timing has a fixed frame rate and fits any amount of frames
+	 */
+	public int getFrameCount(){
+		return (this.durations==null) ? -1 : this.durations.length;
+	}
+
+	/**
+	 * Returns the time the specified frame is shown.
+	 *
+	 * @param frame The index of the frame
+	 * @return The duration of the frame in nanoseconds
+	 */
+	public long getDurationNanos(int frame){
+		return (this.durations==null) ? this.frameNanos : this.durations[frame];
+	}
+
+	/**
+	 * Returns the durations of the frames without copying them, or NULL for a fixed frame rate.
+	 */
+	long[] durations(){
+		return this.durations;
+	}
+
+	long frameNanos(){
+		return this.frameNanos;
+	}
+}
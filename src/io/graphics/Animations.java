@@ -66,10 +66,11 @@ public class Animations<Key> {
 	}
 	
 	/**
-	 * Creates a deep copy of the specified Animations collection.<br>
+	 * Creates a copy of the specified Animations collection.<br>
+	 * Every Animation is copied with its own playback state, while the frames are shared.
 	 * The specified Animations object cannot be a NULL reference.
 	 * 
-	 * @param toCopy The Animations collection of which a deep copy should be created
+	 * @param toCopy The Animations collection of which a copy should be created
 	 */
 	public Animations(Animations<Key> toCopy){
 		if(toCopy==null){
@@ -77,9 +78,13 @@ public class Animations<Key> {
 		}
 		aniMap=new HashMap<>();
 		for(Key k: toCopy.aniMap.keySet()){
-			this.aniMap.put(k, new Animation(toCopy.aniMap.get(k)));
+			Animation original = toCopy.aniMap.get(k);
+			Animation copy = new Animation(original);
+			this.aniMap.put(k, copy);
+			if(original==toCopy.currentAnimation){
+				this.currentAnimation=copy;
+			}
 		}
-		this.currentAnimation=toCopy.currentAnimation;
 	}
 	
 	/**
@@ -0,0 +1,141 @@
+package io.graphics;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+/**
+ * An AtlasRegion is a handle to an image which has been packed into a page of a TextureAtlas.<br>
+ * Drawing the region copies the rectangle from the page, so all regions of a page share the same
+ * (accelerated) source surface.
+ *
+ * @author Maxmanski
+ */
+public final class AtlasRegion {
+
+	private final String name;
+	private final BufferedImage page;
+	private final int pageIndex;
+	private final int x, y, width, height;
+	private BufferedImage image;
+
+	/**
+	 * Creates a new AtlasRegion covering the specified rectangle of a page.
+	 *
+	 * @param name The name of the packed image
+	 * @param page The page the image has been packed into
+	 * @param pageIndex The index of the page in its TextureAtlas
+	 * @param x The X coordinate of the region in the page
+	 * @param y The Y coordinate of the region in the page
+	 * @param width The width of the region
+	 * @param height The height of the region
+	 */
+	AtlasRegion(String name, BufferedImage page, int pageIndex, int x, int y, int width, int height){
+		this.name=name;
+		this.page=page;
+		this.pageIndex=pageIndex;
+		this.x=x;
+		this.y=y;
+		this.width=width;
+		this.height=height;
+	}
+
+	/**
+	 * Draws this region with its upper left corner at the specified position.
+	 *
+	 * @param g The Graphics to draw onto
+	 * @param dx The X coordinate of the upper left corner
+	 * @param dy The Y coordinate of the upper left corner
+	 */
+	public void draw(Graphics g, int dx, int dy){
+		g.drawImage(this.page, dx, dy, dx+this.width, dy+this.height, this.x, this.y, this.x+this.width, this.y+this.height, null);
+	}
+
+	/**
+	 * Draws this region scaled into the specified rectangle.
+	 *
+	 * @param g The Graphics to draw onto
+	 * @param dx The X coordinate of the upper left corner
+	 * @param dy The Y coordinate of the upper left corner
+	 * @param dw The drawn width
+	 * @param dh The drawn height
+	 */
+	public void draw(Graphics g, int dx, int dy, int dw, int dh){
+		g.drawImage(this.page, dx, dy, dx+dw, dy+dh, this.x, this.y, this.x+this.width, this.y+this.height, null);
+	}
+
+	/**
+	 * Returns this region as a BufferedImage sharing the pixels of the page.<br>
+	 * Drawing this image does not use the surface of the page, so it should only be used where a BufferedImage is required.
+	 *
+	 * @return The image of this region
+	 */
+	public synchronized BufferedImage toImage(){
+		if(this.image==null){
+			this.image = this.page.getSubimage(this.x, this.y, this.width, this.height);
+		}
+		return this.image;
+	}
+
+	/**
+	 * Returns the name of the packed image.
+	 *
+	 * @return The name of this region
+	 */
+	public String getName(){
+		return this.name;
+	}
+
+	/**
+	 * Returns the page this region lies in.
+	 *
+	 * @return The page image
+	 */
+	public BufferedImage getPage(){
+		return this.page;
+	}
+
+	/**
+	 * Returns the index of the page this region lies in.
+	 *
+	 * @return The page index
+	 */
+	public int getPageIndex(){
+		return this.pageIndex;
+	}
+
+	/**
+	 * Returns the X coordinate of this region in its page.
+	 *
+	 * @return The X coordinate
+	 */
+	public int getX(){
+		return this.x;
+	}
+
+	/**
+	 * Returns the Y coordinate of this region in its page.
+	 *
+	 * @return The Y coordinate
+	 */
+	public int getY(){
+		return this.y;
+	}
+
+	/**
+	 * Returns the width of this region.
+	 *
+	 * @return The width in pixels
+	 */
+	public int getWidth(){
+		return this.width;
+	}
+
+	/**
+	 * Returns the height of this region.
+	 *
+	 * @return The height in pixels
+	 */
+	public int getHeight(){
+		return this.height;
+	}
+}
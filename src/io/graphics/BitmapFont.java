@@ -0,0 +1,303 @@
+package io.graphics;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+
+/**
+ * A BitmapFont draws text from glyphs which have been rasterized once and packed into a TextureAtlas,
+ * instead of letting Java2D lay out and rasterize the text in every frame.<br>
+ * A string is drawn as a series of blits, one per character.<br>
+ * <br>
+ * The glyphs are rendered in a single color and the printable ASCII characters are packed into the atlas on creation.
+ * Other characters are rasterized into an image of their own the first time they are drawn, so the pages of the atlas
+ * never change once the BitmapFont has been created and may be drawn from while another character is rasterized. Characters are placed by their advance,
+ * so kerning and ligatures of the font are not applied. Every glyph is rasterized with the bounds of its pixels, so
+ * italic glyphs and glyphs reaching beyond their advance (or above the ascent) are not clipped.<br>
+ * For text which rarely changes, a TextLabel caches the whole string as a single image.
+ *
+ * @author Maxmanski
+ */
+public class BitmapFont {
+
+	private static final int PREPARED = 128;
+
+	/**
+	 * The largest page size used for the glyphs, so the pages can still be accelerated as a single texture.
+	 */
+	private static final int MAX_PAGE_SIZE = 4096;
+
+	private final Font font;
+	private final Color color;
+	private final TextureAtlas atlas;
+	private final Glyph[] ascii;
+	private final HashMap<Character, Glyph> others;
+	private final FontMetrics metrics;
+	private final FontRenderContext context;
+	private final int ascent, height;
+
+	/**
+	 * Creates a new BitmapFont from the specified Font and Color and rasterizes the printable ASCII characters.
+	 *
+	 * @param font The Font. Cannot be a NULL reference. Its largest glyph must fit into a page of the atlas.
+	 * @param color The color of the glyphs. Cannot be a NULL reference.
+	 */
+	public BitmapFont(Font font, Color color){
+		if(font==null || color==null){
+			throw new IllegalArgumentException("The font and the color cannot be null!");
+		}
+
+		this.font = font;
+		this.color = color;
+		BufferedImage tmp = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = tmp.createGraphics();
+		g.setFont(font);
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		this.metrics = g.getFontMetrics();
+		this.context = g.getFontRenderContext();
+		g.dispose();
+		this.ascent = this.metrics.getAscent();
+		this.height = Math.max(1, this.metrics.getAscent()+this.metrics.getDescent());
+
+		// the pages have to hold the largest glyph of the font including the margin added by rasterize
+		Rectangle max = font.getMaxCharBounds(this.context).getBounds();
+		int glyphSize = Math.max(max.width, max.height)+2;
+		if(glyphSize>MAX_PAGE_SIZE){
+			throw new IllegalArgumentException("The glyphs of the font " + font.getName() + " do not fit into a page of size " + MAX_PAGE_SIZE + "!");
+		}
+		this.atlas = new TextureAtlas(Math.min(MAX_PAGE_SIZE, Math.max(glyphSize, Math.max(256, 16*Math.max(this.height, this.metrics.getMaxAdvance())))));
+		this.ascii = new Glyph[PREPARED];
+		this.others = new HashMap<>();
+
+		for(char c=' '; c<PREPARED-1; c++){
+			this.ascii[c] = this.rasterize(c);
+			if(this.ascii[c].image!=null){
+				// throws for glyphs not fitting into a page, i.e. on creation instead of while drawing
+				this.atlas.add(String.valueOf(c), this.ascii[c].image);
+			}
+		}
+		this.atlas.pack();
+		for(char c=' '; c<PREPARED-1; c++){
+			if(this.ascii[c].image!=null){
+				this.ascii[c] = new Glyph(this.atlas.getRegion(String.valueOf(c)), this.ascii[c]);
+			}
+		}
+	}
+
+	/**
+	 * Draws the specified text with the baseline of its first character at the specified position.
+	 *
+	 * @param g The Graphics to draw onto
+	 * @param text The text to be drawn
+	 * @param x The X coordinate of the start of the text
+	 * @param y The Y coordinate of the baseline
+	 */
+	public void drawString(Graphics g, String text, int x, int y){
+		int top = y-this.ascent;
+		for(int i=0, n=text.length(); i<n; i++){
+			char c = text.charAt(i);
+			Glyph gl = this.glyph(c);
+			gl.draw(g, x+gl.offsetX, top+gl.offsetY);
+			x += gl.advance;
+		}
+	}
+
+	/**
+	 * Draws the specified text scaled, with the baseline of its first character at the specified position (in logical coordinates).
+	 *
+	 * @param g The Graphics to draw onto
+	 * @param text The text to be drawn
+	 * @param x The X coordinate of the start of the text
+	 * @param y The Y coordinate of the baseline
+	 * @param scaleX The horizontal scale factor
+	 * @param scaleY The vertical scale factor
+	 */
+	public void drawString(Graphics g, String text, int x, int y, double scaleX, double scaleY){
+		if(scaleX==1.0 && scaleY==1.0){
+			this.drawString(g, text, x, y);
+			return;
+		}
+
+		int top = y-this.ascent;
+		int dx1, dx2, dy1, dy2;
+		for(int i=0, n=text.length(); i<n; i++){
+			char c = text.charAt(i);
+			Glyph gl = this.glyph(c);
+			if(gl.width>0){
+				dx1 = (int)((x+gl.offsetX)*scaleX);
+				dx2 = (int)((x+gl.offsetX+gl.width)*scaleX);
+				dy1 = (int)((top+gl.offsetY)*scaleY);
+				dy2 = (int)((top+gl.offsetY+gl.height)*scaleY);
+				gl.draw(g, dx1, dy1, dx2-dx1, dy2-dy1);
+			}
+			x += gl.advance;
+		}
+	}
+
+	/**
+	 * Returns the area covered by the pixels of the specified text, relative to the start of the text and the top of the line
+	 * (i.e. the baseline minus the ascent).<br>
+	 * The area contains at least the advance of the text and the height of the line, but may reach beyond them
+	 * where glyphs overhang.
+	 *
+	 * @param text The text
+	 * @return The area covered by the text
+	 */
+	public Rectangle getStringBounds(String text){
+		Rectangle bounds = new Rectangle(0, 0, 0, this.height);
+		int x = 0;
+		for(int i=0, n=text.length(); i<n; i++){
+			Glyph gl = this.glyph(text.charAt(i));
+			if(gl.width>0){
+				bounds.add(new Rectangle(x+gl.offsetX, gl.offsetY, gl.width, gl.height));
+			}
+			x += gl.advance;
+		}
+		bounds.add(new Rectangle(0, 0, x, this.height));
+		return bounds;
+	}
+
+	/**
+	 * Returns the width of the specified text, when drawn with this BitmapFont.
+	 *
+	 * @param text The text
+	 * @return The width of the text in pixels
+	 */
+	public int stringWidth(String text){
+		int w = 0;
+		for(int i=0, n=text.length(); i<n; i++){
+			w += this.glyph(text.charAt(i)).advance;
+		}
+		return w;
+	}
+
+	/**
+	 * Returns the distance from the baseline to the top of the glyphs.
+	 *
+	 * @return The ascent of the font
+	 */
+	public int getAscent(){
+		return this.ascent;
+	}
+
+	/**
+	 * Returns the height of a line of text (ascent plus descent).
+	 *
+	 * @return The height of the glyphs
+	 */
+	public int getHeight(){
+		return this.height;
+	}
+
+	/**
+	 * Returns the Font the glyphs have been rasterized from.
+	 *
+	 * @return The Font
+	 */
+	public Font getFont(){
+		return this.font;
+	}
+
+	/**
+	 * Returns the color of the glyphs.
+	 *
+	 * @return The Color
+	 */
+	public Color getColor(){
+		return this.color;
+	}
+
+	/**
+	 * Returns the glyph of the specified character, rasterizing it into an image of its own first if necessary.
+	 */
+	private Glyph glyph(char c){
+		if(c<PREPARED && this.ascii[c]!=null){
+			return this.ascii[c];
+		}
+
+		synchronized(this.others){
+			Glyph gl = this.others.get(c);
+			if(gl==null){
+				gl = this.rasterize(c);
+				this.others.put(c, gl);
+			}
+			return gl;
+		}
+	}
+
+	/**
+	 * Renders the glyph of the specified character into a new image covering its pixels.
+	 */
+	private Glyph rasterize(char c){
+		GlyphVector gv = this.font.createGlyphVector(this.context, String.valueOf(c));
+		Rectangle bounds = gv.getPixelBounds(this.context, 0, this.ascent);
+		if(bounds.isEmpty()){
+			return new Glyph(null, 0, 0, this.metrics.charWidth(c));
+		}
+
+		// one pixel of margin for the antialiased edges
+		bounds.grow(1, 1);
+		BufferedImage img = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = img.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.setColor(this.color);
+		g.drawGlyphVector(gv, -bounds.x, this.ascent-bounds.y);
+		g.dispose();
+		return new Glyph(img, bounds.x, bounds.y, this.metrics.charWidth(c));
+	}
+
+	/**
+	 * A rasterized character: either its region in the atlas or an image of its own, the position of its pixels
+	 * relative to the pen position and the top of the line, and its advance.
+	 */
+	private static final class Glyph {
+
+		private final AtlasRegion region;
+		private final BufferedImage image;
+		private final int offsetX, offsetY, width, height, advance;
+
+		private Glyph(AtlasRegion region, Glyph rasterized){
+			this.region = region;
+			this.image = null;
+			this.offsetX = rasterized.offsetX;
+			this.offsetY = rasterized.offsetY;
+			this.width = rasterized.width;
+			this.height = rasterized.height;
+			this.advance = rasterized.advance;
+		}
+
+		private Glyph(BufferedImage image, int offsetX, int offsetY, int advance){
+			this.region = null;
+			this.image = image;
+			this.offsetX = offsetX;
+			this.offsetY = offsetY;
+			this.width = (image==null) ? 0 : image.getWidth();
+			this.height = (image==null) ? 0 : image.getHeight();
+			this.advance = advance;
+		}
+
+		private void draw(Graphics g, int dx, int dy){
+			if(this.region!=null){
+				this.region.draw(g, dx, dy);
+			}else if(this.image!=null){
+				g.drawImage(this.image, dx, dy, null);
+			}
+		}
+
+		private void draw(Graphics g, int dx, int dy, int dw, int dh){
+			if(this.region!=null){
+				this.region.draw(g, dx, dy, dw, dh);
+			}else if(this.image!=null){
+				g.drawImage(this.image, dx, dy, dw, dh, null);
+			}
+		}
+	}
+}
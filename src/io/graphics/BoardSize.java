@@ -0,0 +1,75 @@
+package io.graphics;
+
+import game.options.Options;
+
+/**
+ * The board sizes which can be chosen in the Options, with the amount of tiles of each board.
+ *
+ * @author Maxmanski
+ */
+public enum BoardSize {
+
+	/**
+	 * 13 x 11 tiles
+	 */
+	SMALL(13, 11),
+
+	/**
+	 * 17 x 15 tiles
+	 */
+	MEDIUM(17, 15),
+
+	/**
+	 * 21 x 19 tiles
+	 */
+	LARGE(21, 19);
+
+	private final int columns, rows;
+
+	private BoardSize(int columns, int rows){
+		this.columns=columns;
+		this.rows=rows;
+	}
+
+	/**
+	 * Returns the amount of tile columns of this board size.
+	 *
+	 * @return The width of the board in tiles
+	 */
+	public int getColumns(){
+		return this.columns;
+	}
+
+	/**
+	 * Returns the amount of tile rows of this board size.
+	 *
+	 * @return The height of the board in tiles
+	 */
+	public int getRows(){
+		return this.rows;
+	}
+
+	/**
+	 * Returns the board size with the specified name, as used by Options.boardSize() (small, medium or large).
+	 *
+	 * @param name The name of the board size
+	 * @return The matching BoardSize or MEDIUM, if the name is unknown
+	 */
+	public static BoardSize fromName(String name){
+		if("small".equals(name)){
+			return SMALL;
+		}else if("large".equals(name)){
+			return LARGE;
+		}
+		return MEDIUM;
+	}
+
+	/**
+	 * Returns the board size currently chosen in the Options.
+	 *
+	 * @return The chosen BoardSize
+	 */
+	public static BoardSize fromOptions(){
+		return BoardSize.fromName(Options.getInstance().boardSize());
+	}
+}
@@ -0,0 +1,25 @@
+package io.graphics;
+
+/**
+ * A Drawable which knows the size of the area it covers on the 2D plane.<br>
+ * The area starts at getX() and getY() and is used to skip the Drawable cheaply
+ * if it is not visible, without calling any of its draw methods.
+ *
+ * @author Maxmanski
+ */
+public interface BoundedDrawable extends Drawable {
+
+	/**
+	 * Has to return the width of the area covered by the Drawable, in logical (unscaled) coordinates.
+	 *
+	 * @return The width of the Drawable
+	 */
+	public int getWidth();
+
+	/**
+	 * Has to return the height of the area covered by the Drawable, in logical (unscaled) coordinates.
+	 *
+	 * @return The height of the Drawable
+	 */
+	public int getHeight();
+}
@@ -0,0 +1,52 @@
+package io.graphics;
+
+/**
+ * The buffering modes the GameFrame can use for its BufferStrategy.<br>
+ * If a mode is not supported by the GraphicsDevice, the GameFrame falls back to the next simpler mode.
+ *
+ * @author Maxmanski
+ */
+public enum BufferingMode {
+
+	/**
+	 * One back buffer, which is copied onto the screen (blitting).
+	 */
+	DOUBLE(2, false),
+
+	/**
+	 * Two back buffers, so the next frame can be drawn while the last one is still being shown.
+	 */
+	TRIPLE(3, false),
+
+	/**
+	 * One back buffer, which is shown by switching the video pointer instead of copying it.<br>
+	 * This is usually only available in fullscreen mode.
+	 */
+	PAGE_FLIPPING(2, true);
+
+	private final int buffers;
+	private final boolean pageFlipping;
+
+	private BufferingMode(int buffers, boolean pageFlipping){
+		this.buffers=buffers;
+		this.pageFlipping=pageFlipping;
+	}
+
+	/**
+	 * Returns the amount of buffers (including the front buffer) used by this mode.
+	 *
+	 * @return The amount of buffers
+	 */
+	public int getBuffers(){
+		return this.buffers;
+	}
+
+	/**
+	 * Checks if this mode requires page flipping.
+	 *
+	 * @return TRUE, if page flipping is required. FALSE otherwise.
+	 */
+	public boolean isPageFlipping(){
+		return this.pageFlipping;
+	}
+}
@@ -0,0 +1,77 @@
+package io.graphics;
+
+import java.awt.Point;
+
+/**
+ * An immutable snapshot of the position of the canvas on the screen and the scale factors of the GameFrame.<br>
+ * The GameFrame publishes a new snapshot whenever the canvas is moved or resized or the mode or
+ * resolution changes, so screen coordinates can be converted without locking and without asking AWT.
+ *
+ * @author Maxmanski
+ */
+public final class CanvasTransform {
+
+	private final int originX, originY;
+	private final double scaleX, scaleY;
+
+	/**
+	 * Creates a new CanvasTransform.
+	 *
+	 * @param originX The X coordinate of the upper left corner of the canvas on the screen
+	 * @param originY The Y coordinate of the upper left corner of the canvas on the screen
+	 * @param scaleX The horizontal scale factor of the GameFrame
+	 * @param scaleY The vertical scale factor of the GameFrame
+	 */
+	CanvasTransform(int originX, int originY, double scaleX, double scaleY){
+		this.originX=originX;
+		this.originY=originY;
+		this.scaleX=scaleX;
+		this.scaleY=scaleY;
+	}
+
+	/**
+	 * Converts the specified location on the screen into canvas coordinates.
+	 *
+	 * @param location The location on the screen
+	 * @return The location in canvas coordinates
+	 */
+	public Point toCanvas(Point location){
+		return new Point((int)((location.x-this.originX)*this.scaleX), (int)((location.y-this.originY)*this.scaleY));
+	}
+
+	/**
+	 * Returns the X coordinate of the upper left corner of the canvas on the screen.
+	 *
+	 * @return The X coordinate of the canvas origin
+	 */
+	public int getOriginX(){
+		return this.originX;
+	}
+
+	/**
+	 * Returns the Y coordinate of the upper left corner of the canvas on the screen.
+	 *
+	 * @return The Y coordinate of the canvas origin
+	 */
+	public int getOriginY(){
+		return this.originY;
+	}
+
+	/**
+	 * Returns the horizontal scale factor at the time of the snapshot.
+	 *
+	 * @return The horizontal scale factor
+	 */
+	public double getScaleX(){
+		return this.scaleX;
+	}
+
+	/**
+	 * Returns the vertical scale factor at the time of the snapshot.
+	 *
+	 * @return The vertical scale factor
+	 */
+	public double getScaleY(){
+		return this.scaleY;
+	}
+}
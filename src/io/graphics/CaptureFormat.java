@@ -0,0 +1,23 @@
+package io.graphics;
+
+/**
+ * The formats a FrameCapture can encode the captured frames into.
+ *
+ * @author Maxmanski
+ */
+public enum CaptureFormat {
+
+	/**
+	 * Every frame is written as a separate PNG file, named by its frame number.
+	 */
+	PNG,
+
+	/**
+	 * Every frame is run-length encoded and appended to a single container file.<br>
+	 * The file consists of records of the frame number, the width and the height (each a 32 bit integer),
+	 * followed by the length of the encoded data (32 bit integer) and the data itself. The data is a sequence
+	 * of runs, each being the amount of equal pixels (one unsigned byte) followed by their RGB value (three bytes).<br>
+	 * As frames are encoded in parallel, the records may not be ordered by frame number.
+	 */
+	RLE
+}
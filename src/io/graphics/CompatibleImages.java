@@ -0,0 +1,173 @@
+package io.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.ImageCapabilities;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Creates images which are compatible with the screen, so Java2D can cache them in video memory
+ * (managed images) and draw them with accelerated blits.<br>
+ * <br>
+ * Images returned by ImageIO usually have a different pixel layout (e.g. TYPE_3BYTE_BGR or TYPE_CUSTOM) and
+ * subimages share the raster of their parent, both of which forces Java2D to draw them with slow software loops.
+ * Converted images are standalone copies in the layout of the screen, with the least expensive transparency
+ * mode their pixels allow.<br>
+ * If the environment is headless, integer RGB and ARGB images are used instead.
+ *
+ * @author Maxmanski
+ */
+public final class CompatibleImages {
+
+	private CompatibleImages(){
+	}
+
+	/**
+	 * Creates a new, empty image compatible with the screen.
+	 *
+	 * @param width The width of the image
+	 * @param height The height of the image
+	 * @param transparency The transparency mode of the image (see Transparency)
+	 * @return The new image
+	 */
+	public static BufferedImage create(int width, int height, int transparency){
+		GraphicsConfiguration gc = CompatibleImages.getConfiguration();
+		if(gc==null){
+			int type = (transparency==Transparency.OPAQUE) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+			return new BufferedImage(width, height, type);
+		}
+		return gc.createCompatibleImage(width, height, transparency);
+	}
+
+	/**
+	 * Converts the specified image into an image compatible with the screen.<br>
+	 * If the image already is a standalone compatible image in the right transparency mode, it is returned itself.
+	 *
+	 * @param image The image to be converted. Cannot be a NULL reference.
+	 * @return The compatible image
+	 */
+	public static BufferedImage toCompatible(BufferedImage image){
+		int transparency = CompatibleImages.transparencyOf(image, 0, 0, image.getWidth(), image.getHeight());
+		if(CompatibleImages.isCompatible(image, transparency)){
+			return image;
+		}
+		return CompatibleImages.copy(image, 0, 0, image.getWidth(), image.getHeight(), transparency);
+	}
+
+	/**
+	 * Copies the specified area of an image (e.g. a frame of a sprite sheet) into a new, standalone image
+	 * compatible with the screen.
+	 *
+	 * @param image The source image
+	 * @param x The X coordinate of the area
+	 * @param y The Y coordinate of the area
+	 * @param width The width of the area
+	 * @param height The height of the area
+	 * @param transparency The transparency mode of the copy (see Transparency)
+	 * @return The copy of the area
+	 */
+	public static BufferedImage copy(BufferedImage image, int x, int y, int width, int height, int transparency){
+		BufferedImage result = CompatibleImages.create(width, height, transparency);
+		Graphics2D g = result.createGraphics();
+		g.drawImage(image, 0, 0, width, height, x, y, x+width, y+height, null);
+		g.dispose();
+		return result;
+	}
+
+	/**
+	 * Determines the least expensive transparency mode the pixels of the specified area need:
+	 * OPAQUE if no pixel is transparent, BITMASK if every pixel is either fully transparent or opaque,
+	 * TRANSLUCENT otherwise.
+	 *
+	 * @param image The image
+	 * @param x The X coordinate of the area
+	 * @param y The Y coordinate of the area
+	 * @param width The width of the area
+	 * @param height The height of the area
+	 * @return The transparency mode of the area (see Transparency)
+	 */
+	public static int transparencyOf(BufferedImage image, int x, int y, int width, int height){
+		if(!image.getColorModel().hasAlpha()){
+			return image.getColorModel().getTransparency();
+		}
+
+		int result = Transparency.OPAQUE, alpha;
+		int[] row = new int[width];
+		for(int j=0; j<height; j++){
+			image.getRGB(x, y+j, width, 1, row, 0, width);
+			for(int i=0; i<width; i++){
+				alpha = row[i]>>>24;
+				if(alpha==0){
+					result = Transparency.BITMASK;
+				}else if(alpha!=255){
+					return Transparency.TRANSLUCENT;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if the specified image is a standalone image in the layout the screen uses for the specified transparency mode.
+	 *
+	 * @param image The image
+	 * @param transparency The transparency mode the image should have
+	 * @return TRUE, if the image does not have to be converted. FALSE otherwise.
+	 */
+	public static boolean isCompatible(BufferedImage image, int transparency){
+		if(image.getRaster().getParent()!=null){
+			return false;
+		}
+
+		GraphicsConfiguration gc = CompatibleImages.getConfiguration();
+		if(gc==null){
+			return image.getType()==((transparency==Transparency.OPAQUE) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		}
+		return image.getTransparency()==transparency && image.getColorModel().equals(gc.getColorModel(transparency));
+	}
+
+	/**
+	 * Checks if the specified image is currently cached in video memory.<br>
+	 * Note that Java2D only caches a managed image after it has been drawn a few times without being modified.
+	 *
+	 * @param image The image
+	 * @return TRUE, if drawing the image is accelerated. FALSE otherwise or if the environment is headless.
+	 */
+	public static boolean isAccelerated(Image image){
+		GraphicsConfiguration gc = CompatibleImages.getConfiguration();
+		if(gc==null){
+			return false;
+		}
+		ImageCapabilities caps = image.getCapabilities(gc);
+		return caps!=null && caps.isAccelerated();
+	}
+
+	/**
+	 * Describes how the specified image is stored and whether it is accelerated, e.g. "32x32 TRANSLUCENT, compatible, accelerated".
+	 *
+	 * @param image The image
+	 * @return The description of the image
+	 */
+	public static String describe(BufferedImage image){
+		int t = image.getTransparency();
+		String transparency = (t==Transparency.OPAQUE) ? "OPAQUE" : (t==Transparency.BITMASK) ? "BITMASK" : "TRANSLUCENT";
+		StringBuilder sb = new StringBuilder();
+		sb.append(image.getWidth()).append('x').append(image.getHeight()).append(' ').append(transparency);
+		if(image.getRaster().getParent()!=null){
+			sb.append(", subimage");
+		}
+		sb.append(CompatibleImages.isCompatible(image, t) ? ", compatible" : ", not compatible (type " + image.getType() + ")");
+		sb.append(CompatibleImages.isAccelerated(image) ? ", accelerated" : ", not accelerated");
+		return sb.toString();
+	}
+
+	private static GraphicsConfiguration getConfiguration(){
+		if(GraphicsEnvironment.isHeadless()){
+			return null;
+		}
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+	}
+}
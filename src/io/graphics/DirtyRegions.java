@@ -0,0 +1,167 @@
+package io.graphics;
+
+import java.awt.Rectangle;
+
+/**
+ * A set of rectangular regions (in logical coordinates) which have changed since the last frame
+ * and therefore have to be repainted.<br>
+ * Overlapping or touching regions are merged into their bounding rectangle when they are added.
+ * If too many distinct regions are collected, the whole area is marked as dirty instead.<br>
+ * <br>
+ * Regions may be added from any Thread, while they are usually drained by the rendering Thread.
+ *
+ * @author Maxmanski
+ */
+public class DirtyRegions {
+
+	/**
+	 * The maximum amount of distinct regions, before the whole area is considered dirty.
+	 */
+	public static final int MAX_REGIONS = 32;
+
+	private final int[] x1, y1, x2, y2;
+	private int count;
+	private boolean all;
+
+	/**
+	 * Creates a new DirtyRegions set in which the whole area is marked as dirty,
+	 * so the first frame will be painted completely.
+	 */
+	public DirtyRegions(){
+		this.x1 = new int[MAX_REGIONS];
+		this.y1 = new int[MAX_REGIONS];
+		this.x2 = new int[MAX_REGIONS];
+		this.y2 = new int[MAX_REGIONS];
+		this.count = 0;
+		this.all = true;
+	}
+
+	/**
+	 * Marks the specified region as dirty.<br>
+	 * Regions with a width or height <= 0 are ignored.
+	 *
+	 * @param x The X coordinate of the region
+	 * @param y The Y coordinate of the region
+	 * @param width The width of the region
+	 * @param height The height of the region
+	 */
+	public synchronized void add(int x, int y, int width, int height){
+		if(this.all || width<=0 || height<=0){
+			return;
+		}
+
+		int nx1=x, ny1=y, nx2=x+width, ny2=y+height;
+
+		for(int i=0; i<this.count; i++){
+			if(nx1<=this.x2[i] && this.x1[i]<=nx2 && ny1<=this.y2[i] && this.y1[i]<=ny2){
+				nx1 = Math.min(nx1, this.x1[i]);
+				ny1 = Math.min(ny1, this.y1[i]);
+				nx2 = Math.max(nx2, this.x2[i]);
+				ny2 = Math.max(ny2, this.y2[i]);
+
+				// the merged region may now overlap regions which have already been checked
+				this.count--;
+				this.x1[i]=this.x1[this.count];
+				this.y1[i]=this.y1[this.count];
+				this.x2[i]=this.x2[this.count];
+				this.y2[i]=this.y2[this.count];
+				i=-1;
+			}
+		}
+
+		if(this.count==MAX_REGIONS){
+			this.markAll();
+			return;
+		}
+
+		this.x1[this.count]=nx1;
+		this.y1[this.count]=ny1;
+		this.x2[this.count]=nx2;
+		this.y2[this.count]=ny2;
+		this.count++;
+	}
+
+	/**
+	 * Marks the specified region as dirty.
+	 *
+	 * @param r The region to be marked. NULL references are ignored.
+	 */
+	public void add(Rectangle r){
+		if(r!=null){
+			this.add(r.x, r.y, r.width, r.height);
+		}
+	}
+
+	/**
+	 * Marks the whole area as dirty.
+	 */
+	public synchronized void markAll(){
+		this.all = true;
+		this.count = 0;
+	}
+
+	/**
+	 * Forgets every dirty region, without marking anything.
+	 */
+	public synchronized void clear(){
+		this.all = false;
+		this.count = 0;
+	}
+
+	/**
+	 * Adds the dirty regions of this set to the specified set and clears this set.<br>
+	 * If the whole area of this set is dirty, the whole area of the specified set is marked.
+	 *
+	 * @param target The set the regions are moved to. Cannot be this set.
+	 */
+	public synchronized void drainInto(DirtyRegions target){
+		this.copyInto(target);
+		this.clear();
+	}
+
+	/**
+	 * Adds the dirty regions of this set to the specified set, keeping them in this set.<br>
+	 * If the whole area of this set is dirty, the whole area of the specified set is marked.
+	 *
+	 * @param target The set the regions are added to. Cannot be this set.
+	 */
+	public synchronized void copyInto(DirtyRegions target){
+		if(this.all){
+			target.markAll();
+		}else{
+			for(int i=0; i<this.count; i++){
+				target.add(this.x1[i], this.y1[i], this.x2[i]-this.x1[i], this.y2[i]-this.y1[i]);
+			}
+		}
+	}
+
+	/**
+	 * Checks if nothing has been marked as dirty since the last drain.
+	 *
+	 * @return TRUE, if there are no dirty regions. FALSE otherwise.
+	 */
+	public synchronized boolean isEmpty(){
+		return !this.all && this.count==0;
+	}
+
+	/**
+	 * Copies the dirty regions into the specified array and clears this set.<br>
+	 * Every region occupies four consecutive elements: x1, y1, x2, y2 (where x2 and y2 are exclusive).
+	 *
+	 * @param target The array to copy the regions into. Must have room for at least 4*MAX_REGIONS elements.
+	 * @return The amount of copied regions or -1, if the whole area is dirty.
+	 */
+	public synchronized int drainTo(int[] target){
+		int n = this.all ? -1 : this.count;
+
+		for(int i=0; i<this.count; i++){
+			target[4*i]=this.x1[i];
+			target[4*i+1]=this.y1[i];
+			target[4*i+2]=this.x2[i];
+			target[4*i+3]=this.y2[i];
+		}
+
+		this.clear();
+		return n;
+	}
+}
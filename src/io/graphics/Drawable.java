@@ -40,4 +40,15 @@ public interface Drawable {
 	 * @param dy
 	 */
 	public void move(int dx, int dy);
+	
+	/**
+	 * Returns an immutable copy of the current state of the Drawable, which can be drawn by another Thread
+	 * while the Drawable itself keeps changing (see FrameHandoff).<br>
+	 * Drawables which never change after their creation may return themselves, which is the default.
+	 * 
+	 * @return The snapshot of the Drawable
+	 */
+	public default Drawable snapshot(){
+		return this;
+	}
 }
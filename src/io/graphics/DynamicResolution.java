@@ -0,0 +1,186 @@
+package io.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DynamicResolution lets the GameFrame render into an internal target whose size is a fraction of the canvas
+ * and upscale the result to the canvas with a single blit.<br>
+ * The fraction (the render factor) is adapted to keep the time spent drawing a frame inside a budget:
+ * if the average drawing time exceeds the budget, the factor is lowered by one step, if it stays well
+ * below the budget, the factor is raised again.<br>
+ * <br>
+ * To avoid oscillating, the factor is only raised while the average stays below the lower threshold
+ * (three quarters of the budget by default) and every change is followed by a number of frames
+ * in which the factor is kept, so the average can settle.<br>
+ * The drawing time is averaged exponentially and recorded by the render Thread.<br>
+ * The Drawables are drawn with the scale of the canvas and reduced to the target while they are blitted,
+ * so changing the factor does not invalidate any scaled or pre-rendered image.
+ *
+ * @author Maxmanski
+ */
+public class DynamicResolution {
+
+	private final long budgetNanos;
+	private final double minFactor, maxFactor, step;
+	private double lowerThreshold;
+	private int settleFrames;
+	private volatile double factor;
+	private double average;
+	private int cooldown;
+	private VolatileImage target;
+
+	/**
+	 * Creates a new DynamicResolution with the specified frame time budget, which may lower the
+	 * resolution down to half of the canvas in steps of a tenth.
+	 *
+	 * @param budget The budget for drawing a frame
+	 * @param unit The unit of the budget
+	 */
+	public DynamicResolution(long budget, TimeUnit unit){
+		this(budget, unit, 0.5, 1.0, 0.1);
+	}
+
+	/**
+	 * Creates a new DynamicResolution with the specified frame time budget and range of render factors.
+	 *
+	 * @param budget The budget for drawing a frame. Must be greater than 0.
+	 * @param unit The unit of the budget
+	 * @param minFactor The lowest render factor, relative to the canvas size. Must be greater than 0.
+	 * @param maxFactor The highest render factor, relative to the canvas size. Must be at least minFactor.
+	 * @param step The amount the factor is changed by at once. Must be greater than 0.
+	 */
+	public DynamicResolution(long budget, TimeUnit unit, double minFactor, double maxFactor, double step){
+		if(budget<=0){
+			throw new IllegalArgumentException("The budget must not be <= 0!");
+		}
+		if(minFactor<=0 || maxFactor<minFactor || step<=0){
+			throw new IllegalArgumentException("The factors must satisfy 0 < minFactor <= maxFactor and the step must be greater than 0!");
+		}
+
+		this.budgetNanos = unit.toNanos(budget);
+		this.minFactor = minFactor;
+		this.maxFactor = maxFactor;
+		this.step = step;
+		this.lowerThreshold = 0.75;
+		this.settleFrames = 30;
+		this.factor = maxFactor;
+		this.average = -1;
+		this.cooldown = 0;
+	}
+
+	/**
+	 * Sets the hysteresis: the factor is only raised while the average drawing time stays below the specified
+	 * fraction of the budget, and after every change it is kept for the specified amount of frames.
+	 *
+	 * @param lowerThreshold The fraction of the budget below which the factor may be raised (between 0 and 1)
+	 * @param settleFrames The amount of frames the factor is kept after a change
+	 */
+	public synchronized void setHysteresis(double lowerThreshold, int settleFrames){
+		if(lowerThreshold<=0 || lowerThreshold>=1 || settleFrames<0){
+			throw new IllegalArgumentException("The threshold must be between 0 and 1 and the frames must not be < 0!");
+		}
+
+		this.lowerThreshold = lowerThreshold;
+		this.settleFrames = settleFrames;
+	}
+
+	/**
+	 * Returns the current render factor, i.e. the size of the internal target relative to the canvas.
+	 *
+	 * @return The render factor
+	 */
+	public double getFactor(){
+		return this.factor;
+	}
+
+	/**
+	 * Returns the exponential average of the recorded drawing times.
+	 *
+	 * @return The average drawing time in nanoseconds or -1, if nothing has been recorded yet
+	 */
+	public synchronized long getAverageNanos(){
+		return (long) this.average;
+	}
+
+	/**
+	 * Records the time it took to draw a frame and adapts the render factor, if necessary.
+	 *
+	 * @param nanos The drawing time of the frame in nanoseconds
+	 * @return TRUE, if the render factor has changed. FALSE otherwise.
+	 */
+	synchronized boolean record(long nanos){
+		this.average = (this.average<0) ? nanos : 0.9*this.average + 0.1*nanos;
+
+		if(this.cooldown>0){
+			this.cooldown--;
+			return false;
+		}
+
+		double next = this.factor;
+		if(this.average>this.budgetNanos){
+			next = Math.max(this.minFactor, this.factor-this.step);
+		}else if(this.average<this.lowerThreshold*this.budgetNanos){
+			next = Math.min(this.maxFactor, this.factor+this.step);
+		}
+		if(next==this.factor){
+			return false;
+		}
+
+		// the drawing time scales with the area, so the average is estimated for the new factor
+		this.average *= (next*next)/(this.factor*this.factor);
+		this.factor = next;
+		this.cooldown = this.settleFrames;
+		return true;
+	}
+
+	/**
+	 * Returns the internal target for a canvas of the specified size, (re)creating it if its size
+	 * does not match the render factor or its contents are gone.
+	 *
+	 * @param gc The GraphicsConfiguration of the canvas
+	 * @param canvasWidth The width of the canvas
+	 * @param canvasHeight The height of the canvas
+	 * @return The internal target
+	 */
+	VolatileImage getTarget(GraphicsConfiguration gc, int canvasWidth, int canvasHeight){
+		double f = this.factor;
+		int w = Math.max(1, (int)Math.round(canvasWidth*f)), h = Math.max(1, (int)Math.round(canvasHeight*f));
+
+		if(this.target==null || this.target.validate(gc)==VolatileImage.IMAGE_INCOMPATIBLE
+				|| this.target.getWidth()!=w || this.target.getHeight()!=h){
+			if(this.target!=null){
+				this.target.flush();
+			}
+			this.target = gc.createCompatibleVolatileImage(w, h);
+			this.target.validate(gc);
+		}
+		return this.target;
+	}
+
+	/**
+	 * Returns the internal target holding the last frame.
+	 *
+	 * @return The internal target or NULL, if nothing has been rendered yet
+	 */
+	VolatileImage getTarget(){
+		return this.target;
+	}
+
+	/**
+	 * Upscales the internal target onto the specified Graphics, covering the whole canvas.
+	 *
+	 * @param g The Graphics of the canvas
+	 * @param canvasWidth The width of the canvas
+	 * @param canvasHeight The height of the canvas
+	 */
+	void present(Graphics2D g, int canvasWidth, int canvasHeight){
+		if(this.target.getWidth()!=canvasWidth || this.target.getHeight()!=canvasHeight){
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		}
+		g.drawImage(this.target, 0, 0, canvasWidth, canvasHeight, null);
+	}
+}
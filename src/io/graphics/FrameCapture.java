@@ -0,0 +1,372 @@
+package io.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+/**
+ * A FrameCapture records the frames presented by the GameFrame, e.g. to debug a match afterwards.<br>
+ * <br>
+ * The render Thread only copies the pixels of a captured frame into a pooled raster and hands it over to
+ * worker Threads, which encode it (see CaptureFormat) and write it to the capture directory.
+ * Everything the capture allocates is limited by a hard memory cap: the image the frames are composed in,
+ * and every raster, which reserves twice its size (for the pixels and their encoding). Rasters are allocated
+ * as long as they fit into the cap. If no raster is free and no further raster fits, because the workers
+ * cannot keep up, the captured frame is dropped. The game never waits for the capture.<br>
+ * <br>
+ * If the size of the frames changes, the free rasters of the old size are released. Rasters still held by the
+ * workers keep their reservation until they are returned, so the old and the new size never exceed the cap together.
+ *
+ * @author Maxmanski
+ */
+public class FrameCapture {
+
+	private static final int MAX_RASTERS = 256;
+	private static final DirectColorModel RGB = new DirectColorModel(24, 0xFF0000, 0xFF00, 0xFF);
+
+	private final File directory;
+	private final CaptureFormat format;
+	private final long memoryCap;
+	private final ExecutorService workers;
+	private final AtomicLong captured, dropped, written, failed;
+	private final DataOutputStream container;
+	private final ArrayDeque<int[]> pool;
+	private int poolWidth, poolHeight, rasters;
+	private long reserved;
+	private BufferedImage composed;
+	private int interval, countdown;
+	private long frameNumber;
+	private volatile boolean closed;
+
+	/**
+	 * Creates a new FrameCapture writing into the specified directory.
+	 *
+	 * @param directory The directory the frames are written to. It is created, if it does not exist.
+	 * @param format The format of the written frames. Cannot be a NULL reference.
+	 * @param workerCount The amount of worker Threads encoding frames. Must be greater than 0.
+	 * @param memoryCap The maximum amount of bytes used by the composition image and the rasters waiting to be encoded.
+	 * 				If it does not allow a single frame, every frame is dropped.
+	 * @throws IOException If the directory or the container file cannot be created
+	 */
+	public FrameCapture(File directory, CaptureFormat format, int workerCount, long memoryCap) throws IOException{
+		if(directory==null || format==null){
+			throw new IllegalArgumentException("The directory and the format cannot be null!");
+		}
+		if(workerCount<=0 || memoryCap<=0){
+			throw new IllegalArgumentException("The amount of workers and the memory cap must not be <= 0!");
+		}
+		if(!directory.isDirectory() && !directory.mkdirs()){
+			throw new IOException("Cannot create the capture directory " + directory);
+		}
+
+		this.directory = directory;
+		this.format = format;
+		this.memoryCap = memoryCap;
+		this.captured = new AtomicLong();
+		this.dropped = new AtomicLong();
+		this.written = new AtomicLong();
+		this.failed = new AtomicLong();
+		this.pool = new ArrayDeque<>();
+		this.rasters = 0;
+		this.reserved = 0;
+		this.interval = 1;
+		this.countdown = 0;
+		this.frameNumber = 0;
+		this.closed = false;
+
+		if(format==CaptureFormat.RLE){
+			this.container = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(directory, "capture.rle"))));
+		}else{
+			this.container = null;
+		}
+
+		// the pool of rasters bounds the amount of queued frames, so the queue itself may be unbounded
+		this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory(){
+			@Override
+			public Thread newThread(Runnable r){
+				Thread t = new Thread(r, "FrameCapture-Worker");
+				t.setDaemon(true);
+				t.setPriority(Thread.MIN_PRIORITY);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Only captures every n-th presented frame.
+	 *
+	 * @param interval The interval between two captured frames. 1 captures every frame. Must be greater than 0.
+	 */
+	public synchronized void setInterval(int interval){
+		if(interval<=0){
+			throw new IllegalArgumentException("The interval must not be <= 0!");
+		}
+		this.interval = interval;
+		this.countdown = 0;
+	}
+
+	/**
+	 * Checks if the next presented frame should be captured and counts it.<br>
+	 * Called by the render Thread once per frame.
+	 *
+	 * @return TRUE, if the frame should be captured
+	 */
+	synchronized boolean isDue(){
+		if(this.closed){
+			return false;
+		}
+		this.frameNumber++;
+		if(this.countdown>0){
+			this.countdown--;
+			return false;
+		}
+		this.countdown = this.interval-1;
+		return true;
+	}
+
+	/**
+	 * Returns the image the render Thread composes a captured frame in, before showing it.<br>
+	 * The image is charged to the memory cap. If it does not fit, the frame is dropped.
+	 *
+	 * @param width The width of the frame
+	 * @param height The height of the frame
+	 * @return The reused composition image or NULL, if the frame has to be dropped
+	 */
+	synchronized BufferedImage getComposition(int width, int height){
+		width = Math.max(1, width);
+		height = Math.max(1, height);
+		if(this.composed==null || this.composed.getWidth()!=width || this.composed.getHeight()!=height){
+			if(this.composed!=null){
+				this.reserved -= 4L*this.composed.getWidth()*this.composed.getHeight();
+				this.composed = null;
+			}
+			// free rasters of another size are released first, the new frames cannot use them anyway
+			this.resizePool(width, height);
+			if(this.reserved+4L*width*height>this.memoryCap){
+				this.dropped.incrementAndGet();
+				return null;
+			}
+			this.reserved += 4L*width*height;
+			this.composed = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		}
+		return this.composed;
+	}
+
+	/**
+	 * Copies the specified image (e.g. a back layer of the GameFrame) into the composition image and submits it.
+	 *
+	 * @param image The presented frame
+	 * @param width The width of the frame
+	 * @param height The height of the frame
+	 */
+	void capture(Image image, int width, int height){
+		BufferedImage c = this.getComposition(width, height);
+		if(c==null){
+			return;
+		}
+		Graphics2D g = c.createGraphics();
+		g.drawImage(image, 0, 0, c.getWidth(), c.getHeight(), null);
+		g.dispose();
+		this.submit(c);
+	}
+
+	/**
+	 * Copies the pixels of the composition image into a free raster of the pool and hands it over to the workers.<br>
+	 * If no raster is free and no further raster fits into the memory cap, the frame is dropped.
+	 *
+	 * @param image The composition image returned by getComposition
+	 */
+	synchronized void submit(BufferedImage image){
+		final int w = image.getWidth(), h = image.getHeight();
+		final long number = this.frameNumber;
+
+		if(w!=this.poolWidth || h!=this.poolHeight){
+			this.resizePool(w, h);
+		}
+
+		int[] free = this.pool.poll();
+		if(free==null && this.rasters<MAX_RASTERS && this.reserved+FrameCapture.costOf(w*h)<=this.memoryCap){
+			free = new int[w*h];
+			this.reserved += FrameCapture.costOf(free.length);
+			this.rasters++;
+		}
+		if(free==null){
+			this.dropped.incrementAndGet();
+			return;
+		}
+
+		final int[] raster = free;
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		System.arraycopy(pixels, 0, raster, 0, raster.length);
+		this.captured.incrementAndGet();
+
+		Runnable task = new Runnable(){
+			@Override
+			public void run(){
+				try {
+					FrameCapture.this.encode(raster, w, h, number);
+					FrameCapture.this.written.incrementAndGet();
+				} catch (IOException e) {
+					FrameCapture.this.failed.incrementAndGet();
+				} finally {
+					FrameCapture.this.release(raster);
+				}
+			}
+		};
+
+		try {
+			this.workers.execute(task);
+		} catch (RejectedExecutionException e) {
+			// closed in the meantime
+			this.release(raster);
+			this.captured.decrementAndGet();
+			this.dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns the amount of bytes currently reserved by the composition image and the rasters, free or in use.
+	 *
+	 * @return The reserved memory in bytes, never more than the memory cap
+	 */
+	public synchronized long getReservedMemory(){
+		return this.reserved;
+	}
+
+	/**
+	 * Switches the pool to the specified frame size and releases the free rasters which do not fit it.
+	 */
+	private void resizePool(int width, int height){
+		this.poolWidth = width;
+		this.poolHeight = height;
+		for(int i=this.pool.size(); i>0; i--){
+			this.release(this.pool.poll());
+		}
+	}
+
+	/**
+	 * Returns a raster to the pool, if it fits the current frame size, or releases its reservation.
+	 */
+	private synchronized void release(int[] raster){
+		if(!this.closed && raster.length==this.poolWidth*this.poolHeight){
+			this.pool.offer(raster);
+			return;
+		}
+		this.reserved -= FrameCapture.costOf(raster.length);
+		this.rasters--;
+	}
+
+	/**
+	 * The amount of bytes reserved by a raster of the specified amount of pixels: the pixels and their encoding.
+	 */
+	private static long costOf(int pixels){
+		return 2L*4*pixels;
+	}
+
+	private void encode(int[] raster, int w, int h, long number) throws IOException{
+		if(this.format==CaptureFormat.PNG){
+			// the image is a view of the raster, so encoding it does not need another copy of the pixels
+			WritableRaster view = Raster.createPackedRaster(new DataBufferInt(raster, w*h), w, h, w, RGB.getMasks(), null);
+			BufferedImage img = new BufferedImage(RGB, view, false, null);
+			ImageIO.write(img, "png", new File(this.directory, String.format("frame_%08d.png", number)));
+			return;
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(w*h);
+		int run, rgb;
+		for(int i=0; i<raster.length; i+=run){
+			rgb = raster[i] & 0xFFFFFF;
+			run = 1;
+			while(run<255 && i+run<raster.length && (raster[i+run] & 0xFFFFFF)==rgb){
+				run++;
+			}
+			out.write(run);
+			out.write(rgb>>>16);
+			out.write(rgb>>>8);
+			out.write(rgb);
+		}
+
+		synchronized(this.container){
+			this.container.writeInt((int) number);
+			this.container.writeInt(w);
+			this.container.writeInt(h);
+			this.container.writeInt(out.size());
+			out.writeTo(this.container);
+		}
+	}
+
+	/**
+	 * Returns the amount of frames which have been handed over to the workers.
+	 *
+	 * @return The amount of captured frames
+	 */
+	public long getCapturedFrames(){
+		return this.captured.get();
+	}
+
+	/**
+	 * Returns the amount of frames which have been dropped because no raster was free.
+	 *
+	 * @return The amount of dropped frames
+	 */
+	public long getDroppedFrames(){
+		return this.dropped.get();
+	}
+
+	/**
+	 * Returns the amount of frames which have been encoded and written.
+	 *
+	 * @return The amount of written frames
+	 */
+	public long getWrittenFrames(){
+		return this.written.get();
+	}
+
+	/**
+	 * Returns the amount of frames which could not be written.
+	 *
+	 * @return The amount of failed frames
+	 */
+	public long getFailedFrames(){
+		return this.failed.get();
+	}
+
+	/**
+	 * Stops capturing, waits until every captured frame has been written and closes the container file.
+	 *
+	 * @throws IOException If the container file cannot be closed
+	 * @throws InterruptedException If the waiting Thread is interrupted
+	 */
+	public void close() throws IOException, InterruptedException{
+		this.closed = true;
+		this.workers.shutdown();
+		this.workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+		if(this.container!=null){
+			synchronized(this.container){
+				this.container.close();
+			}
+		}
+	}
+}
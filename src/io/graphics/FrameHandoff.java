@@ -0,0 +1,177 @@
+package io.graphics;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lock-free triple buffer which hands over lists of Drawables from a single producing Thread
+ * (usually the game Thread) to a single consuming Thread (usually the render Thread).<br>
+ * <br>
+ * The producer fills its own back slot and publishes it by exchanging it with the middle slot,
+ * the consumer takes the middle slot by exchanging it with its own front slot. Neither side ever
+ * waits for the other one and the consumer never sees a list which is still being filled.<br>
+ * The Drawables are not shared between both Threads: the published lists contain their snapshots (see Drawable.snapshot).
+ * If a published list knows the layers of its elements (like the view of a RenderQueue), they are copied as well.<br>
+ * <br>
+ * Every published frame carries the regions which have changed since the frame published before it (see IncrementalRenderer),
+ * drained by the producer together with the snapshots. If a frame is replaced before the consumer has taken it,
+ * its regions are merged into the replacing frame, so no change is lost. If the consumer takes the replaced frame while the
+ * replacing one is being published, its regions are repainted twice, which is harmless.
+ *
+ * @author Maxmanski
+ */
+public class FrameHandoff {
+
+	private static final int INDEX_MASK = 3;
+	private static final int FRESH = 4;
+
+	private final Slot[] slots;
+	private final AtomicInteger middle;
+	private final DirtyRegions untaken;
+	private int back, front;
+
+	/**
+	 * Creates a new, empty FrameHandoff.
+	 */
+	public FrameHandoff(){
+		this.slots = new Slot[3];
+		for(int i=0; i<3; i++){
+			this.slots[i] = new Slot();
+		}
+
+		// the changes of the last published frame, including those of the frames it replaced
+		this.untaken = new DirtyRegions();
+		this.back = 0;
+		this.middle = new AtomicInteger(1);
+		this.front = 2;
+	}
+
+	/**
+	 * Copies the snapshots of the Drawables of the specified list into the back slot and publishes it as the newest frame.<br>
+	 * A frame which has been published before but has not been taken by the consumer yet will be replaced.<br>
+	 * This method must only be called by the producing Thread.
+	 *
+	 * @param drawList The Drawables of the new frame in drawing order. Cannot be a NULL reference.
+	 */
+	public void publish(List<Drawable> drawList){
+		this.publish(drawList, null);
+	}
+
+	/**
+	 * Publishes the specified list like publish(List) and moves the specified dirty regions into the frame.<br>
+	 * The regions have to be the changes made since the previous frame was published, so they have to be marked
+	 * by the producing Thread (or be drained at the same time as the snapshots are taken).
+	 *
+	 * @param drawList The Drawables of the new frame in drawing order. Cannot be a NULL reference.
+	 * @param changed The regions which have changed since the last published frame. They are cleared.
+	 * 				NULL marks the whole frame as changed.
+	 */
+	public void publish(List<Drawable> drawList, DirtyRegions changed){
+		Slot slot = this.slots[this.back];
+		// a frame which has not been taken yet is replaced by this one, so its changes have to be repainted with this one
+		slot.fill(drawList, changed, this.hasFreshFrame() ? this.untaken : null);
+		this.untaken.clear();
+		slot.changed.copyInto(this.untaken);
+
+		this.back = this.middle.getAndSet(this.back | FRESH) & INDEX_MASK;
+	}
+
+	/**
+	 * Checks if a frame has been published which has not been taken by the consumer yet.
+	 *
+	 * @return TRUE, if a new frame is available. FALSE otherwise.
+	 */
+	public boolean hasFreshFrame(){
+		return (this.middle.get() & FRESH) != 0;
+	}
+
+	/**
+	 * Takes the newest published frame, if there is one.<br>
+	 * The returned list is read-only and stays valid until the next call of this method.<br>
+	 * This method must only be called by the consuming Thread.
+	 *
+	 * @return The newest published frame or NULL, if no frame has been published since the last call.
+	 */
+	public List<Drawable> take(){
+		if(!this.hasFreshFrame()){
+			return null;
+		}
+
+		this.front = this.middle.getAndSet(this.front) & INDEX_MASK;
+		return this.slots[this.front];
+	}
+
+	/**
+	 * Returns the regions which have changed between the frame taken last and the frame taken before it.<br>
+	 * The regions stay valid until the next call of take and may be drained by the consumer.<br>
+	 * This method must only be called by the consuming Thread.
+	 *
+	 * @return The changed regions of the frame returned by the last call of take
+	 */
+	DirtyRegions getTakenChanges(){
+		return this.slots[this.front].changed;
+	}
+
+	/**
+	 * A read-only copy of a published list, consisting of the snapshots of its Drawables and the regions changed since the previous frame.
+	 */
+	private static class Slot extends AbstractList<Drawable> implements LayeredList {
+
+		private final ArrayList<Drawable> items = new ArrayList<>();
+		private int[] layers = new int[16];
+		private final DirtyRegions changed = new DirtyRegions();
+		private boolean layered;
+
+		private void fill(List<Drawable> drawList, DirtyRegions changes, DirtyRegions replaced){
+			int n = drawList.size();
+
+			this.changed.clear();
+			if(changes!=null){
+				changes.drainInto(this.changed);
+			}else{
+				this.changed.markAll();
+			}
+			if(replaced!=null){
+				replaced.copyInto(this.changed);
+			}
+
+			this.items.clear();
+			for(int i=0; i<n; i++){
+				this.items.add(drawList.get(i).snapshot());
+			}
+
+			this.layered = drawList instanceof LayeredList && ((LayeredList) drawList).hasLayers();
+			if(this.layered){
+				if(this.layers.length<n){
+					this.layers = Arrays.copyOf(this.layers, Math.max(n, 2*this.layers.length));
+				}
+				for(int i=0; i<n; i++){
+					this.layers[i] = ((LayeredList) drawList).getLayer(i);
+				}
+			}
+		}
+
+		@Override
+		public Drawable get(int index){
+			return this.items.get(index);
+		}
+
+		@Override
+		public int size(){
+			return this.items.size();
+		}
+
+		@Override
+		public boolean hasLayers(){
+			return this.layered;
+		}
+
+		@Override
+		public int getLayer(int index){
+			return this.layered ? this.layers[index] : 0;
+		}
+	}
+}
@@ -0,0 +1,319 @@
+package io.graphics;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.WeakHashMap;
+
+/**
+ * A FrameSet holds the animation steps (frames) of an Animation.<br>
+ * FrameSets are immutable, so any amount of Animations can share the same FrameSet and only keep their
+ * own playback state. Copying an Animation therefore never copies its frames.<br>
+ * <br>
+ * Every frame of a FrameSet is drawn in an area of the same size. Frames cut out of a sprite sheet are stored as standalone images
+ * compatible with the screen (see CompatibleImages), so they can be drawn with accelerated blits.
+ * Frames taken from a TextureAtlas stay regions of their page and are drawn from the page's surface.<br>
+ * Frames of a packed sheet (see SpriteSheetDescriptor) are stored trimmed, without their transparent borders,
+ * and are drawn at their offset within the frame area. Their pivots are aligned, so the pivot of every frame
+ * is drawn at the same point (see getPivotX and getPivotY).<br>
+ * The contents of the frames are fingerprinted once on creation (see ImageFingerprint), so FrameSets
+ * with the same contents are equal in constant time, even if they have been loaded separately.
+ *
+ * @author Maxmanski
+ */
+public final class FrameSet {
+
+	private static final WeakHashMap<BufferedImage, Integer> sheetIds = new WeakHashMap<>();
+	private static int nextSheetId = 1;
+
+	private final BufferedImage[] frames;
+	private final AtlasRegion[] regions;
+	private final int[] offsetsX, offsetsY;
+	private final int width, height;
+	private final int pivotX, pivotY;
+	private final int sheetId;
+	private final long fingerprint;
+
+	/**
+	 * Creates a new FrameSet by splitting the specified sprite sheet into rows x columns frames of equal size.
+	 * The frames are ordered row by row.
+	 *
+	 * @param sheet The sprite sheet. Cannot be a NULL reference.
+	 * @param rows The amount of rows the sheet is divided into. Must be greater than 0.
+	 * @param columns The amount of columns the sheet is divided into. Must be greater than 0.
+	 */
+	public FrameSet(BufferedImage sheet, int rows, int columns){
+		if(rows<=0 || columns<=0){
+			throw new IllegalArgumentException("Columns and Rows must not be <= 0!");
+		}
+		if(sheet==null){
+			throw new IllegalArgumentException("The specified source image cannot be null!");
+		}
+
+		this.height=sheet.getHeight()/rows;
+		this.width=sheet.getWidth()/columns;
+
+		if(this.height*rows!=sheet.getHeight() || this.width*columns!=sheet.getWidth()){
+			throw new IllegalArgumentException("Given spritesheet cannot be split into the given amount of rows and columns");
+		}
+
+		this.frames=new BufferedImage[rows*columns];
+		long[] fps = new long[this.frames.length];
+		int transparency = CompatibleImages.transparencyOf(sheet, 0, 0, sheet.getWidth(), sheet.getHeight());
+		for(int i=0; i<rows; i++){
+			for(int j=0; j<columns; j++){
+				this.frames[i*columns+j] = CompatibleImages.copy(sheet, j*this.width, i*this.height, this.width, this.height, transparency);
+				fps[i*columns+j] = ImageFingerprint.of(sheet, j*this.width, i*this.height, this.width, this.height);
+			}
+		}
+		this.regions=null;
+		this.offsetsX=null;
+		this.offsetsY=null;
+		this.pivotX=this.width/2;
+		this.pivotY=this.height/2;
+		this.fingerprint=ImageFingerprint.combine(fps);
+		// the frames are copies, so they do not share a source image with other FrameSets of the sheet
+		this.sheetId=FrameSet.newSheetId();
+	}
+
+	/**
+	 * Creates a new FrameSet by cutting the specified areas out of a packed sheet, whose frames are stored without their transparent borders.<br>
+	 * Every area is kept trimmed and drawn at its offset within the untrimmed frame of the specified size. The frames are
+	 * aligned by their pivots: the area of this FrameSet covers the untrimmed frames of all steps, placed so that their pivots coincide.
+	 * If every frame has the same pivot, the area of this FrameSet is the untrimmed frame.
+	 *
+	 * @param sheet The packed sheet. Cannot be a NULL reference.
+	 * @param areas The areas of the frames in the sheet. Cannot be empty and every area must lie within the sheet.
+	 * @param offsets The position of every area within its untrimmed frame. Must be as many as areas.
+	 * @param pivots The pivot of every frame within its untrimmed frame. Must be as many as areas.
+	 * @param width The width of the untrimmed frames. Must be greater than 0.
+	 * @param height The height of the untrimmed frames. Must be greater than 0.
+	 */
+	public FrameSet(BufferedImage sheet, Rectangle[] areas, Point[] offsets, Point[] pivots, int width, int height){
+		if(sheet==null || areas==null || offsets==null || pivots==null || areas.length==0 || areas.length!=offsets.length || areas.length!=pivots.length){
+			throw new IllegalArgumentException("The sheet cannot be null and there must be as many offsets and pivots as areas (at least one)!");
+		}
+		if(width<=0 || height<=0){
+			throw new IllegalArgumentException("The size of the frames must not be <= 0!");
+		}
+
+		// the untrimmed frame of every step is placed so that its pivot lies at (0,0)
+		int minX=Integer.MAX_VALUE, minY=Integer.MAX_VALUE, maxX=Integer.MIN_VALUE, maxY=Integer.MIN_VALUE;
+		for(Point p: pivots){
+			minX = Math.min(minX, -p.x);
+			minY = Math.min(minY, -p.y);
+			maxX = Math.max(maxX, width-p.x);
+			maxY = Math.max(maxY, height-p.y);
+		}
+
+		Rectangle bounds = new Rectangle(0, 0, sheet.getWidth(), sheet.getHeight());
+		this.width=maxX-minX;
+		this.height=maxY-minY;
+		this.pivotX=-minX;
+		this.pivotY=-minY;
+		this.frames=new BufferedImage[areas.length];
+		this.offsetsX=new int[areas.length];
+		this.offsetsY=new int[areas.length];
+		long[] fps = new long[3*areas.length];
+		for(int i=0; i<areas.length; i++){
+			Rectangle a = areas[i];
+			if(!bounds.contains(a)){
+				throw new IllegalArgumentException("The area " + a + " does not lie within the sheet!");
+			}
+
+			this.frames[i] = CompatibleImages.copy(sheet, a.x, a.y, a.width, a.height,
+					CompatibleImages.transparencyOf(sheet, a.x, a.y, a.width, a.height));
+			this.offsetsX[i] = this.pivotX-pivots[i].x+offsets[i].x;
+			this.offsetsY[i] = this.pivotY-pivots[i].y+offsets[i].y;
+			fps[3*i] = ImageFingerprint.of(sheet, a.x, a.y, a.width, a.height);
+			fps[3*i+1] = this.offsetsX[i];
+			fps[3*i+2] = this.offsetsY[i];
+		}
+		this.regions=null;
+		this.fingerprint=ImageFingerprint.combine(fps);
+		// the frames are copies, so they do not share a source image with other FrameSets of the sheet
+		this.sheetId=FrameSet.newSheetId();
+	}
+
+	/**
+	 * Creates a new FrameSet from the specified regions of a TextureAtlas.<br>
+	 * The frames are not copied: they stay regions of their page, and getFrame returns images sharing the pixels of the page.
+	 *
+	 * @param regions The regions used as frames. Cannot be NULL or empty and every region must have the same size.
+	 */
+	public FrameSet(AtlasRegion[] regions){
+		if(regions==null || regions.length==0){
+			throw new IllegalArgumentException("The specified frames cannot be null or empty!");
+		}
+
+		this.width=regions[0].getWidth();
+		this.height=regions[0].getHeight();
+		this.regions=regions.clone();
+		this.frames=new BufferedImage[regions.length];
+		long[] fps = new long[regions.length];
+		for(int i=0; i<regions.length; i++){
+			if(regions[i].getWidth()!=this.width || regions[i].getHeight()!=this.height){
+				throw new IllegalArgumentException("Every frame of an Animation must have the same size!");
+			}
+			AtlasRegion r = regions[i];
+			this.frames[i]=r.toImage();
+			fps[i]=ImageFingerprint.of(r.getPage(), r.getX(), r.getY(), this.width, this.height);
+		}
+		this.offsetsX=null;
+		this.offsetsY=null;
+		this.pivotX=this.width/2;
+		this.pivotY=this.height/2;
+		this.fingerprint=ImageFingerprint.combine(fps);
+		this.sheetId=FrameSet.sheetIdOf(regions[0].getPage());
+	}
+
+	/**
+	 * Returns the amount of frames.
+	 *
+	 * @return The amount of frames
+	 */
+	public int size(){
+		return this.frames.length;
+	}
+
+	/**
+	 * Returns the frame with the specified index.<br>
+	 * Trimmed frames are smaller than the area of this FrameSet and have to be drawn at their offset.
+	 *
+	 * @param index The index of the frame
+	 * @return The frame
+	 */
+	public BufferedImage getFrame(int index){
+		return this.frames[index];
+	}
+
+	/**
+	 * Returns the X coordinate at which the frame with the specified index is drawn, relative to the area of this FrameSet.
+	 *
+	 * @param index The index of the frame
+	 * @return The X offset of the frame, 0 if the frames are not trimmed
+	 */
+	public int getOffsetX(int index){
+		return (this.offsetsX!=null) ? this.offsetsX[index] : 0;
+	}
+
+	/**
+	 * Returns the Y coordinate at which the frame with the specified index is drawn, relative to the area of this FrameSet.
+	 *
+	 * @param index The index of the frame
+	 * @return The Y offset of the frame, 0 if the frames are not trimmed
+	 */
+	public int getOffsetY(int index){
+		return (this.offsetsY!=null) ? this.offsetsY[index] : 0;
+	}
+
+	/**
+	 * Returns the X coordinate of the point the pivots of the frames are drawn at, relative to the area of this FrameSet.<br>
+	 * Placing a Sprite at (x-getPivotX(), y-getPivotY()) draws the pivots of all frames at (x,y).
+	 *
+	 * @return The X coordinate of the pivot, the center of the frames if they have no pivots
+	 */
+	public int getPivotX(){
+		return this.pivotX;
+	}
+
+	/**
+	 * Returns the Y coordinate of the point the pivots of the frames are drawn at, relative to the area of this FrameSet.
+	 *
+	 * @return The Y coordinate of the pivot, the center of the frames if they have no pivots
+	 */
+	public int getPivotY(){
+		return this.pivotY;
+	}
+
+	/**
+	 * Returns the atlas region of the frame with the specified index.
+	 *
+	 * @param index The index of the frame
+	 * @return The region of the frame or NULL, if this FrameSet has not been created from a TextureAtlas
+	 */
+	public AtlasRegion getRegion(int index){
+		return (this.regions!=null) ? this.regions[index] : null;
+	}
+
+	/**
+	 * Returns the width of a single frame, i.e. of the area the frames are drawn in.
+	 *
+	 * @return The width of the frames in pixels
+	 */
+	public int getWidth(){
+		return this.width;
+	}
+
+	/**
+	 * Returns the height of a single frame, i.e. of the area the frames are drawn in.
+	 *
+	 * @return The height of the frames in pixels
+	 */
+	public int getHeight(){
+		return this.height;
+	}
+
+	/**
+	 * Returns the ID of the source image the frames are drawn from.<br>
+	 * FrameSets created from regions of the same atlas page (the page of their first frame) share the same ID, so drawing them
+	 * one after another avoids switching between source images. FrameSets cut out of a sprite sheet own copies
+	 * of their frames, so each of them has an ID of its own.
+	 *
+	 * @return The ID of the source sheet (at least 1)
+	 */
+	public int getSheetId(){
+		return this.sheetId;
+	}
+
+	/**
+	 * Returns the fingerprint of the contents of the frames, in order.
+	 *
+	 * @return The fingerprint of this FrameSet
+	 */
+	public long getFingerprint(){
+		return this.fingerprint;
+	}
+
+	/**
+	 * Two FrameSets are equal, if their frames have the same size and contents in the same order.<br>
+	 * Only the fingerprints are compared, so this takes constant time.
+	 */
+	@Override
+	public boolean equals(Object other){
+		if(this==other){
+			return true;
+		}
+		if(other==null || other.getClass()!=this.getClass()){
+			return false;
+		}
+
+		FrameSet o = (FrameSet) other;
+		return this.fingerprint==o.fingerprint && this.frames.length==o.frames.length
+				&& this.width==o.width && this.height==o.height;
+	}
+
+	@Override
+	public int hashCode(){
+		return (int)(this.fingerprint ^ (this.fingerprint>>>32));
+	}
+
+	/**
+	 * Returns a new ID, which is not shared with any source image.
+	 */
+	private static synchronized int newSheetId(){
+		return nextSheetId++;
+	}
+
+	/**
+	 * Returns the ID of the specified source image, assigning a new one if it has none yet.
+	 */
+	private static synchronized int sheetIdOf(BufferedImage sheet){
+		Integer id = sheetIds.get(sheet);
+		if(id==null){
+			id = nextSheetId++;
+			sheetIds.put(sheet, id);
+		}
+		return id;
+	}
+}
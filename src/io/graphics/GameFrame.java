@@ -4,17 +4,31 @@ import game.options.Options;
 import game.runtime.Game;
 import io.InputListener;
 
+import java.awt.AWTException;
+import java.awt.BufferCapabilities;
 import java.awt.Canvas;
 import java.awt.Dimension;
 import java.awt.DisplayMode;
 import java.awt.Graphics2D;
 import java.awt.GraphicsDevice;
 import java.awt.GraphicsEnvironment;
+import java.awt.ImageCapabilities;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
 
 /**
  * GameFrame represents the main window of the game.<br>
@@ -26,21 +40,33 @@ import javax.swing.JFrame;
  * 
  * @author Maxmanski
  */
-public class GameFrame{
+public class GameFrame implements RenderTarget{
 	private final GraphicsDevice dev;
 	private final DisplayMode dm;
 	private final int width, height;
 	private static GameFrame instance;
 	private static boolean fullscreen;
+	private static volatile BufferingMode bufferingMode = BufferingMode.DOUBLE;
+	private volatile BufferingMode activeBufferingMode;
 	private final JFrame frame;
 	private final Canvas canvas;
-	private BufferStrategy bufferStrategy;
+	private volatile BufferStrategy bufferStrategy;
 	private static boolean visible = false;
-	private boolean alive;
+	private static volatile CanvasTransform transform;
+	private volatile boolean alive;
 	private InputListener in;
 	private Game game;
-	private double scaleX, scaleY;
-	private Dimension resolution;
+	private volatile double scaleX, scaleY;
+	private volatile Dimension resolution;
+	private final FrameHandoff handoff;
+	private final RenderThread renderer;
+	private volatile IncrementalRenderer incremental;
+	private volatile RenderMetrics metrics;
+	private volatile StaticLayer staticLayer;
+	private volatile DynamicResolution dynamicResolution;
+	private volatile FrameCapture capture;
+	private final ArrayList<Drawable> visibleList;
+	private final ReentrantLock modeLock;
 	
 	/**
 	 * Private constructor of the class GameFrame.
@@ -65,6 +91,10 @@ public class GameFrame{
 			frame.setResizable(false);
 
 			this.in = null;
+			this.handoff = new FrameHandoff();
+			this.visibleList = new ArrayList<>();
+			this.modeLock = new ReentrantLock();
+			this.renderer = new RenderThread(this, this.handoff);
 			this.canvas = new Canvas();
 			this.canvas.setFocusable(false);
 
@@ -80,6 +110,31 @@ public class GameFrame{
 			this.canvas.setPreferredSize(new Dimension(640,480));
 
 			frame.add(canvas);
+			
+			// the transform for input coordinates is only republished when the canvas has moved or changed its size
+			ComponentAdapter tracker = new ComponentAdapter(){
+				@Override
+				public void componentResized(ComponentEvent e){
+					GameFrame.this.updateScale();
+				}
+				
+				@Override
+				public void componentMoved(ComponentEvent e){
+					GameFrame.this.publishTransform();
+				}
+				
+				@Override
+				public void componentShown(ComponentEvent e){
+					GameFrame.this.publishTransform();
+				}
+				
+				@Override
+				public void componentHidden(ComponentEvent e){
+					GameFrame.this.publishTransform();
+				}
+			};
+			this.canvas.addComponentListener(tracker);
+			frame.addComponentListener(tracker);
 
 			if(fullscreen && dev.isFullScreenSupported()){
 				frame.setUndecorated(true);
@@ -115,14 +170,17 @@ public class GameFrame{
 		this.frame.setVisible(visible);
 		this.getBufferStrategy();
 		GameFrame.visible=visible;
-		this.scaleX = canvas.getWidth() / this.resolution.getWidth();
-		this.scaleY = canvas.getHeight() / this.resolution.getHeight();
+		this.updateScale();
 	}
 
 	/**
 	 * Sets the fullscreen mode of the game, depending on the passed boolean.<br>
 	 * If the GameFrame is not set to visible, this method will do nothing and return FALSE.
-	 * Else, TRUE is returned.
+	 * Else, TRUE is returned.<br>
+	 * <br>
+	 * The mode is switched in place: only the native window is recreated with the new decoration,
+	 * while the Canvas, the listeners, the Game and all cached images are kept. Frames which are drawn
+	 * during the switch are skipped, so the render Thread pauses and resumes by itself.
 	 * 
 	 * @author Maxmanski
 	 * @param fullscreen A boolean value to decide whether fullscreen mode should be entered or left: <br>
@@ -135,61 +193,83 @@ public class GameFrame{
 			throw new DeadInstanceException("The used GameFrame is dead");
 		}
 		
-		InputListener oldListener=null;
-		Game oldGame=null;
-		Dimension oldDimension=null;
-		boolean oldVis = GameFrame.visible, success = false;
-		
-		if(GameFrame.instance != null){
-
-			oldListener = GameFrame.instance.in;
-			oldGame = GameFrame.instance.game;
-			oldDimension = GameFrame.instance.resolution;
-			
-			if(GameFrame.instance.hasFullscreen()!=fullscreen){
-				GameFrame.instance.dispose();
+		if(this.hasFullscreen()!=fullscreen){
+			this.modeLock.lock();
+			try {
+				this.switchMode(fullscreen);
+			} finally {
+				this.modeLock.unlock();
 			}
-			
 		}
 		
-		// if there is no old instance or it has been disposed of...
-		if(GameFrame.instance == null){
-
-			GameFrame.instance = new GameFrame(fullscreen);
-			GameFrame.instance.setVisible(oldVis);
-			GameFrame.instance.getBufferStrategy();
+		if(GameFrame.visible){
+			this.requestFocus();
+			return true;
 		}
+		return false;
+	}
+	
+	/**
+	 * Switches the fullscreen mode like setFullscreen, but on the AWT event dispatching Thread.<br>
+	 * The calling Thread (e.g. the game loop) can go on drawing frames while the mode is switched,
+	 * they are skipped until the switch is finished.
+	 * 
+	 * @param fullscreen TRUE to enter fullscreen, FALSE to leave it
+	 * @return A Future delivering the result of setFullscreen, once the switch is finished
+	 */
+	public Future<Boolean> setFullscreenAsync(final boolean fullscreen){
+		FutureTask<Boolean> task = new FutureTask<>(new Callable<Boolean>(){
+			@Override
+			public Boolean call() throws DeadInstanceException{
+				return GameFrame.this.setFullscreen(fullscreen);
+			}
+		});
 		
+		SwingUtilities.invokeLater(task);
+		return task;
+	}
+	
+	/**
+	 * Recreates the native window with the decoration of the specified mode and recreates the BufferStrategy.<br>
+	 * Must be called while holding the mode lock.
+	 */
+	private void switchMode(boolean fullscreen){
+		boolean vis = GameFrame.visible;
+		BufferStrategy old = this.bufferStrategy;
 		
-		if(!GameFrame.fullscreen){
-			
-			GameFrame.instance.setVisible(false);
-			GameFrame.visible = false;
-			GameFrame.instance.canvas.setPreferredSize(oldDimension);
-			GameFrame.instance.frame.pack();
-			GameFrame.instance.setVisible(oldVis);
-			GameFrame.visible = oldVis;
+		this.bufferStrategy = null;
+		if(old!=null){
+			old.dispose();
 		}
 		
-		GameFrame.instance.setInputListener(oldListener);
-		GameFrame.instance.setGame(oldGame);
+		if(this.dev.getFullScreenWindow()==this.frame){
+			this.dev.setFullScreenWindow(null);
+		}
+		// releases only the native resources, so the decoration can be changed
+		this.frame.dispose();
 		
-		if(GameFrame.visible){
-			
-			GameFrame.instance.resolution = oldDimension;
-			GameFrame.instance.scaleX = GameFrame.instance.canvas.getWidth() / oldDimension.getWidth();
-			GameFrame.instance.scaleY = GameFrame.instance.canvas.getHeight() / oldDimension.getHeight();
-
-			GameFrame.fullscreen = fullscreen;
-			GameFrame.instance.requestFocus();
-			
-			success=true;
+		if(fullscreen && this.dev.isFullScreenSupported()){
+			this.frame.setUndecorated(true);
+			this.dev.setFullScreenWindow(this.frame);
+		}else{
+			this.frame.setUndecorated(false);
+			this.canvas.setPreferredSize(this.resolution);
+			this.frame.pack();
+			this.frame.setLocation((this.dm.getWidth()-this.frame.getWidth())/2, (this.dm.getHeight()-this.frame.getHeight())/2);
+			this.frame.setVisible(vis);
 		}
+		GameFrame.fullscreen = fullscreen;
 		
-		return success;
+		if(vis){
+			this.createBufferStrategy();
+		}
+		this.updateScale();
+		this.markAllDirty();
 	}
 
 	/**
+	 * Sets the logical resolution. In windowed mode, the window is resized to fit the resolution.<br>
+	 * The window stays visible and frames drawn during the change are skipped.
 	 * 
 	 * @param d
 	 * @throws DeadInstanceException 
@@ -200,27 +280,41 @@ public class GameFrame{
 		}
 		
 		if(d!=null){
-			boolean oldVis = GameFrame.visible;
-			
-			this.setVisible(false);
-			GameFrame.visible = false;
-			
-			if(!GameFrame.fullscreen){
-
-				this.canvas.setPreferredSize(d);
-				this.frame.pack();
+			this.modeLock.lock();
+			try {
+				Dimension oldSize = this.canvas.getSize();
+				this.resolution = d;
+				
+				if(!GameFrame.fullscreen){
+					this.canvas.setPreferredSize(d);
+					this.frame.pack();
+				}
+				
+				if(GameFrame.visible && (this.bufferStrategy==null || !oldSize.equals(this.canvas.getSize()))){
+					this.createBufferStrategy();
+				}
+				this.updateScale();
+				this.markAllDirty();
+			} finally {
+				this.modeLock.unlock();
 			}
-			
-			this.setVisible(oldVis);
-			GameFrame.visible = oldVis;
-
-			this.resolution = d;
-			this.scaleX = this.canvas.getWidth() / this.resolution.getWidth();
-			this.scaleY = this.canvas.getHeight() / this.resolution.getHeight();
-			this.getBufferStrategy();
 		}
 	}
 	
+	/**
+	 * Recalculates the scale factors from the canvas size and the logical resolution and publishes a new CanvasTransform.<br>
+	 * If the GameFrame is visible, the ScaledSpriteCache starts scaling its images to the new factors.
+	 */
+	private void updateScale(){
+		this.scaleX = this.canvas.getWidth() / this.resolution.getWidth();
+		this.scaleY = this.canvas.getHeight() / this.resolution.getHeight();
+		
+		if(GameFrame.visible && this.scaleX>0 && this.scaleY>0){
+			ScaledSpriteCache.getInstance().setScale(this.scaleX, this.scaleY);
+		}
+		this.publishTransform();
+	}
+	
 	/**
 	 * 
 	 * @return
@@ -265,14 +359,23 @@ public class GameFrame{
 			throw new DeadInstanceException("The used GameFrame is dead");
 		}
 		
-		instance.frame.setVisible(false);
-		instance.bufferStrategy.dispose();
-		instance.frame.dispose();
-		instance.bufferStrategy=null;
+		instance.renderer.stop();
+		this.modeLock.lock();
+		try {
+			instance.frame.setVisible(false);
+			if(instance.bufferStrategy!=null){
+				instance.bufferStrategy.dispose();
+			}
+			instance.frame.dispose();
+			instance.bufferStrategy=null;
+		} finally {
+			this.modeLock.unlock();
+		}
 		instance.alive = false;
 		GameFrame.instance=null;
 		GameFrame.fullscreen = false;
 		GameFrame.visible = false;
+		GameFrame.transform = null;
 	}
 
 	/**
@@ -315,41 +418,635 @@ public class GameFrame{
 			throw new DeadInstanceException("The used GameFrame is dead");
 		}
 		
-		if(this.bufferStrategy==null && GameFrame.visible){
-			this.canvas.createBufferStrategy(2);
-			this.bufferStrategy = canvas.getBufferStrategy();
-		}else if(!GameFrame.visible){
-			this.bufferStrategy=null;
+		this.modeLock.lock();
+		try {
+			if(this.bufferStrategy==null && GameFrame.visible){
+				this.createBufferStrategy();
+			}else if(!GameFrame.visible){
+				this.bufferStrategy=null;
+			}
+			
+			return this.bufferStrategy;
+		} finally {
+			this.modeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Sets the buffering mode to be used by the GameFrame.<br>
+	 * If the GameFrame is visible, its BufferStrategy will be recreated immediately.
+	 * If the GraphicsDevice does not support the requested mode, the next simpler mode is used instead
+	 * (page flipping falls back to triple buffering, triple buffering to double buffering, if the GraphicsDevice
+	 * cannot accelerate both back buffers).
+	 * 
+	 * @param mode The requested BufferingMode. Cannot be a NULL reference.
+	 * @throws DeadInstanceException
+	 */
+	public synchronized void setBufferingMode(BufferingMode mode) throws DeadInstanceException{
+		if(!this.alive){
+			throw new DeadInstanceException("The used GameFrame is dead");
+		}
+		if(mode==null){
+			throw new IllegalArgumentException("The BufferingMode cannot be null!");
 		}
 		
-		return this.bufferStrategy;
+		GameFrame.bufferingMode = mode;
+		if(this.bufferStrategy!=null){
+			this.modeLock.lock();
+			try {
+				this.createBufferStrategy();
+			} finally {
+				this.modeLock.unlock();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the requested buffering mode.
+	 * 
+	 * @return The BufferingMode requested with setBufferingMode
+	 */
+	public BufferingMode getBufferingMode(){
+		return GameFrame.bufferingMode;
 	}
 	
 	/**
+	 * Returns the buffering mode which is actually used by the current BufferStrategy.
+	 * 
+	 * @return The active BufferingMode or NULL, if there is no BufferStrategy yet.
+	 */
+	public BufferingMode getActiveBufferingMode(){
+		return this.activeBufferingMode;
+	}
+	
+	/**
+	 * Describes the rendering path of the current BufferStrategy, i.e. the active buffering mode
+	 * and whether the front and back buffers are accelerated.
+	 * 
+	 * @return A short description of the rendering path or NULL, if there is no BufferStrategy yet.
+	 */
+	public String getBufferingDescription(){
+		BufferStrategy bs = this.bufferStrategy;
+		if(bs==null){
+			return null;
+		}
+		
+		BufferCapabilities caps = bs.getCapabilities();
+		return this.activeBufferingMode + " (page flipping: " + caps.isPageFlipping()
+				+ ", flip contents: " + caps.getFlipContents()
+				+ ", front accelerated: " + caps.getFrontBufferCapabilities().isAccelerated()
+				+ ", back accelerated: " + caps.getBackBufferCapabilities().isAccelerated() + ")";
+	}
+	
+	/**
+	 * Creates the BufferStrategy of the canvas for the requested buffering mode or the best
+	 * mode supported by the GraphicsDevice.
+	 */
+	private void createBufferStrategy(){
+		BufferCapabilities devCaps = this.dev.getDefaultConfiguration().getBufferCapabilities();
+		BufferingMode mode = GameFrame.bufferingMode;
+		
+		if(mode.isPageFlipping() && !devCaps.isPageFlipping()){
+			mode = BufferingMode.TRIPLE;
+		}
+		
+		BufferStrategy old = this.bufferStrategy;
+		this.bufferStrategy = null;
+		if(old!=null){
+			old.dispose();
+		}
+		
+		if(mode.isPageFlipping()){
+			try {
+				this.canvas.createBufferStrategy(mode.getBuffers(), new BufferCapabilities(new ImageCapabilities(true),
+						new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED));
+			} catch (AWTException e) {
+				mode = BufferingMode.TRIPLE;
+			}
+		}
+		if(mode==BufferingMode.TRIPLE){
+			// two back buffers are only worth it if both are accelerated, otherwise a single back buffer is used
+			try {
+				this.canvas.createBufferStrategy(mode.getBuffers(), new BufferCapabilities(new ImageCapabilities(true),
+						new ImageCapabilities(true), null));
+			} catch (AWTException e) {
+				mode = BufferingMode.DOUBLE;
+			}
+		}
+		if(mode==BufferingMode.DOUBLE){
+			// lets AWT pick the best supported strategy (accelerated flipping or blitting) for the amount of buffers
+			this.canvas.createBufferStrategy(mode.getBuffers());
+		}
+		
+		this.activeBufferingMode = mode;
+		this.bufferStrategy = this.canvas.getBufferStrategy();
+	}
+	
+	/**
+	 * Draws the specified Drawables with the current scale factors.<br>
+	 * If the render Thread is running, the list is published to it instead (see publish).
 	 * 
 	 * @param drawList
 	 * @throws DeadInstanceException
 	 */
-	public synchronized void draw(List<Drawable> drawList) throws DeadInstanceException{
+	public void draw(List<Drawable> drawList) throws DeadInstanceException{
 		this.draw(drawList, scaleX, scaleY);
 	}
 	
 	/**
+	 * Draws the specified Drawables with the specified scale factors on the calling Thread.<br>
+	 * This method does not lock the GameFrame, so window and input calls are not stalled by the drawing.
+	 * If the render Thread is running, the list is published to it instead and rendered with the current scale factors.
 	 * 
 	 * @param drawList
 	 * @param scale
 	 * @throws DeadInstanceException
+	 * @throws IllegalStateException If rendering a previous frame on the render Thread has failed. The render Thread
+	 * has stopped then and the exception is the cause.
+	 */
+	public void draw(List<Drawable> drawList, double scaleX, double scaleY) throws DeadInstanceException{
+		if(!this.alive){
+			throw new DeadInstanceException("The used GameFrame is dead");
+		}
+		this.checkRenderer();
+		if(this.renderer.isRunning()){
+			// a render Thread started in the meantime owns the BufferStrategy, concurrent frames are kept apart by the modeLock
+			this.publish(drawList);
+			return;
+		}
+		
+		if(this.bufferStrategy==null){
+			// creates the BufferStrategy, if the GameFrame is visible
+			this.getBufferStrategy();
+		}
+		IncrementalRenderer inc = this.incremental;
+		if(inc!=null){
+			inc.track(drawList);
+		}
+		this.render(drawList, scaleX, scaleY, (inc!=null) ? inc.getDirtyRegions() : null);
+	}
+	
+	/**
+	 * Draws every Drawable of the specified SpatialGrid which is inside the visible area, i.e. the
+	 * rectangle from (0,0) to the logical resolution.<br>
+	 * Drawables outside of the visible area are skipped without being touched. If the render Thread
+	 * is running, the visible Drawables are published to it.<br>
+	 * This method must be called by the Thread which modifies the grid.
+	 * 
+	 * @param index The SpatialGrid containing the Drawables
+	 * @throws DeadInstanceException
 	 */
-	public synchronized void draw(List<Drawable> drawList, double scaleX, double scaleY) throws DeadInstanceException{
-		BufferStrategy bs = this.getBufferStrategy();
-		Graphics2D g = (Graphics2D) bs.getDrawGraphics();
+	public void draw(SpatialGrid index) throws DeadInstanceException{
+		Dimension res = this.resolution;
 		
-		g.clearRect(0, 0, this.getCanvasDimension().width, this.getCanvasDimension().height);
-		for(Drawable d: drawList){
+		synchronized(this.visibleList){
+			this.visibleList.clear();
+			index.query(0, 0, res.width, res.height, this.visibleList);
+			this.draw(this.visibleList);
+		}
+	}
+	
+	/**
+	 * Sorts the specified RenderQueue and draws its Drawables in layer, sprite sheet and z order.<br>
+	 * If the render Thread is running, the sorted Drawables are published to it.
+	 * 
+	 * @param queue The RenderQueue containing the Drawables of the frame
+	 * @throws DeadInstanceException
+	 */
+	public void draw(RenderQueue queue) throws DeadInstanceException{
+		this.draw(queue.asList());
+	}
+	
+	/**
+	 * Publishes the specified Drawables as the next frame of the render Thread and returns immediately.<br>
+	 * The list is copied and every Drawable is replaced by its snapshot, so neither the list nor the Drawables
+	 * have to be left alone while the frame is rendered.<br>
+	 * Only one Thread may publish frames. If the render Thread is not running, the frame is kept
+	 * until it is started.
+	 * 
+	 * @param drawList The Drawables of the next frame in drawing order
+	 * @throws DeadInstanceException
+	 * @throws IllegalStateException If rendering a previous frame on the render Thread has failed. The render Thread
+	 * has stopped then and the exception is the cause.
+	 */
+	public void publish(List<Drawable> drawList) throws DeadInstanceException{
+		if(!this.alive){
+			throw new DeadInstanceException("The used GameFrame is dead");
+		}
+		this.checkRenderer();
+		
+		// the Sprites are tracked and their changes drained here, so the render Thread only gets the changes of the published frame
+		IncrementalRenderer inc = this.incremental;
+		if(inc!=null){
+			inc.track(drawList);
+		}
+		this.handoff.publish(drawList, (inc!=null) ? inc.getDirtyRegions() : null);
+		this.renderer.wakeUp();
+	}
+	
+	private void checkRenderer(){
+		RuntimeException failure = this.renderer.takeFailure();
+		if(failure!=null){
+			throw new IllegalStateException("Rendering on the render Thread has failed", failure);
+		}
+	}
+	
+	/**
+	 * Starts the render Thread, which from now on owns the BufferStrategy and renders every frame
+	 * handed over by publish.
+	 * 
+	 * @throws DeadInstanceException
+	 */
+	public void startRenderThread() throws DeadInstanceException{
+		if(!this.alive){
+			throw new DeadInstanceException("The used GameFrame is dead");
+		}
+		
+		this.renderer.start();
+	}
+	
+	/**
+	 * Stops the render Thread and waits until its current frame is finished.<br>
+	 * Afterwards, the draw methods render on the calling Thread again.
+	 */
+	public void stopRenderThread(){
+		this.renderer.stop();
+	}
+	
+	/**
+	 * Checks if the render Thread is running.
+	 * 
+	 * @return TRUE, if the render Thread is running. FALSE otherwise.
+	 */
+	public boolean isRenderThreadRunning(){
+		return this.renderer.isRunning();
+	}
+	
+	/**
+	 * Enables or disables incremental rendering.<br>
+	 * In incremental mode, the last frame is kept in an accelerated back layer and only the regions which
+	 * have been marked as dirty are repainted. Sprites in the drawn list mark their own changes (moves,
+	 * new animation steps, being added or removed). Changes of other Drawables have to be marked with markDirty.
+	 * 
+	 * @param enabled TRUE to enable incremental rendering, FALSE to repaint every frame completely
+	 */
+	public void setIncrementalRendering(boolean enabled){
+		if(enabled && this.incremental==null){
+			this.incremental = new IncrementalRenderer();
+		}else if(!enabled){
+			this.incremental = null;
+		}
+	}
+	
+	/**
+	 * Checks if incremental rendering is enabled.
+	 * 
+	 * @return TRUE, if incremental rendering is enabled. FALSE otherwise.
+	 */
+	public boolean hasIncrementalRendering(){
+		return this.incremental!=null;
+	}
+	
+	/**
+	 * Marks the specified region (in logical coordinates) to be repainted in the next frame.<br>
+	 * If incremental rendering is disabled, this method does nothing.
+	 * 
+	 * @param region The region to be repainted
+	 */
+	public void markDirty(Rectangle region){
+		IncrementalRenderer inc = this.incremental;
+		if(inc!=null){
+			inc.getDirtyRegions().add(region);
+		}
+	}
+	
+	/**
+	 * Marks the whole canvas to be repainted in the next frame.<br>
+	 * If incremental rendering is disabled, this method does nothing.
+	 */
+	public void markAllDirty(){
+		IncrementalRenderer inc = this.incremental;
+		if(inc!=null){
+			inc.getDirtyRegions().markAll();
+		}
+	}
+	
+	/**
+	 * Renders a frame published to the render Thread with the current scale factors.
+	 * 
+	 * @param drawList
+	 */
+	void renderFrame(List<Drawable> drawList){
+		this.render(drawList, this.scaleX, this.scaleY, this.handoff.getTakenChanges());
+	}
+	
+	/**
+	 * Clears the canvas, draws the visible Drawables and shows the result.<br>
+	 * BoundedDrawables outside of the visible area are skipped.<br>
+	 * If the contents of the buffers are lost or restored while rendering (e.g. after a display mode switch),
+	 * the frame is rendered again.<br>
+	 * The BufferStrategy is only read while holding the mode lock, so it cannot be replaced or disposed while it is used.
+	 * If there is none, the frame is skipped.
+	 * 
+	 * @param drawList
+	 * @param scaleX
+	 * @param scaleY
+	 * @param changed The regions changed since the last frame, used in incremental mode
+	 */
+	private void render(List<Drawable> drawList, double scaleX, double scaleY, DirtyRegions changed){
+		// the display mode is being switched, the frame is skipped
+		if(!this.modeLock.tryLock()){
+			this.frameSkipped();
+			return;
+		}
+		try {
+			BufferStrategy bs = this.bufferStrategy;
+			if(bs!=null){
+				this.renderLocked(bs, drawList, scaleX, scaleY, changed);
+			}else{
+				this.frameSkipped();
+			}
+		} finally {
+			this.modeLock.unlock();
+		}
+	}
+	
+	/**
+	 * The changes of a skipped frame are gone, so an incremental renderer has to repaint everything with the next frame.
+	 */
+	private void frameSkipped(){
+		IncrementalRenderer inc = this.incremental;
+		if(inc!=null){
+			inc.frameSkipped();
+		}
+	}
+	
+	private void renderLocked(BufferStrategy bs, List<Drawable> drawList, double scaleX, double scaleY, DirtyRegions changed){
+		IncrementalRenderer inc = this.incremental;
+		RenderMetrics m = this.metrics;
+		StaticLayer background = this.staticLayer;
+		FrameCapture cap = this.capture;
+		int w = this.canvas.getWidth(), h = this.canvas.getHeight();
+		
+		if(inc!=null){
+			inc.render(this.canvas, bs, drawList, (changed!=null) ? changed : inc.getDirtyRegions(), scaleX, scaleY, this.staticLayer, m);
+			if(cap!=null && cap.isDue()){
+				cap.capture(inc.getLayer(), w, h);
+			}
+			return;
+		}
+		
+		DynamicResolution dyn = this.dynamicResolution;
+		if(dyn!=null){
+			this.renderDynamic(bs, drawList, scaleX, scaleY, dyn, background, m);
+			if(cap!=null && cap.isDue()){
+				cap.capture(dyn.getTarget(), w, h);
+			}
+			return;
+		}
+		
+		Graphics2D g, target;
+		BufferedImage composition = (cap!=null && cap.isDue()) ? cap.getComposition(w, h) : null;
+		// a frame drawn again after its contents were lost is recorded once, with the time of every attempt
+		RenderMetrics paintMetrics = m;
+		long t0, t1, t2, acquire = 0, clear = 0, draw = 0, show = 0;
+		
+		do{
+			do{
+				t0 = System.nanoTime();
+				g = (Graphics2D) bs.getDrawGraphics();
+				t1 = System.nanoTime();
+				// a captured frame is composed in main memory first, so its pixels can be copied
+				target = (composition!=null) ? composition.createGraphics() : g;
+				target.clearRect(0, 0, w, h);
+				t2 = System.nanoTime();
+				if(background!=null){
+					background.draw(target, scaleX, scaleY, null);
+				}
+				GameFrame.paint(target, drawList, scaleX, scaleY, w, h, paintMetrics);
+				paintMetrics = null;
+				if(composition!=null){
+					target.dispose();
+					g.drawImage(composition, 0, 0, null);
+				}
+				g.dispose();
+				acquire += t1-t0;
+				clear += t2-t1;
+				draw += System.nanoTime()-t2;
+			}while(bs.contentsRestored());
+			
+			t0 = System.nanoTime();
+			bs.show();
+			t1 = System.nanoTime();
+			show += t1-t0;
+		}while(bs.contentsLost());
+		
+		if(m!=null){
+			m.record(RenderPhase.ACQUIRE, acquire);
+			m.record(RenderPhase.CLEAR, clear);
+			m.record(RenderPhase.DRAW, draw);
+			m.record(RenderPhase.SHOW, show);
+			m.framePresented(t1);
+		}
+		if(composition!=null){
+			cap.submit(composition);
+		}
+	}
+	
+	/**
+	 * Sets the StaticLayer which is drawn below the Drawables of every frame.<br>
+	 * The Drawables of the StaticLayer are rendered once and only drawn again where the layer has been invalidated,
+	 * so they must not be part of the drawn lists anymore.
+	 * 
+	 * @param layer The StaticLayer of the board or NULL, if there are no static Drawables
+	 */
+	public void setStaticLayer(StaticLayer layer){
+		this.staticLayer = layer;
+		this.markAllDirty();
+	}
+	
+	/**
+	 * Returns the StaticLayer which is drawn below the Drawables of every frame.
+	 * 
+	 * @return The used StaticLayer or NULL, if there is none
+	 */
+	public StaticLayer getStaticLayer(){
+		return this.staticLayer;
+	}
+	
+	/**
+	 * Draws the frame into the internal target of the DynamicResolution, upscales it onto the
+	 * canvas with a single blit and lets the DynamicResolution adapt its factor to the drawing time.
+	 */
+	private void renderDynamic(BufferStrategy bs, List<Drawable> drawList, double scaleX, double scaleY,
+			DynamicResolution dyn, StaticLayer background, RenderMetrics m){
+		Graphics2D g;
+		VolatileImage target;
+		int w = this.canvas.getWidth(), h = this.canvas.getHeight(), tw, th;
+		RenderMetrics paintMetrics = m;
+		long t0, t1, t2, clear = 0, draw = 0, acquire = 0, show = 0;
+		
+		do{
+			target = dyn.getTarget(this.canvas.getGraphicsConfiguration(), w, h);
+			tw = target.getWidth();
+			th = target.getHeight();
+			g = target.createGraphics();
+			t0 = System.nanoTime();
+			g.clearRect(0, 0, tw, th);
+			t1 = System.nanoTime();
+			// everything is drawn with the scale of the canvas, so the ScaledSpriteCache, the StaticLayer and
+			// TileMaps keep their images, and only the blits are reduced to the size of the target
+			g.scale((double) tw / Math.max(1, w), (double) th / Math.max(1, h));
+			if(background!=null){
+				background.draw(g, scaleX, scaleY, null);
+			}
+			GameFrame.paint(g, drawList, scaleX, scaleY, w, h, paintMetrics);
+			paintMetrics = null;
+			g.dispose();
+			t2 = System.nanoTime();
+			clear += t1-t0;
+			draw += t2-t1;
+		}while(target.contentsLost());
+		
+		dyn.record(clear+draw);
+		
+		do{
+			do{
+				t0 = System.nanoTime();
+				g = (Graphics2D) bs.getDrawGraphics();
+				acquire += System.nanoTime()-t0;
+				dyn.present(g, w, h);
+				g.dispose();
+			}while(bs.contentsRestored());
+			
+			t0 = System.nanoTime();
+			bs.show();
+			t1 = System.nanoTime();
+			show += t1-t0;
+		}while(bs.contentsLost());
+		
+		if(m!=null){
+			m.record(RenderPhase.CLEAR, clear);
+			m.record(RenderPhase.DRAW, draw);
+			m.record(RenderPhase.ACQUIRE, acquire);
+			m.record(RenderPhase.SHOW, show);
+			m.framePresented(t1);
+		}
+	}
+	
+	/**
+	 * Starts or stops capturing the presented frames.<br>
+	 * The render Thread only copies the pixels of each captured frame, encoding and writing them is done by the
+	 * workers of the FrameCapture. Frames are composed in main memory while they are captured, so capturing
+	 * costs some drawing performance. A FrameCapture which is no longer used should be closed.
+	 * 
+	 * @param capture The FrameCapture receiving the frames or NULL, to stop capturing
+	 */
+	public void setFrameCapture(FrameCapture capture){
+		this.capture = capture;
+	}
+	
+	/**
+	 * Returns the FrameCapture receiving the presented frames.
+	 * 
+	 * @return The used FrameCapture or NULL, if no frames are captured
+	 */
+	public FrameCapture getFrameCapture(){
+		return this.capture;
+	}
+	
+	/**
+	 * Enables or disables dynamic resolution scaling.<br>
+	 * While enabled, frames are drawn into an internal target whose size follows the render factor of the
+	 * DynamicResolution and are upscaled to the canvas with a single blit. Incremental rendering takes
+	 * precedence over dynamic resolution, as it only repaints the changed regions anyway.
+	 * 
+	 * @param dynamic The DynamicResolution with the frame time budget or NULL, to draw at the full canvas size
+	 */
+	public void setDynamicResolution(DynamicResolution dynamic){
+		this.dynamicResolution = dynamic;
+	}
+	
+	/**
+	 * Returns the DynamicResolution used to adapt the render size.
+	 * 
+	 * @return The used DynamicResolution or NULL, if frames are drawn at the full canvas size
+	 */
+	public DynamicResolution getDynamicResolution(){
+		return this.dynamicResolution;
+	}
+	
+	/**
+	 * Sets the RenderMetrics which record the timings of every rendered frame.
+	 * 
+	 * @param metrics The RenderMetrics to record into or NULL, if nothing should be measured.
+	 */
+	public void setMetrics(RenderMetrics metrics){
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Returns the RenderMetrics which record the timings of every rendered frame.
+	 * 
+	 * @return The used RenderMetrics or NULL, if nothing is measured.
+	 */
+	public RenderMetrics getMetrics(){
+		return this.metrics;
+	}
+	
+	/**
+	 * Draws every Drawable of the list onto the specified Graphics, skipping BoundedDrawables
+	 * which lie completely outside of the area from (0,0) to (width,height).
+	 * 
+	 * @param g
+	 * @param drawList
+	 * @param scaleX
+	 * @param scaleY
+	 * @param width The width of the drawn area in pixels
+	 * @param height The height of the drawn area in pixels
+	 * @param m The RenderMetrics recording the drawing time per layer and the amount of drawn Drawables or NULL
+	 */
+	static void paint(Graphics2D g, List<Drawable> drawList, double scaleX, double scaleY, int width, int height, RenderMetrics m){
+		Drawable d;
+		BoundedDrawable b;
+		LayeredList layered = null;
+		int drawn = 0, layer = 0, n = drawList.size();
+		long start = 0, now;
+		
+		if(m!=null){
+			if(drawList instanceof LayeredList && ((LayeredList) drawList).hasLayers()){
+				layered = (LayeredList) drawList;
+				layer = (n>0) ? layered.getLayer(0) : 0;
+			}
+			start = System.nanoTime();
+		}
+		
+		// lets Drawables like the TileMap skip everything outside of the drawn area
+		g.clipRect(0, 0, width, height);
+		for(int i=0; i<n; i++){
+			if(layered!=null && layered.getLayer(i)!=layer){
+				now = System.nanoTime();
+				m.recordLayer(layer, now-start);
+				start = now;
+				layer = layered.getLayer(i);
+			}
+			
+			d = drawList.get(i);
+			if(d instanceof BoundedDrawable){
+				b = (BoundedDrawable) d;
+				if(b.getX()*scaleX>=width || (b.getX()+b.getWidth())*scaleX<=0
+						|| b.getY()*scaleY>=height || (b.getY()+b.getHeight())*scaleY<=0){
+					continue;
+				}
+			}
 			d.draw(g, scaleX, scaleY);
+			drawn++;
+		}
+		
+		if(m!=null){
+			m.recordLayer(layer, System.nanoTime()-start);
+			m.recordDrawn(drawn);
 		}
-		g.dispose();
-		bs.show();
 	}
 	
 	/**
@@ -425,29 +1122,42 @@ public class GameFrame{
 	}
 	
 	/**
+	 * Converts the specified location on the screen into canvas coordinates.<br>
+	 * This method does not lock anything and does not call into AWT: it only reads the last
+	 * published CanvasTransform, so it can be called for every mouse event.
 	 * 
-	 * @param location
-	 * @return
+	 * @param location The location on the screen
+	 * @return The location in canvas coordinates or NULL, if the canvas is not shown
 	 */
-	public synchronized static Point toCanvasCoordinates(Point location){
-		if(location == null || !GameFrame.visible){
+	public static Point toCanvasCoordinates(Point location){
+		CanvasTransform t = GameFrame.transform;
+		if(location == null || t == null){
 			return null;
 		}
 		
-		Point p=null;
+		return t.toCanvas(location);
+	}
+	
+	/**
+	 * Returns the last published snapshot of the canvas position and the scale factors.
+	 * 
+	 * @return The current CanvasTransform or NULL, if the canvas is not shown
+	 */
+	public static CanvasTransform getCanvasTransform(){
+		return GameFrame.transform;
+	}
+	
+	/**
+	 * Publishes a new CanvasTransform from the current position of the canvas and the current scale factors.
+	 */
+	private void publishTransform(){
+		CanvasTransform t = null;
 		
-		if(GameFrame.getInstance().frame.isVisible()){
-			
-			int x = location.x, y = location.y;
-			double sX = GameFrame.getInstance().scaleX, sY = GameFrame.getInstance().scaleY;
-			
-			Point cP = GameFrame.getInstance().canvas.getLocationOnScreen();
-			int cX = cP.x, cY = cP.y;
-			
-			p = new Point((int)((x-cX)*sX), (int)((y-cY)*sY));
+		if(this.alive && GameFrame.visible && this.canvas.isShowing()){
+			Point p = this.canvas.getLocationOnScreen();
+			t = new CanvasTransform(p.x, p.y, this.scaleX, this.scaleY);
 		}
-		
-		return p;
+		GameFrame.transform = t;
 	}
 	
 	/**
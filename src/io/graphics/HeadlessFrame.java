@@ -0,0 +1,215 @@
+package io.graphics;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.List;
+
+/**
+ * A HeadlessFrame renders Drawables into an offscreen image instead of a window.<br>
+ * It does not need a display, so it can be used on servers, in automated checks and in benchmarks.
+ * The rendered frame can be read as BufferedImage or as raw pixel array and compared by its checksum.<br>
+ * <br>
+ * Like the GameFrame, the HeadlessFrame has a logical resolution and an output size, from which the
+ * default scale factors are calculated. The image is reused for every frame.<br>
+ * A HeadlessFrame is not thread-safe.
+ *
+ * @author Maxmanski
+ */
+public class HeadlessFrame implements RenderTarget {
+
+	private final BufferedImage image;
+	private final int[] pixels;
+	private final Dimension resolution;
+	private final double scaleX, scaleY;
+	private Color background;
+	private RenderMetrics metrics;
+	private StaticLayer staticLayer;
+	private FrameCapture capture;
+	private long frames;
+	private boolean alive;
+
+	/**
+	 * Creates a new HeadlessFrame whose output size equals the specified logical resolution.
+	 *
+	 * @param resolution The logical resolution. Cannot be a NULL reference.
+	 */
+	public HeadlessFrame(Dimension resolution){
+		this(resolution, resolution.width, resolution.height);
+	}
+
+	/**
+	 * Creates a new HeadlessFrame with the specified logical resolution and output size.
+	 *
+	 * @param resolution The logical resolution. Cannot be a NULL reference.
+	 * @param width The width of the rendered image in pixels. Must be greater than 0.
+	 * @param height The height of the rendered image in pixels. Must be greater than 0.
+	 */
+	public HeadlessFrame(Dimension resolution, int width, int height){
+		if(resolution==null || resolution.width<=0 || resolution.height<=0){
+			throw new IllegalArgumentException("The resolution cannot be null or empty!");
+		}
+		if(width<=0 || height<=0){
+			throw new IllegalArgumentException("The width and height must not be <= 0!");
+		}
+
+		this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+		this.resolution = new Dimension(resolution);
+		this.scaleX = width / resolution.getWidth();
+		this.scaleY = height / resolution.getHeight();
+		this.background = Color.BLACK;
+		this.frames = 0;
+		this.alive = true;
+	}
+
+	@Override
+	public void draw(List<Drawable> drawList) throws DeadInstanceException{
+		this.draw(drawList, this.scaleX, this.scaleY);
+	}
+
+	@Override
+	public void draw(List<Drawable> drawList, double scaleX, double scaleY) throws DeadInstanceException{
+		if(!this.alive){
+			throw new DeadInstanceException("The used HeadlessFrame is dead");
+		}
+
+		int w = this.image.getWidth(), h = this.image.getHeight();
+		RenderMetrics m = this.metrics;
+		long t0 = System.nanoTime();
+		Graphics2D g = this.image.createGraphics();
+		long t1 = System.nanoTime();
+		g.setBackground(this.background);
+		g.clearRect(0, 0, w, h);
+		long t2 = System.nanoTime();
+		if(this.staticLayer!=null){
+			this.staticLayer.draw(g, scaleX, scaleY, null);
+		}
+		GameFrame.paint(g, drawList, scaleX, scaleY, w, h, m);
+		g.dispose();
+		long t3 = System.nanoTime();
+		this.frames++;
+
+		if(m!=null){
+			m.record(RenderPhase.ACQUIRE, t1-t0);
+			m.record(RenderPhase.CLEAR, t2-t1);
+			m.record(RenderPhase.DRAW, t3-t2);
+			m.framePresented(t3);
+		}
+		if(this.capture!=null && this.capture.isDue()){
+			this.capture.submit(this.image);
+		}
+	}
+
+	/**
+	 * Sets the RenderMetrics which record the timings of every rendered frame.<br>
+	 * As nothing is presented, the SHOW phase is not recorded.
+	 *
+	 * @param metrics The RenderMetrics to record into or NULL, if nothing should be measured.
+	 */
+	public void setMetrics(RenderMetrics metrics){
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the StaticLayer which is drawn below the Drawables of every frame.
+	 *
+	 * @param layer The StaticLayer of the board or NULL, if there are no static Drawables
+	 */
+	public void setStaticLayer(StaticLayer layer){
+		this.staticLayer = layer;
+	}
+
+	/**
+	 * Starts or stops capturing the rendered frames.
+	 *
+	 * @param capture The FrameCapture receiving the frames or NULL, to stop capturing
+	 */
+	public void setFrameCapture(FrameCapture capture){
+		this.capture = capture;
+	}
+
+	/**
+	 * Sets the color the image is cleared with before each frame.
+	 *
+	 * @param background The background color. Cannot be a NULL reference.
+	 */
+	public void setBackground(Color background){
+		if(background==null){
+			throw new IllegalArgumentException("The background color cannot be null!");
+		}
+		this.background = background;
+	}
+
+	/**
+	 * Returns the image the frames are rendered into.<br>
+	 * The same image is reused for every frame, so it has to be copied if it should be kept.
+	 *
+	 * @return The rendered image
+	 */
+	public BufferedImage getImage(){
+		return this.image;
+	}
+
+	/**
+	 * Returns the pixels of the rendered image as packed RGB values, row by row.<br>
+	 * This is the backing array of the image, so it changes with every frame and must not be modified.
+	 *
+	 * @return The pixel array of the image
+	 */
+	public int[] getPixels(){
+		return this.pixels;
+	}
+
+	/**
+	 * Calculates a 64 bit FNV-1a checksum of the last rendered frame.<br>
+	 * Equal frames always have equal checksums, so rendering results can be compared without storing images.
+	 *
+	 * @return The checksum of the pixels of the last frame
+	 */
+	public long checksum(){
+		long hash = 0xcbf29ce484222325L;
+		for(int i=0; i<this.pixels.length; i++){
+			hash ^= this.pixels[i] & 0xFFFFFF;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns the logical resolution of this frame.
+	 *
+	 * @return A copy of the logical resolution
+	 */
+	public Dimension getResolution(){
+		return new Dimension(this.resolution);
+	}
+
+	/**
+	 * Returns the amount of frames rendered so far.
+	 *
+	 * @return The amount of rendered frames
+	 */
+	public long getFrameCount(){
+		return this.frames;
+	}
+
+	/**
+	 * Releases the image of this frame. Afterwards, drawing results in a DeadInstanceException.
+	 */
+	public void dispose(){
+		this.alive = false;
+		this.image.flush();
+	}
+
+	/**
+	 * Checks if this frame has not been disposed of yet.
+	 *
+	 * @return TRUE, if this frame can still be drawn onto. FALSE otherwise.
+	 */
+	public boolean isAlive(){
+		return this.alive;
+	}
+}
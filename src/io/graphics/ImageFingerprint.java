@@ -0,0 +1,132 @@
+package io.graphics;
+
+import java.awt.image.BufferedImage;
+import java.util.WeakHashMap;
+
+/**
+ * Computes 64 bit fingerprints of the contents of images.<br>
+ * Two images with the same size and the same ARGB pixels always have the same fingerprint, no matter how they
+ * are stored, so the fingerprint can be used to detect assets which have been loaded twice. Images with
+ * different contents have the same fingerprint only with a negligible probability; where merging two images
+ * would be visible (see ImageLoader), the pixels are compared as well.<br>
+ * <br>
+ * The fingerprint of a whole image is computed once and remembered for as long as the image is in use.
+ *
+ * @author Maxmanski
+ */
+public final class ImageFingerprint {
+
+	private static final long OFFSET = 0xCBF29CE484222325L;
+	private static final long PRIME = 0x100000001B3L;
+
+	private static final WeakHashMap<BufferedImage, Long> known = new WeakHashMap<>();
+
+	private ImageFingerprint(){
+	}
+
+	/**
+	 * Returns the fingerprint of the specified image, computing it if it has not been computed yet.
+	 *
+	 * @param image The image. Cannot be a NULL reference.
+	 * @return The fingerprint of the contents of the image
+	 */
+	public static long of(BufferedImage image){
+		if(image==null){
+			throw new IllegalArgumentException("The image cannot be null!");
+		}
+
+		synchronized(known){
+			Long fp = known.get(image);
+			if(fp!=null){
+				return fp;
+			}
+		}
+
+		long fp = ImageFingerprint.of(image, 0, 0, image.getWidth(), image.getHeight());
+		synchronized(known){
+			known.put(image, fp);
+		}
+		return fp;
+	}
+
+	/**
+	 * Computes the fingerprint of the specified area of an image, e.g. a single frame of a sprite sheet.<br>
+	 * The result equals the fingerprint of an image consisting of only that area.
+	 *
+	 * @param image The image. Cannot be a NULL reference.
+	 * @param x The X coordinate of the area
+	 * @param y The Y coordinate of the area
+	 * @param width The width of the area
+	 * @param height The height of the area
+	 * @return The fingerprint of the contents of the area
+	 */
+	public static long of(BufferedImage image, int x, int y, int width, int height){
+		long h = OFFSET;
+		h = (h ^ width) * PRIME;
+		h = (h ^ height) * PRIME;
+
+		int[] row = new int[width];
+		for(int j=0; j<height; j++){
+			image.getRGB(x, y+j, width, 1, row, 0, width);
+			for(int i=0; i<width; i++){
+				h = (h ^ row[i]) * PRIME;
+			}
+		}
+		return ImageFingerprint.mix(h);
+	}
+
+	/**
+	 * Combines the specified fingerprints in order, e.g. those of the frames of an Animation.
+	 *
+	 * @param fingerprints The fingerprints to be combined
+	 * @return The combined fingerprint
+	 */
+	public static long combine(long... fingerprints){
+		long h = (OFFSET ^ fingerprints.length) * PRIME;
+		for(long fp: fingerprints){
+			h = (h ^ fp) * PRIME;
+			h = (h ^ (fp>>>32)) * PRIME;
+		}
+		return ImageFingerprint.mix(h);
+	}
+
+	/**
+	 * Checks if the specified images have the same size and the same ARGB pixels.
+	 *
+	 * @param a The first image
+	 * @param b The second image
+	 * @return TRUE, if both images have the same contents. FALSE otherwise.
+	 */
+	public static boolean samePixels(BufferedImage a, BufferedImage b){
+		if(a==b){
+			return true;
+		}
+		int w = a.getWidth(), h = a.getHeight();
+		if(w!=b.getWidth() || h!=b.getHeight()){
+			return false;
+		}
+
+		int[] rowA = new int[w], rowB = new int[w];
+		for(int j=0; j<h; j++){
+			a.getRGB(0, j, w, 1, rowA, 0, w);
+			b.getRGB(0, j, w, 1, rowB, 0, w);
+			for(int i=0; i<w; i++){
+				if(rowA[i]!=rowB[i]){
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Spreads the bits of the FNV hash, so the lower bits (used by hash tables) depend on every pixel.
+	 */
+	private static long mix(long h){
+		h ^= h>>>33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h>>>33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		return h ^ (h>>>33);
+	}
+}
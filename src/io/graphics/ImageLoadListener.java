@@ -0,0 +1,30 @@
+package io.graphics;
+
+/**
+ * An ImageLoadListener is informed about the progress of images loaded asynchronously by the ImageLoader,
+ * e.g. to show a loading screen.<br>
+ * The methods are called by the loading Threads, so they should return quickly and must not draw directly.
+ *
+ * @author Maxmanski
+ */
+public interface ImageLoadListener {
+
+	/**
+	 * Called when an image of the manifest has been loaded.
+	 *
+	 * @param name The name of the loaded image
+	 * @param done The amount of images of the manifest which have been loaded or have failed so far
+	 * @param total The amount of images in the manifest
+	 */
+	public void imageLoaded(String name, int done, int total);
+
+	/**
+	 * Called when an image of the manifest could not be loaded.
+	 *
+	 * @param name The name of the image
+	 * @param cause The reason why the image could not be loaded
+	 * @param done The amount of images of the manifest which have been loaded or have failed so far
+	 * @param total The amount of images in the manifest
+	 */
+	public void imageFailed(String name, Throwable cause, int done, int total);
+}
@@ -1,30 +1,83 @@
 package io.graphics;
 
+import game.runtime.Mode;
+
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.imageio.ImageIO;
 
+/**
+ * The ImageLoader loads images and keeps them in a cache, where they are looked up by name.<br>
+ * <br>
+ * The cache holds at most as many bytes as its memory budget allows (estimated from the size of the rasters),
+ * the least recently used images are evicted first and have to be loaded again when they are needed.
+ * Evicting an image only drops the reference of the cache, images still in use stay valid.
+ * Images which are pinned, e.g. those required by the current Mode, are never evicted, even if that exceeds the budget.
+ * Images with the same contents are stored and counted only once.<br>
+ * Every method can be called from any Thread.
+ *
+ * @author Maxmanski
+ */
 public class ImageLoader {
 
-	public static ImageLoader instance;
-	public static HashMap<String, BufferedImage> imageMap;
+	private static ImageLoader instance;
+	private final LinkedHashMap<String, BufferedImage> images;
+	private final HashMap<String, String> files;
+	private final HashMap<BufferedImage, Integer> references;
+	private final HashMap<Long, BufferedImage> contents;
+	private final Set<String> pinned;
+	private final ConcurrentHashMap<String, LoadTask> pending;
+	private volatile TextureAtlas atlas;
+	private ExecutorService workers;
+	private long budget, used;
+	private long hits, misses, evictions;
 
-	/**
-	 * 
+	/*
+	 * Singleton-Pattern
 	 */
 	private ImageLoader(){
-		ImageLoader.imageMap=new HashMap<>();
+		this.images=new LinkedHashMap<>(64, 0.75f, true);
+		this.files=new HashMap<>();
+		this.references=new HashMap<>();
+		this.contents=new HashMap<>();
+		this.pinned=new HashSet<>();
+		this.pending=new ConcurrentHashMap<>();
+		this.budget=256L*1024*1024;
+		this.used=0;
 	}
 
 	/**
+	 * Returns the instance of the ImageLoader.
 	 * 
-	 * @return
+	 * @return The ImageLoader
 	 */
-	public static ImageLoader getInstance(){
+	public static synchronized ImageLoader getInstance(){
 		if(ImageLoader.instance==null){
 			ImageLoader.instance=new ImageLoader();
 		}
@@ -32,34 +85,415 @@ public class ImageLoader {
 	}
 	
 	/**
+	 * Returns the loaded image with the specified name.
 	 * 
-	 * @param name
-	 * @param pathPrefix
-	 * @param loadAsResource
-	 * @return
+	 * @param name The name of the image
+	 * @return The image or NULL, if it has not been loaded or has been evicted
 	 */
-	public BufferedImage getImage(String name){
-		return imageMap.get(name);
+	public synchronized BufferedImage getImage(String name){
+		BufferedImage tmp = this.images.get(name);
+		if(tmp!=null){
+			this.hits++;
+		}else{
+			this.misses++;
+		}
+		return tmp;
 	}
 
 	/**
+	 * Checks if the image with the specified name is in the cache, without counting it as used.
 	 * 
-	 * @param name
-	 * @return
+	 * @param name The name of the image
+	 * @return TRUE, if the image is loaded. FALSE otherwise.
 	 */
-	public boolean hasImage(String name){
-		return imageMap.get(name)!=null;
+	public synchronized boolean hasImage(String name){
+		return this.images.containsKey(name);
 	}
 	
 	/**
+	 * Sets the maximum amount of bytes the cached images may occupy.<br>
+	 * If the cache is larger, the least recently used images which are not pinned are evicted immediately.
 	 * 
-	 * @param name
-	 * @param folder
-	 * @param path
-	 * @return
-	 * @throws IOException
+	 * @param bytes The memory budget in bytes
+	 */
+	public synchronized void setMemoryBudget(long bytes){
+		if(bytes<0){
+			throw new IllegalArgumentException("The memory budget must not be < 0!");
+		}
+		this.budget=bytes;
+		this.evict();
+	}
+	
+	/**
+	 * Returns the maximum amount of bytes the cached images may occupy, unless they are pinned.
+	 * 
+	 * @return The memory budget in bytes
+	 */
+	public synchronized long getMemoryBudget(){
+		return this.budget;
+	}
+	
+	/**
+	 * Returns the amount of bytes currently occupied by the cached images.
+	 * 
+	 * @return The used memory in bytes
+	 */
+	public synchronized long getUsedMemory(){
+		return this.used;
+	}
+	
+	/**
+	 * Pins the images with the specified names, so they are never evicted. Images which are not loaded yet
+	 * are pinned as soon as they are loaded.
+	 * 
+	 * @param names The names of the images to be pinned
+	 */
+	public synchronized void pin(Collection<String> names){
+		this.pinned.addAll(names);
+	}
+	
+	/**
+	 * Unpins the images with the specified names, so they may be evicted again.
+	 * 
+	 * @param names The names of the images to be unpinned
+	 */
+	public synchronized void unpin(Collection<String> names){
+		this.pinned.removeAll(names);
+		this.evict();
+	}
+	
+	/**
+	 * Pins exactly the images required by the specified Mode, unpinning every other image.<br>
+	 * Called by the Game whenever its Mode changes.
+	 * 
+	 * @param mode The current Mode or NULL, if no image should be pinned
+	 */
+	public synchronized void pinMode(Mode mode){
+		this.pinned.clear();
+		Collection<String> required = (mode!=null) ? mode.getRequiredImages() : null;
+		if(required!=null){
+			this.pinned.addAll(required);
+		}
+		this.evict();
+	}
+	
+	/**
+	 * Returns the amount of calls of getImage which found their image in the cache.
+	 * 
+	 * @return The amount of cache hits
+	 */
+	public synchronized long getHits(){
+		return this.hits;
+	}
+	
+	/**
+	 * Returns the amount of calls of getImage which did not find their image in the cache.
+	 * 
+	 * @return The amount of cache misses
+	 */
+	public synchronized long getMisses(){
+		return this.misses;
+	}
+	
+	/**
+	 * Returns the amount of images which have been evicted to stay within the memory budget.
+	 * 
+	 * @return The amount of evictions
+	 */
+	public synchronized long getEvictions(){
+		return this.evictions;
+	}
+	
+	/**
+	 * Returns the fingerprint of the contents of the loaded image with the specified name.
+	 * 
+	 * @param name The name of the image
+	 * @return The fingerprint of the image (see ImageFingerprint) or NULL, if no such image has been loaded
+	 */
+	public synchronized Long getFingerprint(String name){
+		BufferedImage tmp = this.images.get(name);
+		return (tmp!=null) ? ImageFingerprint.of(tmp) : null;
+	}
+	
+	/**
+	 * Returns the amount of loaded images with different contents.<br>
+	 * Images with the same contents, which have been loaded under different names, are only stored once.
+	 * 
+	 * @return The amount of distinct images
+	 */
+	public synchronized int getDistinctImageCount(){
+		return this.contents.size();
+	}
+	
+	/**
+	 * Describes for every loaded image how it is stored and whether it is currently accelerated, one image per line.<br>
+	 * Note that Java2D only accelerates an image after it has been drawn a few times.
+	 * 
+	 * @return The acceleration report of the loaded images, sorted by name
+	 */
+	public synchronized String getAccelerationReport(){
+		StringBuilder sb = new StringBuilder();
+		for(Map.Entry<String, BufferedImage> e: new TreeMap<>(this.images).entrySet()){
+			sb.append(e.getKey()).append(": ").append(CompatibleImages.describe(e.getValue())).append(System.lineSeparator());
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Packs every loaded image into a new TextureAtlas, so they can be drawn from a few large pages
+	 * instead of many small images. The regions of the images can be looked up with getRegion afterwards.<br>
+	 * Images which are loaded later are not part of the atlas until it is built again.
+	 * 
+	 * @param pageSize The width and height of the atlas pages. Every loaded image has to fit into a page.
+	 * @return The new TextureAtlas
+	 */
+	public synchronized TextureAtlas buildAtlas(int pageSize){
+		TextureAtlas tmp = new TextureAtlas(pageSize);
+		for(Map.Entry<String, BufferedImage> e: this.images.entrySet()){
+			tmp.add(e.getKey(), e.getValue());
+		}
+		tmp.pack();
+		this.atlas=tmp;
+		return tmp;
+	}
+	
+	/**
+	 * Returns the TextureAtlas built by the last call of buildAtlas.
+	 * 
+	 * @return The TextureAtlas of the loaded images or NULL, if none has been built yet
+	 */
+	public TextureAtlas getAtlas(){
+		return this.atlas;
+	}
+	
+	/**
+	 * Returns the region of the loaded image with the specified name in the TextureAtlas.
+	 * 
+	 * @param name The name of the image
+	 * @return The region of the image or NULL, if no atlas has been built or the image is not part of it
+	 */
+	public AtlasRegion getRegion(String name){
+		TextureAtlas tmp = this.atlas;
+		return (tmp!=null) ? tmp.getRegion(name) : null;
+	}
+	
+	/**
+	 * Loads the image with the specified name synchronously and stores it under its name.<br>
+	 * The load is shared with the asynchronous loads: if the image is already cached from the same file, the cached image
+	 * is returned, and if the file is currently being loaded, this method waits for that load instead of decoding it twice.
+	 * An image cached under the same name, but from another folder or path, is replaced by the requested file.
+	 * 
+	 * @param name The file name of the image, which is also the name it is stored under
+	 * @param folder The folder of the image, relative to the path. May be NULL.
+	 * @param path The base path (an URI) or NULL, if the location of the engine should be used
+	 * @return The loaded image
+	 * @throws IOException If the image cannot be read or the waiting Thread is interrupted
 	 */
 	public BufferedImage loadImage(String name, String folder, String path) throws IOException{
+		try {
+			return this.submit(name, folder, path).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for " + name, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException){
+				throw (IOException) cause;
+			}
+			if(cause instanceof RuntimeException){
+				throw (RuntimeException) cause;
+			}
+			if(cause instanceof Error){
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+	
+	/**
+	 * Loads the image with the specified name asynchronously (see loadImagesAsync).
+	 * 
+	 * @param name The file name of the image, which is also the name it is stored under
+	 * @param folder The folder of the image, relative to the path. May be NULL.
+	 * @param path The base path (an URI) or NULL, if the location of the engine should be used
+	 * @return The Future of the loaded image
+	 */
+	public Future<BufferedImage> loadImageAsync(String name, String folder, String path){
+		return this.submit(name, folder, path);
+	}
+	
+	/**
+	 * Loads every image of the specified manifest asynchronously. The images are decoded in parallel by a pool
+	 * of as many Threads as there are processors, each one is stored under its name as soon as it is done.<br>
+	 * Images which have already been loaded from the same file are not loaded again, and requests for a file which is currently
+	 * being loaded share the pending load.<br>
+	 * <br>
+	 * The specified listener is informed whenever an image of the manifest is done, from the loading Threads.
+	 * 
+	 * @param manifest The file names of the images to be loaded. Duplicates are loaded once.
+	 * @param folder The folder of the images, relative to the path. May be NULL.
+	 * @param path The base path (an URI) or NULL, if the location of the engine should be used
+	 * @param listener The listener to be informed about the progress or NULL
+	 * @return The Futures of the loaded images, by name and in the order of the manifest
+	 */
+	public Map<String, Future<BufferedImage>> loadImagesAsync(Collection<String> manifest, String folder, String path, final ImageLoadListener listener){
+		LinkedHashSet<String> names = new LinkedHashSet<>(manifest);
+		LinkedHashMap<String, Future<BufferedImage>> result = new LinkedHashMap<>();
+		final int total = names.size();
+		final AtomicInteger done = new AtomicInteger();
+		
+		for(final String name: names){
+			final LoadTask task = this.submit(name, folder, path);
+			result.put(name, task);
+			
+			if(listener!=null){
+				task.whenDone(new Runnable(){
+					@Override
+					public void run(){
+						int d = done.incrementAndGet();
+						try {
+							task.get();
+							listener.imageLoaded(name, d, total);
+						} catch (ExecutionException e) {
+							listener.imageFailed(name, e.getCause(), d, total);
+						} catch (CancellationException e) {
+							listener.imageFailed(name, e, d, total);
+						} catch (InterruptedException e) {
+							// the task is done, so get does not wait
+							Thread.currentThread().interrupt();
+						}
+					}
+				});
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the pending load of the specified file or starts a new one.<br>
+	 * Loads are shared by the resolved file, not by the name: the cached image of a name is only returned if it has been
+	 * read from the same file. Otherwise, the file is read and its image replaces the cached one under the name.
+	 */
+	private LoadTask submit(final String name, String folder, String path){
+		final String filePath = ImageLoader.resolve(name, folder, path);
+		LoadTask task = this.pending.get(filePath);
+		if(task!=null){
+			return task;
+		}
+		
+		final BufferedImage loaded;
+		synchronized(this){
+			loaded = filePath.equals(this.files.get(name)) ? this.images.get(name) : null;
+		}
+		task = new LoadTask(new Callable<BufferedImage>(){
+			@Override
+			public BufferedImage call() throws IOException{
+				return (loaded!=null) ? loaded : ImageLoader.this.store(name, filePath, ImageLoader.decode(filePath));
+			}
+		});
+		if(loaded!=null){
+			task.run();
+			return task;
+		}
+		
+		LoadTask existing = this.pending.putIfAbsent(filePath, task);
+		if(existing!=null){
+			return existing;
+		}
+		final LoadTask submitted = task;
+		task.whenDone(new Runnable(){
+			@Override
+			public void run(){
+				ImageLoader.this.pending.remove(filePath, submitted);
+			}
+		});
+		this.getWorkers().execute(task);
+		return task;
+	}
+	
+	/**
+	 * Stores the image decoded from the specified file under the specified name.<br>
+	 * Images with the same contents are shared, so they are only kept in memory once.
+	 */
+	private synchronized BufferedImage store(String name, String filePath, BufferedImage image){
+		this.files.put(name, filePath);
+		long fp = ImageFingerprint.of(image);
+		BufferedImage known = this.contents.get(fp);
+		if(known!=null && ImageFingerprint.samePixels(known, image)){
+			image=known;
+		}else{
+			this.contents.put(fp, image);
+		}
+		
+		BufferedImage old = this.images.put(name, image);
+		if(old==image){
+			return image;
+		}
+		if(old!=null){
+			this.release(old);
+		}
+		Integer count = this.references.get(image);
+		if(count==null){
+			this.used += ScaledSpriteCache.sizeOf(image);
+		}
+		this.references.put(image, (count==null) ? 1 : count+1);
+		this.evict();
+		return image;
+	}
+	
+	/**
+	 * Evicts the least recently used images which are not pinned, until the cache fits into its budget.
+	 */
+	private void evict(){
+		Iterator<Map.Entry<String, BufferedImage>> it = this.images.entrySet().iterator();
+		Map.Entry<String, BufferedImage> e;
+		
+		while(this.used>this.budget && it.hasNext()){
+			e = it.next();
+			if(this.pinned.contains(e.getKey())){
+				continue;
+			}
+			it.remove();
+			this.files.remove(e.getKey());
+			this.release(e.getValue());
+			this.evictions++;
+		}
+	}
+	
+	/**
+	 * Drops one name of the specified image. If it was the last one, the image is no longer cached.<br>
+	 * This only releases the reference held by the cache: the image is not flushed, because Sprites, Animations
+	 * or a TextureAtlas may still use it. Its memory is reclaimed once nobody references it anymore.
+	 */
+	private void release(BufferedImage image){
+		int count = this.references.get(image)-1;
+		if(count>0){
+			this.references.put(image, count);
+			return;
+		}
+		this.references.remove(image);
+		long fp = ImageFingerprint.of(image);
+		if(this.contents.get(fp)==image){
+			this.contents.remove(fp);
+		}
+		this.used -= ScaledSpriteCache.sizeOf(image);
+	}
+	
+	/**
+	 * Reads the image at the specified URI, converts it into a compatible image and computes its fingerprint.<br>
+	 * Does not touch the state of the ImageLoader, so it can be called by several Threads in parallel.
+	 */
+	private static BufferedImage decode(String filePath) throws IOException{
+		BufferedImage tmp = ImageIO.read(new File(URI.create(filePath)));
+		if(tmp==null){
+			throw new IOException("The format of " + filePath + " is not supported");
+		}
+		tmp = CompatibleImages.toCompatible(tmp);
+		ImageFingerprint.of(tmp);
+		return tmp;
+	}
+	
+	private static String resolve(String name, String folder, String path){
 		if(path!=null&&!path.equals("")&&!path.endsWith("/")&&!path.endsWith("\\")){
 			path+="/";
 		}else if(path==null||path.equals("")){
@@ -74,11 +508,23 @@ public class ImageLoader {
 			folder="";
 		}
 		
-		String filePath = path+folder+name;
-		System.out.println(filePath);
-		BufferedImage tmp = ImageIO.read(new File(URI.create(filePath)));
-		imageMap.put(name, tmp);
-		return tmp;
+		return path+folder+name;
+	}
+	
+	private synchronized ExecutorService getWorkers(){
+		if(this.workers==null){
+			int cores = Math.max(1, Runtime.getRuntime().availableProcessors());
+			this.workers = new ThreadPoolExecutor(cores, cores, 0, TimeUnit.MILLISECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory(){
+				@Override
+				public Thread newThread(Runnable r){
+					Thread t = new Thread(r, "ImageLoader-Worker");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return this.workers;
 	}
 	
 	/**
@@ -100,5 +546,45 @@ public class ImageLoader {
 	public BufferedImage loadImage(String name) throws IOException{
 		return loadImage(name, null, null);
 	}
-
+	
+	/**
+	 * A pending load, which runs callbacks when it is done (in the Thread completing it).
+	 */
+	private static class LoadTask extends FutureTask<BufferedImage> {
+		
+		private final List<Runnable> callbacks;
+		private boolean finished;
+		
+		LoadTask(Callable<BufferedImage> callable){
+			super(callable);
+			this.callbacks=new ArrayList<>();
+			this.finished=false;
+		}
+		
+		/**
+		 * Runs the specified callback when this load is done, or right away if it is done already.
+		 */
+		void whenDone(Runnable callback){
+			synchronized(this.callbacks){
+				if(!this.finished){
+					this.callbacks.add(callback);
+					return;
+				}
+			}
+			callback.run();
+		}
+		
+		@Override
+		protected void done(){
+			List<Runnable> tmp;
+			synchronized(this.callbacks){
+				this.finished=true;
+				tmp=new ArrayList<>(this.callbacks);
+				this.callbacks.clear();
+			}
+			for(Runnable r: tmp){
+				r.run();
+			}
+		}
+	}
 }
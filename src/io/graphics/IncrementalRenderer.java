@@ -0,0 +1,261 @@
+package io.graphics;
+
+import java.awt.Canvas;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferStrategy;
+import java.awt.image.VolatileImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The IncrementalRenderer keeps the last frame in an accelerated back layer and only repaints the
+ * regions which have been marked as dirty since then.<br>
+ * <br>
+ * Sprites in the drawn list are assigned to the DirtyRegions set of the renderer automatically, so
+ * moving them or changing their animation step marks their old and new area as dirty. Sprites which
+ * are added to or removed from the list are marked as well. Other Drawables are only repainted where
+ * something else is dirty, their changes have to be marked manually.<br>
+ * Regions of a StaticLayer which have been rendered again are marked as dirty as well.<br>
+ * <br>
+ * The renderer is split between two Threads. The Sprites are tracked (see track) by the Thread which moves them,
+ * i.e. the game Thread, and they mark their changes in the DirtyRegions of the renderer. Painting is done by the Thread
+ * rendering the frames: it only gets the changes of the frame it paints, which have been drained together with the snapshots
+ * of the frame (see FrameHandoff). This way, a change made after a frame has been published is painted with the next frame,
+ * not with the frame published before it. Without a render Thread, both parts run on the same Thread.
+ *
+ * @author Maxmanski
+ */
+class IncrementalRenderer {
+
+	// tracked by the game Thread
+	private final DirtyRegions regions;
+	private final ArrayList<Drawable> previous;
+	private int frame;
+
+	// owned by the Thread painting the frames
+	private final int[] drained;
+	private VolatileImage layer;
+	private double lastScaleX, lastScaleY;
+	private boolean repaintAll;
+
+	/**
+	 * Creates a new IncrementalRenderer, whose first frame will be painted completely.
+	 */
+	IncrementalRenderer(){
+		this.regions = new DirtyRegions();
+		this.drained = new int[4*DirtyRegions.MAX_REGIONS];
+		this.previous = new ArrayList<>();
+		this.frame = 0;
+		this.repaintAll = true;
+	}
+
+	/**
+	 * Returns the set of dirty regions (in logical coordinates) the tracked Sprites mark their changes in.<br>
+	 * It has to be drained into the published frame by the game Thread, or passed to render if the frame is rendered on the game Thread.
+	 *
+	 * @return The DirtyRegions of this renderer
+	 */
+	DirtyRegions getDirtyRegions(){
+		return this.regions;
+	}
+
+	/**
+	 * Returns the back layer holding the last frame.
+	 *
+	 * @return The back layer or NULL, if nothing has been rendered yet
+	 */
+	VolatileImage getLayer(){
+		return this.layer;
+	}
+
+	/**
+	 * Lets the next rendered frame repaint everything, because a frame (and its changes) has been skipped.<br>
+	 * Must be called by the Thread painting the frames.
+	 */
+	void frameSkipped(){
+		this.repaintAll = true;
+	}
+
+	/**
+	 * Repaints the changed regions of the back layer and shows it on the specified BufferStrategy.<br>
+	 * Must be called by the Thread painting the frames. The Drawables have to be tracked before (see track).
+	 *
+	 * @param canvas The Canvas being drawn onto
+	 * @param bs The BufferStrategy of the Canvas
+	 * @param drawList The Drawables of the frame in drawing order
+	 * @param changed The regions which have changed since the last frame. They are drained.
+	 * @param scaleX The horizontal scale factor from logical to canvas coordinates
+	 * @param scaleY The vertical scale factor from logical to canvas coordinates
+	 * @param background The StaticLayer drawn below the Drawables or NULL
+	 * @param m The RenderMetrics to record into or NULL. Repainting the dirty regions is recorded as DRAW phase.
+	 */
+	void render(Canvas canvas, BufferStrategy bs, List<Drawable> drawList, DirtyRegions changed, double scaleX, double scaleY, StaticLayer background, RenderMetrics m){
+		long t0 = System.nanoTime(), t1, draw, acquire = 0, show = 0;
+		this.validateLayer(canvas, scaleX, scaleY);
+		VolatileImage staticImage = null;
+		if(background!=null){
+			staticImage = background.update(canvas.getGraphicsConfiguration(), scaleX, scaleY, changed);
+		}
+		this.paintLayer(drawList, changed, staticImage, scaleX, scaleY, m);
+		draw = System.nanoTime()-t0;
+
+		// the phases are recorded once per shown frame, including every attempt to show it
+		Graphics2D g;
+		do{
+			do{
+				t0 = System.nanoTime();
+				g = (Graphics2D) bs.getDrawGraphics();
+				acquire += System.nanoTime()-t0;
+				g.drawImage(this.layer, 0, 0, null);
+				g.dispose();
+			}while(bs.contentsRestored());
+
+			t0 = System.nanoTime();
+			bs.show();
+			t1 = System.nanoTime();
+			show += t1-t0;
+		}while(bs.contentsLost());
+
+		if(m!=null){
+			m.record(RenderPhase.DRAW, draw);
+			m.record(RenderPhase.ACQUIRE, acquire);
+			m.record(RenderPhase.SHOW, show);
+			m.framePresented(t1);
+		}
+
+		if(this.layer.contentsLost()){
+			this.repaintAll = true;
+		}
+	}
+
+	/**
+	 * Assigns new Sprites to the dirty regions and marks the area of Sprites which are no longer drawn.<br>
+	 * Must be called by the Thread moving the Sprites, with the live Drawables of every frame before it is published or rendered.
+	 *
+	 * @param drawList The Drawables of the frame in drawing order
+	 */
+	void track(List<Drawable> drawList){
+		Sprite s;
+
+		this.frame++;
+		for(int i=0, n=drawList.size(); i<n; i++){
+			s = Sprite.sourceOf(drawList.get(i));
+			if(s!=null){
+				if(s.getDirtyRegions()!=this.regions){
+					s.setDirtyRegions(this.regions);
+				}
+				s.frameStamp = this.frame;
+			}
+		}
+
+		for(int i=0, n=this.previous.size(); i<n; i++){
+			s = Sprite.sourceOf(this.previous.get(i));
+			if(s!=null){
+				if(s.frameStamp!=this.frame && s.getDirtyRegions()==this.regions){
+					// detaching marks the last area of the Sprite as dirty
+					s.setDirtyRegions(null);
+				}
+			}
+		}
+
+		this.previous.clear();
+		for(int i=0, n=drawList.size(); i<n; i++){
+			this.previous.add(drawList.get(i));
+		}
+	}
+
+	/**
+	 * (Re)creates the back layer if necessary and marks everything as dirty if its contents are gone
+	 * or the scale has changed.
+	 */
+	private void validateLayer(Canvas canvas, double scaleX, double scaleY){
+		GraphicsConfiguration gc = canvas.getGraphicsConfiguration();
+		int w = Math.max(1, canvas.getWidth()), h = Math.max(1, canvas.getHeight());
+		int state = (this.layer==null) ? VolatileImage.IMAGE_INCOMPATIBLE : this.layer.validate(gc);
+
+		if(state==VolatileImage.IMAGE_INCOMPATIBLE || this.layer.getWidth()!=w || this.layer.getHeight()!=h){
+			if(this.layer!=null){
+				this.layer.flush();
+			}
+			this.layer = gc.createCompatibleVolatileImage(w, h);
+			this.layer.validate(gc);
+			this.repaintAll = true;
+		}else if(state==VolatileImage.IMAGE_RESTORED){
+			this.repaintAll = true;
+		}
+
+		if(scaleX!=this.lastScaleX || scaleY!=this.lastScaleY){
+			this.lastScaleX = scaleX;
+			this.lastScaleY = scaleY;
+			this.repaintAll = true;
+		}
+	}
+
+	/**
+	 * Clears the dirty regions of the back layer and draws every Drawable intersecting them, clipped to the region.
+	 */
+	private void paintLayer(List<Drawable> drawList, DirtyRegions changed, VolatileImage staticImage, double scaleX, double scaleY, RenderMetrics m){
+		int n = changed.drainTo(this.drained), drawn = 0;
+		if(this.repaintAll){
+			this.repaintAll = false;
+			n = -1;
+		}
+		if(n==0){
+			if(m!=null){
+				m.recordDrawn(0);
+			}
+			return;
+		}
+
+		Graphics2D g = this.layer.createGraphics();
+		int rx1, ry1, rx2, ry2;
+
+		if(n<0){
+			drawn = this.paintRegion(g, drawList, staticImage, 0, 0, this.layer.getWidth(), this.layer.getHeight(), scaleX, scaleY);
+		}else{
+			for(int i=0; i<n; i++){
+				// rounding of the scaled coordinates may shift a Sprite by a pixel, so the region is padded
+				rx1 = (int)Math.floor(this.drained[4*i]*scaleX)-1;
+				ry1 = (int)Math.floor(this.drained[4*i+1]*scaleY)-1;
+				rx2 = (int)Math.ceil(this.drained[4*i+2]*scaleX)+1;
+				ry2 = (int)Math.ceil(this.drained[4*i+3]*scaleY)+1;
+				drawn += this.paintRegion(g, drawList, staticImage, rx1, ry1, rx2, ry2, scaleX, scaleY);
+			}
+		}
+
+		g.dispose();
+		if(m!=null){
+			m.recordDrawn(drawn);
+		}
+	}
+
+	/**
+	 * Repaints the specified region of the back layer (in canvas coordinates) and returns the amount of drawn Drawables.
+	 */
+	private int paintRegion(Graphics2D g, List<Drawable> drawList, VolatileImage staticImage, int x1, int y1, int x2, int y2, double scaleX, double scaleY){
+		Drawable d;
+		BoundedDrawable b;
+		int drawn = 0;
+
+		g.setClip(x1, y1, x2-x1, y2-y1);
+		g.clearRect(x1, y1, x2-x1, y2-y1);
+		if(staticImage!=null){
+			g.drawImage(staticImage, 0, 0, null);
+		}
+
+		for(int i=0, n=drawList.size(); i<n; i++){
+			d = drawList.get(i);
+			if(d instanceof BoundedDrawable){
+				b = (BoundedDrawable) d;
+				if(b.getX()*scaleX>=x2 || (b.getX()+b.getWidth())*scaleX<=x1
+						|| b.getY()*scaleY>=y2 || (b.getY()+b.getHeight())*scaleY<=y1){
+					continue;
+				}
+			}
+			d.draw(g, scaleX, scaleY);
+			drawn++;
+		}
+		return drawn;
+	}
+}
@@ -0,0 +1,284 @@
+package io.graphics;
+
+import java.util.IdentityHashMap;
+
+/**
+ * A variant of Animations for enum keys and small integer keys.<br>
+ * The Animations are stored in a dense array, addressed by slots: the ordinal of an enum key or the integer key itself.
+ * Switching the active Animation is therefore a plain array access, without hashing.<br>
+ * <br>
+ * Unlike Animations, lookups by Animation compare references instead of calling equals,
+ * so they never compare the frames of two Animations. The slot of every stored Animation is remembered,
+ * so looking up an Animation does not search the slots either. Therefore, an Animation instance
+ * can only be stored in one slot.<br>
+ * A collection created for an enum only accepts constants of that enum as keys, collections created
+ * with a slot count or an array only accept integer keys.
+ *
+ * @author Maxmanski
+ */
+public class IndexedAnimations {
+
+	private final Animation[] slots;
+	private final IdentityHashMap<Animation, Integer> slotOf;
+	private final Class<?> keys;
+	private int current;
+
+	/**
+	 * Creates a new, empty collection with the specified amount of slots.<br>
+	 * Until an Animation is put into a slot and switched to, there is no active Animation.
+	 *
+	 * @param slotCount The amount of slots, i.e. the highest integer key plus 1. Must be greater than 0.
+	 */
+	public IndexedAnimations(int slotCount){
+		if(slotCount<=0){
+			throw new IllegalArgumentException("The amount of slots must not be <= 0!");
+		}
+		this.slots=new Animation[slotCount];
+		this.slotOf=new IdentityHashMap<>();
+		this.keys=null;
+		this.current=-1;
+	}
+
+	/**
+	 * Creates a new, empty collection with one slot for every constant of the specified enum.
+	 *
+	 * @param keys The enum whose constants are used as keys. Cannot be a NULL reference.
+	 */
+	public IndexedAnimations(Class<? extends Enum<?>> keys){
+		if(keys==null || keys.getEnumConstants().length<=0){
+			throw new IllegalArgumentException("The enum of the keys cannot be null and needs at least one constant!");
+		}
+		this.slots=new Animation[keys.getEnumConstants().length];
+		this.slotOf=new IdentityHashMap<>();
+		this.keys=keys;
+		this.current=-1;
+	}
+
+	/**
+	 * Creates a new collection with the specified Animations, where the Animation at index i is put into slot i.<br>
+	 * The first Animation will be selected as the active Animation initially.
+	 *
+	 * @param animations The Animations to be stored initially. Must contain at least one element, which is not NULL.
+	 * 					An Animation instance cannot be contained twice.
+	 */
+	public IndexedAnimations(Animation[] animations){
+		if(animations.length<=0 || animations[0]==null){
+			throw new IllegalArgumentException("The array must contain at least one element and the first one cannot be null!");
+		}
+		this.slots=new Animation[animations.length];
+		this.slotOf=new IdentityHashMap<>();
+		this.keys=null;
+		for(int i=0; i<animations.length; i++){
+			this.putAnimation(animations[i], i);
+		}
+		this.current=0;
+	}
+
+	/**
+	 * Creates a copy of the specified collection.<br>
+	 * Every Animation is copied with its own playback state, while the frames are shared.
+	 *
+	 * @param toCopy The collection of which a copy should be created. Cannot be a NULL reference.
+	 */
+	public IndexedAnimations(IndexedAnimations toCopy){
+		if(toCopy==null){
+			throw new IllegalArgumentException("The IndexedAnimations object to be copied cannot be null");
+		}
+		this.slots=new Animation[toCopy.slots.length];
+		this.slotOf=new IdentityHashMap<>();
+		this.keys=toCopy.keys;
+		for(int i=0; i<this.slots.length; i++){
+			if(toCopy.slots[i]!=null){
+				this.slots[i]=new Animation(toCopy.slots[i]);
+				this.slotOf.put(this.slots[i], i);
+			}
+		}
+		this.current=toCopy.current;
+	}
+
+	/**
+	 * Switches the currently active Animation to the Animation in the specified slot.<br>
+	 * The Animation is not reset.
+	 *
+	 * @param slot The slot of the new active Animation
+	 * @throws InvalidAnimationException Will be thrown if the slot is out of range or empty.
+	 */
+	public void switchAnimation(int slot) throws InvalidAnimationException{
+		if(slot<0 || slot>=this.slots.length || this.slots[slot]==null){
+			throw new InvalidAnimationException("There is no Animation in slot " + slot);
+		}
+		this.current=slot;
+	}
+
+	/**
+	 * Switches the currently active Animation to the Animation identified by the specified enum key.<br>
+	 * The Animation is not reset.
+	 *
+	 * @param key The key of the new active Animation. Cannot be a NULL reference and has to be a constant of the enum of this collection.
+	 * @throws InvalidAnimationException Will be thrown if there is no Animation for the key.
+	 */
+	public void switchAnimation(Enum<?> key) throws InvalidAnimationException{
+		this.switchAnimation(this.slotOf(key));
+	}
+
+	/**
+	 * Switches the currently active Animation to the specified instance, which has to be contained by this collection.<br>
+	 * The selected Animation will be reset.
+	 *
+	 * @param anim The Animation to be used as currently active Animation
+	 * @throws InvalidAnimationException Thrown, if the Animation is not contained by this collection
+	 */
+	public void switchAnimation(Animation anim) throws InvalidAnimationException{
+		if(anim==null){
+			throw new IllegalArgumentException("Target Animation cannot be null");
+		}
+		int slot=this.indexOf(anim);
+		if(slot<0){
+			throw new InvalidAnimationException("The specified Animation could not be found");
+		}
+		anim.reset();
+		this.current=slot;
+	}
+
+	/**
+	 * Puts the specified Animation into the specified slot, replacing the Animation stored there.
+	 *
+	 * @param anim The Animation to be stored or NULL to empty the slot. Cannot be stored in another slot already.
+	 * @param slot The slot of the Animation
+	 * @return TRUE, if the slot was empty before. FALSE, if an Animation has been replaced.
+	 */
+	public boolean putAnimation(Animation anim, int slot){
+		this.checkSlot(slot);
+		Integer stored=(anim!=null) ? this.slotOf.get(anim) : null;
+		if(stored!=null && stored!=slot){
+			throw new IllegalArgumentException("The Animation is already stored in slot " + stored + "!");
+		}
+		Animation old=this.slots[slot];
+		if(old!=null){
+			this.slotOf.remove(old);
+		}
+		this.slots[slot]=anim;
+		if(anim!=null){
+			this.slotOf.put(anim, slot);
+		}
+		boolean empty=(old==null);
+		if(anim==null && slot==this.current){
+			this.current=-1;
+		}
+		return empty;
+	}
+
+	/**
+	 * Puts the specified Animation into the slot of the specified enum key.
+	 *
+	 * @param anim The Animation to be stored or NULL to empty the slot. Cannot be stored in another slot already.
+	 * @param key The key of the Animation. Cannot be a NULL reference and has to be a constant of the enum of this collection.
+	 * @return TRUE, if the slot was empty before. FALSE, if an Animation has been replaced.
+	 */
+	public boolean putAnimation(Animation anim, Enum<?> key){
+		return this.putAnimation(anim, this.slotOf(key));
+	}
+
+	/**
+	 * Empties the slot of the specified Animation instance.
+	 *
+	 * @param anim The Animation to be removed
+	 * @return TRUE, if the Animation was found and removed. FALSE otherwise.
+	 */
+	public boolean removeAnimation(Animation anim){
+		int slot=this.indexOf(anim);
+		if(slot<0){
+			return false;
+		}
+		this.putAnimation(null, slot);
+		return true;
+	}
+
+	/**
+	 * Empties the specified slot.
+	 *
+	 * @param slot The slot to be emptied
+	 * @return TRUE, if there was an Animation in the slot. FALSE otherwise.
+	 */
+	public boolean removeAnimation(int slot){
+		return !this.putAnimation(null, slot);
+	}
+
+	/**
+	 * Returns the slot of the specified Animation instance.
+	 *
+	 * @param anim The Animation to look for
+	 * @return The slot of the Animation or -1, if this collection does not contain the instance
+	 */
+	public int indexOf(Animation anim){
+		Integer slot=(anim!=null) ? this.slotOf.get(anim) : null;
+		return (slot!=null) ? slot : -1;
+	}
+
+	/**
+	 * Returns the currently active Animation.
+	 *
+	 * @return The currently active Animation or NULL, if none has been selected yet
+	 */
+	public Animation getCurrentAnimation(){
+		return (this.current>=0) ? this.slots[this.current] : null;
+	}
+
+	/**
+	 * Returns the slot of the currently active Animation.
+	 *
+	 * @return The slot of the active Animation or -1, if none has been selected yet
+	 */
+	public int getCurrentSlot(){
+		return this.current;
+	}
+
+	/**
+	 * Returns the Animation in the specified slot.
+	 *
+	 * @param slot The slot of the Animation
+	 * @return The Animation in the slot or NULL, if the slot is empty
+	 */
+	public Animation getAnimation(int slot){
+		this.checkSlot(slot);
+		return this.slots[slot];
+	}
+
+	/**
+	 * Returns the Animation for the specified enum key.
+	 *
+	 * @param key The key of the Animation. Cannot be a NULL reference and has to be a constant of the enum of this collection.
+	 * @return The Animation for the key or NULL, if there is none
+	 */
+	public Animation getAnimation(Enum<?> key){
+		return this.getAnimation(this.slotOf(key));
+	}
+
+	/**
+	 * Returns the amount of slots of this collection.
+	 *
+	 * @return The amount of slots
+	 */
+	public int getSlotCount(){
+		return this.slots.length;
+	}
+
+	/**
+	 * Returns the slot of the specified enum key, after checking that it belongs to the enum of this collection.
+	 */
+	private int slotOf(Enum<?> key){
+		if(key==null){
+			throw new IllegalArgumentException("The key cannot be null!");
+		}
+		if(key.getDeclaringClass()!=this.keys){
+			throw new IllegalArgumentException("The key " + key + " is not a constant of the enum of this collection!");
+		}
+		return key.ordinal();
+	}
+
+	private void checkSlot(int slot){
+		if(slot<0 || slot>=this.slots.length){
+			throw new IllegalArgumentException("The slot " + slot + " is out of range!");
+		}
+	}
+}
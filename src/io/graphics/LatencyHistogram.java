@@ -0,0 +1,143 @@
+package io.graphics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A LatencyHistogram counts recorded values (usually durations in nanoseconds) in logarithmic buckets,
+ * each power of two being split into 32 linear sub-buckets. This keeps the relative error of every
+ * reported value below about 3%, while a fixed, small array covers values from 0 up to about 18 minutes.<br>
+ * <br>
+ * Recording does not allocate anything and does not lock. It must only be done by a single Thread at a time,
+ * while any Thread may read the histogram. Reads during recording may be slightly out of date.
+ *
+ * @author Maxmanski
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 5;
+	private static final int SUB_COUNT = 1<<SUB_BITS;
+	private static final int MAX_BITS = 40;
+	private static final int BUCKETS = (MAX_BITS-SUB_BITS+1)*SUB_COUNT;
+
+	private final AtomicLongArray counts;
+	private volatile long total, max;
+
+	/**
+	 * Creates a new, empty LatencyHistogram.
+	 */
+	public LatencyHistogram(){
+		this.counts = new AtomicLongArray(BUCKETS);
+		this.total = 0;
+		this.max = 0;
+	}
+
+	/**
+	 * Records the specified value. Negative values are recorded as 0, values beyond the range of the
+	 * histogram are recorded in its last bucket.
+	 *
+	 * @param value The value to be recorded
+	 */
+	public void record(long value){
+		if(value<0){
+			value = 0;
+		}
+
+		int i = LatencyHistogram.indexOf(value);
+		this.counts.lazySet(i, this.counts.get(i)+1);
+		this.total = this.total+1;
+		if(value>this.max){
+			this.max = value;
+		}
+	}
+
+	/**
+	 * Returns the amount of recorded values.
+	 *
+	 * @return The amount of recorded values
+	 */
+	public long getCount(){
+		return this.total;
+	}
+
+	/**
+	 * Returns the highest recorded value.
+	 *
+	 * @return The highest recorded value or 0, if nothing has been recorded yet.
+	 */
+	public long getMax(){
+		return this.max;
+	}
+
+	/**
+	 * Returns the value below or at which the specified percentage of the recorded values lie.<br>
+	 * The result is the upper bound of the bucket containing the percentile, but never larger than the highest recorded value.
+	 *
+	 * @param percentile The percentile to be calculated (between 0 and 100, e.g. 99.9)
+	 * @return The value at the specified percentile or 0, if nothing has been recorded yet.
+	 */
+	public long getPercentile(double percentile){
+		long n = this.total;
+		if(n==0){
+			return 0;
+		}
+
+		long rank = Math.max(1, (long)Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * n));
+		long sum = 0;
+		for(int i=0; i<BUCKETS; i++){
+			sum += this.counts.get(i);
+			if(sum>=rank){
+				return Math.min(this.max, LatencyHistogram.upperBoundOf(i));
+			}
+		}
+		return this.max;
+	}
+
+	/**
+	 * Returns the amount of recorded values which are greater than the specified threshold.<br>
+	 * The result is exact up to the bucket resolution.
+	 *
+	 * @param threshold The threshold to be checked
+	 * @return The amount of recorded values above the threshold
+	 */
+	public long countAbove(long threshold){
+		long sum = 0;
+		for(int i=BUCKETS-1; i>=0 && LatencyHistogram.upperBoundOf(i)>threshold; i--){
+			sum += this.counts.get(i);
+		}
+		return sum;
+	}
+
+	/**
+	 * Removes every recorded value.
+	 */
+	public void reset(){
+		for(int i=0; i<BUCKETS; i++){
+			this.counts.set(i, 0);
+		}
+		this.total = 0;
+		this.max = 0;
+	}
+
+	private static int indexOf(long value){
+		if(value<SUB_COUNT){
+			return (int) value;
+		}
+
+		int msb = 63-Long.numberOfLeadingZeros(value);
+		if(msb>=MAX_BITS){
+			return BUCKETS-1;
+		}
+		int shift = msb-SUB_BITS;
+		return (shift+1)*SUB_COUNT + (int)((value>>>shift) & (SUB_COUNT-1));
+	}
+
+	private static long upperBoundOf(int index){
+		if(index<SUB_COUNT){
+			return index;
+		}
+
+		int shift = index/SUB_COUNT - 1;
+		long sub = index%SUB_COUNT;
+		return (((long)SUB_COUNT | sub) << shift) + (1L<<shift) - 1;
+	}
+}
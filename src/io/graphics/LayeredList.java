@@ -0,0 +1,26 @@
+package io.graphics;
+
+import java.util.List;
+
+/**
+ * A list of Drawables which may know the layer of each element, e.g. the sorted view of a RenderQueue.
+ *
+ * @author Maxmanski
+ */
+interface LayeredList extends List<Drawable> {
+
+	/**
+	 * Checks if the layers of the elements are known.
+	 *
+	 * @return TRUE, if getLayer returns the actual layers. FALSE, if every element is on layer 0.
+	 */
+	public boolean hasLayers();
+
+	/**
+	 * Returns the layer of the element at the specified position.
+	 *
+	 * @param index The position of the element
+	 * @return The layer of the element
+	 */
+	public int getLayer(int index);
+}
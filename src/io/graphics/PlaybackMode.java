@@ -0,0 +1,24 @@
+package io.graphics;
+
+/**
+ * The ways an Animation driven by an AnimationClock walks through its frames.
+ *
+ * @author Maxmanski
+ */
+public enum PlaybackMode {
+
+	/**
+	 * After the last frame, the Animation starts anew with the first frame.
+	 */
+	LOOP,
+
+	/**
+	 * After the last frame, the Animation runs backwards to the first frame, then forwards again, and so on.
+	 */
+	PING_PONG,
+
+	/**
+	 * The Animation stops at its last frame until it is reset.
+	 */
+	ONE_SHOT
+}
@@ -0,0 +1,247 @@
+package io.graphics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RenderMetrics records how long the phases of rendering take, how long each layer of a RenderQueue
+ * takes to draw and how many Drawables are drawn per frame.<br>
+ * Every measurement is kept in a LatencyHistogram, so percentiles like p50, p99 and p99.9 can be read
+ * at any time. Frames whose interval exceeds the stutter threshold are counted as stutters.<br>
+ * <br>
+ * Recording does not allocate anything. It is done by the Thread rendering the frames, while the
+ * results can be read, reported or periodically dumped from any other Thread.
+ *
+ * @author Maxmanski
+ */
+public class RenderMetrics {
+
+	/**
+	 * The amount of layers which are measured separately. Higher layers are counted as the last one.
+	 */
+	public static final int MEASURED_LAYERS = 16;
+
+	private final LatencyHistogram[] phases;
+	private final LatencyHistogram[] layers;
+	private final LatencyHistogram drawn;
+	private volatile long stutterNanos;
+	private volatile long stutters;
+	private long lastPresent;
+	private ScheduledExecutorService dumper;
+	private ScheduledFuture<?> dump;
+
+	/**
+	 * Creates new, empty RenderMetrics with a stutter threshold of 33 milliseconds (two frames at 60Hz).
+	 */
+	public RenderMetrics(){
+		this.phases = new LatencyHistogram[RenderPhase.values().length];
+		for(int i=0; i<this.phases.length; i++){
+			this.phases[i] = new LatencyHistogram();
+		}
+		this.layers = new LatencyHistogram[MEASURED_LAYERS];
+		for(int i=0; i<this.layers.length; i++){
+			this.layers[i] = new LatencyHistogram();
+		}
+		this.drawn = new LatencyHistogram();
+		this.stutterNanos = TimeUnit.MILLISECONDS.toNanos(33);
+		this.stutters = 0;
+		this.lastPresent = 0;
+	}
+
+	/**
+	 * Records the duration of a phase.
+	 *
+	 * @param phase The measured phase
+	 * @param nanos The duration in nanoseconds
+	 */
+	public void record(RenderPhase phase, long nanos){
+		this.phases[phase.ordinal()].record(nanos);
+	}
+
+	/**
+	 * Records the time it took to draw the Drawables of a layer.
+	 *
+	 * @param layer The drawn layer
+	 * @param nanos The duration in nanoseconds
+	 */
+	public void recordLayer(int layer, long nanos){
+		this.layers[Math.max(0, Math.min(MEASURED_LAYERS-1, layer))].record(nanos);
+	}
+
+	/**
+	 * Records the amount of Drawables drawn in a frame.
+	 *
+	 * @param count The amount of drawn Drawables
+	 */
+	public void recordDrawn(int count){
+		this.drawn.record(count);
+	}
+
+	/**
+	 * Marks that a frame has been presented at the specified time.<br>
+	 * The interval to the last presented frame is recorded as FRAME_INTERVAL and counted as stutter,
+	 * if it exceeds the stutter threshold.
+	 *
+	 * @param now The time of presentation, as returned by System.nanoTime()
+	 */
+	public void framePresented(long now){
+		if(this.lastPresent!=0){
+			long interval = now-this.lastPresent;
+			this.phases[RenderPhase.FRAME_INTERVAL.ordinal()].record(interval);
+			if(interval>this.stutterNanos){
+				this.stutters = this.stutters+1;
+			}
+		}
+		this.lastPresent = now;
+	}
+
+	/**
+	 * Sets the frame interval above which a frame is counted as stutter.
+	 *
+	 * @param threshold The threshold
+	 * @param unit The unit of the threshold
+	 */
+	public void setStutterThreshold(long threshold, TimeUnit unit){
+		this.stutterNanos = unit.toNanos(threshold);
+	}
+
+	/**
+	 * Returns the histogram of the specified phase, in nanoseconds.
+	 *
+	 * @param phase The phase
+	 * @return The histogram of the phase
+	 */
+	public LatencyHistogram getHistogram(RenderPhase phase){
+		return this.phases[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the histogram of the drawing time of the specified layer, in nanoseconds.
+	 *
+	 * @param layer The layer (between 0 and MEASURED_LAYERS-1)
+	 * @return The histogram of the layer
+	 */
+	public LatencyHistogram getLayerHistogram(int layer){
+		return this.layers[layer];
+	}
+
+	/**
+	 * Returns the histogram of the amount of Drawables drawn per frame.
+	 *
+	 * @return The histogram of drawn Drawables
+	 */
+	public LatencyHistogram getDrawnHistogram(){
+		return this.drawn;
+	}
+
+	/**
+	 * Returns the amount of frames whose interval exceeded the stutter threshold.
+	 *
+	 * @return The amount of stutters
+	 */
+	public long getStutterCount(){
+		return this.stutters;
+	}
+
+	/**
+	 * Removes every recorded value.
+	 */
+	public void reset(){
+		for(LatencyHistogram h: this.phases){
+			h.reset();
+		}
+		for(LatencyHistogram h: this.layers){
+			h.reset();
+		}
+		this.drawn.reset();
+		this.stutters = 0;
+	}
+
+	/**
+	 * Creates a human readable report of the percentiles of every phase, every used layer and the drawn Drawables.
+	 *
+	 * @return The report, one measurement per line
+	 */
+	public String report(){
+		StringBuilder sb = new StringBuilder();
+
+		for(RenderPhase p: RenderPhase.values()){
+			RenderMetrics.appendTimes(sb, p.toString(), this.phases[p.ordinal()]);
+		}
+		for(int i=0; i<MEASURED_LAYERS; i++){
+			if(this.layers[i].getCount()>0){
+				RenderMetrics.appendTimes(sb, "LAYER " + i, this.layers[i]);
+			}
+		}
+		sb.append(String.format(Locale.ROOT, "DRAWN        p50=%d p99=%d p99.9=%d max=%d%n",
+				this.drawn.getPercentile(50), this.drawn.getPercentile(99), this.drawn.getPercentile(99.9), this.drawn.getMax()));
+		sb.append(String.format(Locale.ROOT, "STUTTERS     %d of %d frames%n",
+				this.stutters, this.phases[RenderPhase.FRAME_INTERVAL.ordinal()].getCount()));
+
+		return sb.toString();
+	}
+
+	private static void appendTimes(StringBuilder sb, String name, LatencyHistogram h){
+		sb.append(String.format(Locale.ROOT, "%-12s p50=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms n=%d%n", name,
+				h.getPercentile(50)/1e6, h.getPercentile(99)/1e6, h.getPercentile(99.9)/1e6, h.getMax()/1e6, h.getCount()));
+	}
+
+	/**
+	 * Periodically writes the report to the specified file (appending) or to System.out.<br>
+	 * A dump which has been started before is replaced.
+	 *
+	 * @param period The period between two dumps
+	 * @param unit The unit of the period
+	 * @param file The file to append the reports to or NULL, if they should be printed to System.out
+	 */
+	public synchronized void startPeriodicDump(long period, TimeUnit unit, final File file){
+		this.stopPeriodicDump();
+
+		if(this.dumper==null){
+			this.dumper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory(){
+				@Override
+				public Thread newThread(Runnable r){
+					Thread t = new Thread(r, "RenderMetrics-Dump");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+
+		this.dump = this.dumper.scheduleAtFixedRate(new Runnable(){
+			@Override
+			public void run(){
+				String report = RenderMetrics.this.report();
+				if(file==null){
+					System.out.print(report);
+					return;
+				}
+
+				try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+					out.println(System.currentTimeMillis());
+					out.print(report);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}, period, period, unit);
+	}
+
+	/**
+	 * Stops the periodic dump of the report, if one has been started.
+	 */
+	public synchronized void stopPeriodicDump(){
+		if(this.dump!=null){
+			this.dump.cancel(false);
+			this.dump = null;
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package io.graphics;
+
+/**
+ * The measured phases of rendering a frame.
+ *
+ * @author Maxmanski
+ */
+public enum RenderPhase {
+
+	/**
+	 * Fetching the Graphics of the back buffer.
+	 */
+	ACQUIRE,
+
+	/**
+	 * Clearing the back buffer.
+	 */
+	CLEAR,
+
+	/**
+	 * Drawing every Drawable of the frame.
+	 */
+	DRAW,
+
+	/**
+	 * Showing (presenting) the back buffer.
+	 */
+	SHOW,
+
+	/**
+	 * The time between two presented frames.
+	 */
+	FRAME_INTERVAL
+}
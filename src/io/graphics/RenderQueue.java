@@ -0,0 +1,261 @@
+package io.graphics;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A RenderQueue collects the Drawables of a frame together with a layer and a z-key and sorts them
+ * into drawing order: by layer first, then by the sprite sheet they are drawn from, then by z.<br>
+ * This way, consecutive Drawables using the same sprite sheet are drawn back-to-back.
+ * Drawables with equal keys stay in the order they were submitted.<br>
+ * <br>
+ * The queue sorts with a radix sort and reuses its arrays, so once it has grown to the usual amount of
+ * Drawables per frame, submitting and sorting do not allocate anything.<br>
+ * A RenderQueue is not thread-safe.
+ *
+ * @author Maxmanski
+ */
+public class RenderQueue {
+
+	/**
+	 * The highest layer which can be used. Layers are drawn in ascending order.
+	 */
+	public static final int MAX_LAYER = 255;
+
+	/**
+	 * The highest sprite sheet ID which is sorted separately. Higher IDs share the last bucket.
+	 */
+	public static final int MAX_SHEET = (1<<24)-1;
+
+	private Drawable[] items;
+	private long[] keys, tmpKeys;
+	private int[] order, tmpOrder;
+	private final int[] counts;
+	private final LayeredList sortedView;
+	private int size;
+	private boolean sorted;
+
+	/**
+	 * Creates a new, empty RenderQueue.
+	 */
+	public RenderQueue(){
+		this(256);
+	}
+
+	/**
+	 * Creates a new, empty RenderQueue with room for the specified amount of Drawables.
+	 *
+	 * @param capacity The initial capacity. Must be greater than 0.
+	 */
+	public RenderQueue(int capacity){
+		if(capacity<=0){
+			throw new IllegalArgumentException("The capacity must not be <= 0!");
+		}
+
+		this.items = new Drawable[capacity];
+		this.keys = new long[capacity];
+		this.tmpKeys = new long[capacity];
+		this.order = new int[capacity];
+		this.tmpOrder = new int[capacity];
+		this.counts = new int[256];
+		this.size = 0;
+		this.sorted = true;
+
+		this.sortedView = new SortedView();
+	}
+
+	/**
+	 * Submits the specified Drawable to the specified layer.<br>
+	 * If the Drawable is a Sprite, the sheet ID of its Animation is used for batching.
+	 *
+	 * @param d The Drawable to be submitted
+	 * @param layer The layer of the Drawable (between 0 and MAX_LAYER)
+	 * @param z The z-key of the Drawable within its layer and sheet. Lower values are drawn first.
+	 */
+	public void submit(Drawable d, int layer, int z){
+		int sheet = 0;
+		if(d instanceof Sprite){
+			sheet = ((Sprite) d).getAnimation().getSheetId();
+		}
+		this.submit(d, layer, sheet, z);
+	}
+
+	/**
+	 * Submits the specified Drawable to the specified layer with an explicit sprite sheet ID.
+	 *
+	 * @param d The Drawable to be submitted
+	 * @param layer The layer of the Drawable (between 0 and MAX_LAYER)
+	 * @param sheet The sheet ID used for batching, e.g. Animation.getSheetId(). 0 means no sheet.
+	 * @param z The z-key of the Drawable within its layer and sheet. Lower values are drawn first.
+	 */
+	public void submit(Drawable d, int layer, int sheet, int z){
+		if(d==null){
+			throw new IllegalArgumentException("The Drawable cannot be null!");
+		}
+		if(layer<0 || layer>MAX_LAYER){
+			throw new IllegalArgumentException("The layer must be between 0 and " + MAX_LAYER + "!");
+		}
+
+		if(this.size==this.items.length){
+			this.grow();
+		}
+
+		sheet = Math.max(0, Math.min(MAX_SHEET, sheet));
+		// flipping the sign bit makes negative z-keys sort before positive ones
+		this.keys[this.size] = ((long) layer << 56) | ((long) sheet << 32) | ((z ^ 0x80000000) & 0xFFFFFFFFL);
+		this.order[this.size] = this.size;
+		this.items[this.size] = d;
+		this.size++;
+		this.sorted = false;
+	}
+
+	/**
+	 * Sorts the submitted Drawables into drawing order.<br>
+	 * Calling this method again without submitting new Drawables does nothing.
+	 */
+	public void sort(){
+		if(this.sorted){
+			return;
+		}
+
+		long[] k = this.keys, tk = this.tmpKeys, swapK;
+		int[] o = this.order, to = this.tmpOrder, swapO;
+		int[] c = this.counts;
+		int n = this.size, shift, digit, sum, tmp;
+		long first;
+
+		// least significant digit first, passes in which every key has the same digit are skipped
+		for(shift=0; shift<64; shift+=8){
+			Arrays.fill(c, 0);
+			first = (k[0]>>>shift) & 0xFF;
+			boolean trivial = true;
+			for(int i=0; i<n; i++){
+				digit = (int)((k[i]>>>shift) & 0xFF);
+				c[digit]++;
+				if(digit!=first){
+					trivial = false;
+				}
+			}
+			if(trivial){
+				continue;
+			}
+
+			sum = 0;
+			for(int i=0; i<256; i++){
+				tmp = c[i];
+				c[i] = sum;
+				sum += tmp;
+			}
+			for(int i=0; i<n; i++){
+				digit = (int)((k[i]>>>shift) & 0xFF);
+				tk[c[digit]] = k[i];
+				to[c[digit]] = o[i];
+				c[digit]++;
+			}
+
+			swapK=k; k=tk; tk=swapK;
+			swapO=o; o=to; to=swapO;
+		}
+
+		this.keys=k; this.tmpKeys=tk;
+		this.order=o; this.tmpOrder=to;
+		this.sorted = true;
+	}
+
+	/**
+	 * Returns the Drawable at the specified position in drawing order.<br>
+	 * The queue is sorted first, if necessary.
+	 *
+	 * @param index The position in drawing order
+	 * @return The Drawable at the specified position
+	 */
+	public Drawable get(int index){
+		if(index<0 || index>=this.size){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+
+		this.sort();
+		return this.items[this.order[index]];
+	}
+
+	/**
+	 * Returns the layer of the Drawable at the specified position in drawing order.
+	 *
+	 * @param index The position in drawing order
+	 * @return The layer of the Drawable at the specified position
+	 */
+	public int getLayer(int index){
+		if(index<0 || index>=this.size){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+
+		this.sort();
+		return (int)(this.keys[index]>>>56);
+	}
+
+	/**
+	 * Returns a read-only view of the submitted Drawables in drawing order.<br>
+	 * The view reflects later changes of the queue.
+	 *
+	 * @return The Drawables in drawing order
+	 */
+	public List<Drawable> asList(){
+		this.sort();
+		return this.sortedView;
+	}
+
+	/**
+	 * Returns the amount of submitted Drawables.
+	 *
+	 * @return The size of the queue
+	 */
+	public int size(){
+		return this.size;
+	}
+
+	/**
+	 * Removes every submitted Drawable, so the queue can be filled for the next frame.<br>
+	 * The arrays of the queue are kept.
+	 */
+	public void clear(){
+		Arrays.fill(this.items, 0, this.size, null);
+		this.size = 0;
+		this.sorted = true;
+	}
+
+	/**
+	 * The read-only view of the queue in drawing order.
+	 */
+	private class SortedView extends AbstractList<Drawable> implements LayeredList {
+
+		@Override
+		public Drawable get(int index){
+			return RenderQueue.this.get(index);
+		}
+
+		@Override
+		public int size(){
+			return RenderQueue.this.size;
+		}
+
+		@Override
+		public boolean hasLayers(){
+			return true;
+		}
+
+		@Override
+		public int getLayer(int index){
+			return RenderQueue.this.getLayer(index);
+		}
+	}
+
+	private void grow(){
+		int capacity = 2*this.items.length;
+		this.items = Arrays.copyOf(this.items, capacity);
+		this.keys = Arrays.copyOf(this.keys, capacity);
+		this.tmpKeys = new long[capacity];
+		this.order = Arrays.copyOf(this.order, capacity);
+		this.tmpOrder = new int[capacity];
+	}
+}
@@ -0,0 +1,30 @@
+package io.graphics;
+
+import java.util.List;
+
+/**
+ * A RenderTarget is something a list of Drawables can be drawn onto, like the window of the GameFrame
+ * or the image of a HeadlessFrame.
+ *
+ * @author Maxmanski
+ */
+public interface RenderTarget {
+
+	/**
+	 * Draws the specified Drawables with the current scale factors of the target.
+	 *
+	 * @param drawList The Drawables to be drawn in drawing order
+	 * @throws DeadInstanceException If the target has already been disposed of
+	 */
+	public void draw(List<Drawable> drawList) throws DeadInstanceException;
+
+	/**
+	 * Draws the specified Drawables with the specified scale factors.
+	 *
+	 * @param drawList The Drawables to be drawn in drawing order
+	 * @param scaleX The horizontal scale factor from logical to target coordinates
+	 * @param scaleY The vertical scale factor from logical to target coordinates
+	 * @throws DeadInstanceException If the target has already been disposed of
+	 */
+	public void draw(List<Drawable> drawList, double scaleX, double scaleY) throws DeadInstanceException;
+}
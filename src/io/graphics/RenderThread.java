@@ -0,0 +1,134 @@
+package io.graphics;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The RenderThread takes the frames published through a FrameHandoff and renders them onto the GameFrame.<br>
+ * While it is running, it is the only Thread drawing onto the BufferStrategy of the GameFrame.<br>
+ * If rendering a frame fails, the RenderThread stops and keeps the exception until the Thread publishing the frames
+ * takes it (see takeFailure), so the failure is reported where the frames come from.
+ *
+ * @author Maxmanski
+ */
+class RenderThread implements Runnable {
+
+	private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+	private final GameFrame frame;
+	private final FrameHandoff handoff;
+	private volatile boolean running;
+	private volatile Thread thread;
+	private final AtomicReference<RuntimeException> failure;
+
+	/**
+	 * Creates a new RenderThread which renders the frames of the specified FrameHandoff onto the specified GameFrame.
+	 *
+	 * @param frame The GameFrame to be drawn onto
+	 * @param handoff The FrameHandoff delivering the frames
+	 */
+	RenderThread(GameFrame frame, FrameHandoff handoff){
+		this.frame=frame;
+		this.handoff=handoff;
+		this.running=false;
+		this.failure=new AtomicReference<>();
+	}
+
+	/**
+	 * Starts rendering in a new daemon Thread.
+	 */
+	synchronized void start(){
+		if(this.running){
+			return;
+		}
+
+		this.running=true;
+		Thread t = new Thread(this, "GameFrame-Renderer");
+		t.setDaemon(true);
+		this.thread=t;
+		t.start();
+	}
+
+	/**
+	 * Stops rendering and waits until the current frame has been finished.
+	 */
+	void stop(){
+		Thread t;
+		synchronized(this){
+			this.running=false;
+			t=this.thread;
+			this.thread=null;
+		}
+
+		if(t!=null && t!=Thread.currentThread()){
+			LockSupport.unpark(t);
+			boolean interrupted=false;
+			while(t.isAlive()){
+				try {
+					t.join();
+				} catch (InterruptedException e) {
+					interrupted=true;
+				}
+			}
+			if(interrupted){
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Checks if this RenderThread is currently running.
+	 *
+	 * @return TRUE, if running. FALSE otherwise.
+	 */
+	boolean isRunning(){
+		return this.running;
+	}
+
+	/**
+	 * Returns the exception which made the render Thread stop and forgets it, so it is only reported once.
+	 *
+	 * @return The exception thrown while rendering or NULL, if rendering has not failed
+	 */
+	RuntimeException takeFailure(){
+		return this.failure.getAndSet(null);
+	}
+
+	/**
+	 * Wakes the render Thread up, if it is waiting for a new frame.
+	 */
+	void wakeUp(){
+		Thread t = this.thread;
+		if(t!=null){
+			LockSupport.unpark(t);
+		}
+	}
+
+	@Override
+	public void run(){
+		List<Drawable> drawList;
+
+		while(this.running){
+			drawList = this.handoff.take();
+			if(drawList==null){
+				LockSupport.parkNanos(this, IDLE_NANOS);
+				continue;
+			}
+
+			try {
+				this.frame.renderFrame(drawList);
+			} catch (RuntimeException e) {
+				this.failure.set(e);
+				synchronized(this){
+					if(this.thread==Thread.currentThread()){
+						this.running=false;
+						this.thread=null;
+					}
+				}
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,389 @@
+package io.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ScaledSpriteCache holds animation steps pre-scaled to the current output scale of the GameFrame
+ * as images compatible with the screen, so drawing them is a plain 1:1 blit instead of a scaled one.<br>
+ * <br>
+ * Scaled images are created in a background Thread: the first request of an image returns NULL and the
+ * caller has to draw the unscaled image itself for that frame. When the scale changes, the images which
+ * were cached at the old scale are scaled again in the background, most recently used first. Other images are only
+ * scaled when they are requested again.<br>
+ * The cache holds at most as many bytes as its memory budget allows, the least recently used images are evicted first.
+ * An evicted image is not scaled again right away, but only after a back-off which doubles with every eviction,
+ * so a working set larger than the budget does not keep the builder busy.<br>
+ * <br>
+ * Requests of images which are cached, pending or backing off do not lock the cache, so the render Thread
+ * and the game Thread never wait for each other or for the builder.<br>
+ * <br>
+ * The unscaled images are only referenced weakly: the cache does not keep an image alive which is not used anywhere
+ * else (e.g. after the ImageLoader has evicted it). Entries of collected images are removed together with their
+ * scaled copies the next time the cache is changed.
+ *
+ * @author Maxmanski
+ */
+public class ScaledSpriteCache {
+
+	private static final long MIN_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+	private static volatile ScaledSpriteCache instance;
+
+	private final ReferenceQueue<BufferedImage> collected;
+	private final ExecutorService builder;
+	private volatile Generation current;
+	private long budget, used;
+
+	/*
+	 * Singleton-Pattern
+	 */
+	private ScaledSpriteCache(){
+		this.collected = new ReferenceQueue<>();
+		this.builder = Executors.newSingleThreadExecutor(new ThreadFactory(){
+			@Override
+			public Thread newThread(Runnable r){
+				Thread t = new Thread(r, "ScaledSpriteCache-Builder");
+				t.setDaemon(true);
+				t.setPriority(Thread.MIN_PRIORITY);
+				return t;
+			}
+		});
+		this.current = new Generation(1.0, 1.0);
+		this.budget = 64L*1024*1024;
+		this.used = 0;
+	}
+
+	/**
+	 * Returns the instance of the ScaledSpriteCache.
+	 *
+	 * @return The ScaledSpriteCache
+	 */
+	public static ScaledSpriteCache getInstance(){
+		ScaledSpriteCache result = instance;
+		if(result==null){
+			synchronized(ScaledSpriteCache.class){
+				if(instance==null){
+					instance = new ScaledSpriteCache();
+				}
+				result = instance;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the specified image scaled by the specified factors, if it is cached.<br>
+	 * If it is not cached yet and the factors equal the current scale of the cache, it will be created
+	 * in the background, unless it has been evicted recently. In any case of a miss, NULL is returned.
+	 *
+	 * @param image The unscaled image
+	 * @param scaleX The horizontal scale factor
+	 * @param scaleY The vertical scale factor
+	 * @return The scaled image or NULL, if it is not available (yet).
+	 */
+	public BufferedImage get(BufferedImage image, double scaleX, double scaleY){
+		Generation gen = this.current;
+		if(scaleX!=gen.scaleX || scaleY!=gen.scaleY){
+			return null;
+		}
+
+		long now = System.nanoTime();
+		Entry e = gen.entries.get(new Key(image, null));
+		if(e!=null){
+			BufferedImage result = e.scaled;
+			if(result!=null){
+				e.lastUse = now;
+				return result;
+			}
+			if(e.pending || now-e.retryAt<0){
+				return null;
+			}
+		}
+		this.request(gen, image, now);
+		return null;
+	}
+
+	/**
+	 * Sets the scale the cached images are scaled to.<br>
+	 * If the scale changes, the cache is cleared and the images cached before are scaled again in the background.
+	 *
+	 * @param scaleX The new horizontal scale factor
+	 * @param scaleY The new vertical scale factor
+	 */
+	public synchronized void setScale(double scaleX, double scaleY){
+		Generation old = this.current;
+		if(scaleX==old.scaleX && scaleY==old.scaleY){
+			return;
+		}
+
+		// only the images cached at the old scale are scaled again, the most recently used first
+		List<Entry> cached = new ArrayList<>();
+		for(Entry e: old.entries.values()){
+			if(e.scaled!=null){
+				// the time of the last use is copied, as it may change while sorting
+				e.sortKey = e.lastUse;
+				cached.add(e);
+			}
+		}
+		Collections.sort(cached, Entry.MOST_RECENT_FIRST);
+
+		this.clear();
+		Generation gen = new Generation(scaleX, scaleY);
+		this.current = gen;
+		for(Entry c: cached){
+			BufferedImage img = c.key.get();
+			if(img!=null){
+				Entry e = new Entry(new Key(img, this.collected));
+				gen.entries.put(e.key, e);
+				this.schedule(gen, e);
+			}
+		}
+	}
+
+	/**
+	 * Sets the maximum amount of bytes the scaled images may occupy.<br>
+	 * If the cache is larger, the least recently used images are evicted immediately.
+	 *
+	 * @param bytes The memory budget in bytes
+	 */
+	public synchronized void setMemoryBudget(long bytes){
+		if(bytes<0){
+			throw new IllegalArgumentException("The memory budget must not be < 0!");
+		}
+		this.budget = bytes;
+		this.evict(this.current);
+	}
+
+	/**
+	 * Returns the amount of bytes currently occupied by the scaled images.
+	 *
+	 * @return The used memory in bytes
+	 */
+	public synchronized long getUsedMemory(){
+		return this.used;
+	}
+
+	/**
+	 * Removes every scaled image from the cache and forgets the back-off of evicted images.
+	 * The images will be scaled again when they are requested the next time.
+	 */
+	public synchronized void clear(){
+		Generation old = this.current;
+		for(Entry e: old.entries.values()){
+			if(e.scaled!=null){
+				e.scaled.flush();
+			}
+		}
+		this.used = 0;
+		// builders of the old generation notice the replacement and discard their results
+		this.current = new Generation(old.scaleX, old.scaleY);
+		while(this.collected.poll()!=null){
+			// the keys of the old generation are gone anyway
+		}
+	}
+
+	/**
+	 * Removes the entries of collected images from the current generation, together with their scaled copies.
+	 */
+	private void prune(){
+		Generation gen = this.current;
+		Reference<? extends BufferedImage> ref;
+		while((ref = this.collected.poll())!=null){
+			Entry e = gen.entries.remove(ref);
+			if(e!=null && e.scaled!=null){
+				this.used -= ScaledSpriteCache.sizeOf(e.scaled);
+				e.scaled.flush();
+				e.scaled = null;
+			}
+		}
+	}
+
+	/**
+	 * Schedules the image for scaling unless it is already pending, cached or backing off.
+	 */
+	private synchronized void request(Generation gen, BufferedImage image, long now){
+		if(gen!=this.current){
+			return;
+		}
+
+		this.prune();
+		Entry e = gen.entries.get(new Key(image, null));
+		if(e==null){
+			e = new Entry(new Key(image, this.collected));
+			gen.entries.put(e.key, e);
+		}else if(e.pending || e.scaled!=null || now-e.retryAt<0){
+			return;
+		}
+		this.schedule(gen, e);
+	}
+
+	private void schedule(final Generation gen, final Entry e){
+		e.pending = true;
+		this.builder.execute(new Runnable(){
+			@Override
+			public void run(){
+				if(gen!=ScaledSpriteCache.this.current){
+					return;
+				}
+
+				BufferedImage source = e.key.get();
+				BufferedImage result = (source!=null) ? ScaledSpriteCache.scale(source, gen.scaleX, gen.scaleY) : null;
+				ScaledSpriteCache.this.store(gen, e, result);
+			}
+		});
+	}
+
+	private synchronized void store(Generation gen, Entry e, BufferedImage result){
+		this.prune();
+		if(gen!=this.current || gen.entries.get(e.key)!=e || result==null){
+			// replaced, or the unscaled image has been collected in the meantime
+			e.pending = false;
+			if(result!=null){
+				result.flush();
+			}
+			return;
+		}
+
+		e.lastUse = System.nanoTime();
+		e.scaled = result;
+		e.pending = false;
+		this.used += ScaledSpriteCache.sizeOf(result);
+		this.evict(gen);
+	}
+
+	/**
+	 * Evicts the least recently used images until the cache fits into its budget.
+	 */
+	private void evict(Generation gen){
+		if(this.used<=this.budget){
+			return;
+		}
+
+		List<Entry> cached = new ArrayList<>();
+		for(Entry e: gen.entries.values()){
+			if(e.scaled!=null){
+				// the time of the last use is copied, as it may change while sorting
+				e.sortKey = e.lastUse;
+				cached.add(e);
+			}
+		}
+		Collections.sort(cached, Entry.MOST_RECENT_FIRST);
+
+		long now = System.nanoTime();
+		for(int i=cached.size()-1; i>=0 && this.used>this.budget; i--){
+			Entry e = cached.get(i);
+			BufferedImage img = e.scaled;
+			e.scaled = null;
+			e.backoff = (e.backoff==0) ? MIN_BACKOFF_NANOS : Math.min(2*e.backoff, MAX_BACKOFF_NANOS);
+			e.retryAt = now+e.backoff;
+			this.used -= ScaledSpriteCache.sizeOf(img);
+			img.flush();
+		}
+	}
+
+	/**
+	 * Estimates the amount of bytes occupied by the pixels of the specified image.
+	 */
+	static long sizeOf(BufferedImage img){
+		int bits = img.getColorModel().getPixelSize();
+		return (long) img.getWidth() * img.getHeight() * Math.max(1, (bits+7)/8);
+	}
+
+	/**
+	 * Creates a copy of the specified image scaled by the specified factors, compatible with the screen.
+	 */
+	private static BufferedImage scale(BufferedImage image, double scaleX, double scaleY){
+		int w = Math.max(1, (int)Math.round(image.getWidth()*scaleX));
+		int h = Math.max(1, (int)Math.round(image.getHeight()*scaleY));
+		BufferedImage result = CompatibleImages.create(w, h, image.getTransparency());
+
+		Graphics2D g = result.createGraphics();
+		g.drawImage(image, 0, 0, w, h, null);
+		g.dispose();
+		return result;
+	}
+
+	/**
+	 * The images scaled to one scale. Replacing the current generation discards every result of its builders.
+	 */
+	private static final class Generation {
+
+		private final double scaleX, scaleY;
+		private final ConcurrentHashMap<Key, Entry> entries;
+
+		private Generation(double scaleX, double scaleY){
+			this.scaleX = scaleX;
+			this.scaleY = scaleY;
+			this.entries = new ConcurrentHashMap<>();
+		}
+	}
+
+	/**
+	 * The state of a single requested image: pending, cached or evicted and backing off.<br>
+	 * The state is only changed while holding the lock of the cache, but read without it.
+	 */
+	private static final class Entry {
+
+		private static final Comparator<Entry> MOST_RECENT_FIRST = new Comparator<Entry>(){
+			@Override
+			public int compare(Entry a, Entry b){
+				return Long.compare(b.sortKey-a.sortKey, 0);
+			}
+		};
+
+		private final Key key;
+		private volatile BufferedImage scaled;
+		private volatile boolean pending;
+		private volatile long lastUse, retryAt;
+		private long backoff, sortKey;
+
+		private Entry(Key key){
+			this.key = key;
+		}
+	}
+
+	/**
+	 * A weak reference to an unscaled image, which is equal to every Key referencing the same image.<br>
+	 * Keys used for lookups are not registered at a queue, keys of entries are enqueued when their image has been collected.
+	 */
+	private static final class Key extends WeakReference<BufferedImage> {
+
+		private final int hash;
+
+		private Key(BufferedImage image, ReferenceQueue<BufferedImage> queue){
+			super(image, queue);
+			this.hash = System.identityHashCode(image);
+		}
+
+		@Override
+		public boolean equals(Object other){
+			if(this==other){
+				return true;
+			}
+			if(!(other instanceof Key)){
+				return false;
+			}
+			BufferedImage image = this.get();
+			return image!=null && image==((Key) other).get();
+		}
+
+		@Override
+		public int hashCode(){
+			return this.hash;
+		}
+	}
+}
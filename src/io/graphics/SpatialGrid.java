@@ -0,0 +1,285 @@
+package io.graphics;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A SpatialGrid is a spatial index which divides a rectangular world into a uniform grid of cells.<br>
+ * Every contained BoundedDrawable is registered in all cells its area overlaps, so the Drawables
+ * in a rectangle (e.g. the visible part of the world) can be found without checking all of them.<br>
+ * Drawables outside of the world are registered in the nearest border cells.<br>
+ * <br>
+ * The cells of a Drawable have to be updated after it was moved. Sprites which are added to a grid
+ * do this automatically, for other Drawables update has to be called. A Sprite can only be contained by
+ * one grid at a time.<br>
+ * Queries return the Drawables in the order they were added, so the grid can be used as draw list.<br>
+ * A SpatialGrid is not thread-safe.
+ *
+ * @author Maxmanski
+ */
+public class SpatialGrid {
+
+	/**
+	 * A registered Drawable and the range of cells it is registered in.
+	 */
+	private static final class Entry {
+		private final BoundedDrawable drawable;
+		private final int order;
+		private int cx1, cy1, cx2, cy2;
+		private int stamp;
+
+		private Entry(BoundedDrawable drawable, int order){
+			this.drawable=drawable;
+			this.order=order;
+		}
+	}
+
+	private final int columns, rows, cellSize;
+	private final boolean trackSprites;
+	private final ArrayList<Entry>[] cells;
+	private final IdentityHashMap<BoundedDrawable, Entry> entries;
+	private int nextOrder, queryStamp;
+	private Entry[] found;
+	private long[] sortKeys;
+
+	/**
+	 * Creates a new, empty SpatialGrid covering the area from (0,0) to (worldWidth,worldHeight).
+	 *
+	 * @param worldWidth The width of the world. Must be greater than 0.
+	 * @param worldHeight The height of the world. Must be greater than 0.
+	 * @param cellSize The width and height of a single cell. Must be greater than 0.
+	 * 				A good value is about the size of the larger Drawables.
+	 */
+	public SpatialGrid(int worldWidth, int worldHeight, int cellSize){
+		this(worldWidth, worldHeight, cellSize, true);
+	}
+
+	/**
+	 * Creates a new, empty SpatialGrid which may leave the updates of its Sprites to its owner (see StaticLayer).
+	 *
+	 * @param worldWidth The width of the world. Must be greater than 0.
+	 * @param worldHeight The height of the world. Must be greater than 0.
+	 * @param cellSize The width and height of a single cell. Must be greater than 0.
+	 * @param trackSprites TRUE, if added Sprites should update their cells themselves. FALSE, if the owner of the grid does it.
+	 */
+	@SuppressWarnings("unchecked")
+	SpatialGrid(int worldWidth, int worldHeight, int cellSize, boolean trackSprites){
+		if(worldWidth<=0 || worldHeight<=0 || cellSize<=0){
+			throw new IllegalArgumentException("The world size and cell size must not be <= 0!");
+		}
+
+		this.cellSize = cellSize;
+		this.trackSprites = trackSprites;
+		this.columns = (worldWidth+cellSize-1)/cellSize;
+		this.rows = (worldHeight+cellSize-1)/cellSize;
+		this.cells = (ArrayList<Entry>[]) new ArrayList<?>[this.columns*this.rows];
+		for(int i=0; i<this.cells.length; i++){
+			this.cells[i] = new ArrayList<>(4);
+		}
+
+		this.entries = new IdentityHashMap<>();
+		this.nextOrder = 0;
+		this.queryStamp = 0;
+		this.found = new Entry[64];
+		this.sortKeys = new long[64];
+	}
+
+	/**
+	 * Adds the specified Drawable to this grid.<br>
+	 * If the Drawable is a Sprite, it will keep its cells up to date when it is moved.
+	 *
+	 * @param d The Drawable to be added. A Sprite cannot be contained by another grid.
+	 * @return TRUE, if the Drawable was added. FALSE, if it was already contained.
+	 */
+	public boolean add(BoundedDrawable d){
+		if(d==null){
+			throw new IllegalArgumentException("The Drawable cannot be null!");
+		}
+		if(this.entries.containsKey(d)){
+			return false;
+		}
+		if(this.trackSprites && d instanceof Sprite && ((Sprite) d).getSpatialGrid()!=null){
+			throw new IllegalArgumentException("The Sprite is already contained by another SpatialGrid!");
+		}
+
+		Entry e = new Entry(d, this.nextOrder++);
+		this.entries.put(d, e);
+		this.computeCells(e);
+		this.register(e);
+
+		if(this.trackSprites && d instanceof Sprite){
+			((Sprite) d).setSpatialGrid(this);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the specified Drawable from this grid.
+	 *
+	 * @param d The Drawable to be removed
+	 * @return TRUE, if the Drawable was removed. FALSE, if it was not contained.
+	 */
+	public boolean remove(BoundedDrawable d){
+		Entry e = this.entries.remove(d);
+		if(e==null){
+			return false;
+		}
+
+		this.unregister(e);
+		if(d instanceof Sprite && ((Sprite) d).getSpatialGrid()==this){
+			((Sprite) d).setSpatialGrid(null);
+		}
+		return true;
+	}
+
+	/**
+	 * Moves the specified Drawable to the cells covered by its current area.<br>
+	 * This has to be called after a Drawable which is not a Sprite was moved or resized.
+	 * If the covered cells did not change, nothing is done.
+	 *
+	 * @param d The Drawable which has moved
+	 */
+	public void update(BoundedDrawable d){
+		Entry e = this.entries.get(d);
+		if(e==null){
+			return;
+		}
+
+		int cx1=e.cx1, cy1=e.cy1, cx2=e.cx2, cy2=e.cy2;
+		this.computeCells(e);
+		if(cx1==e.cx1 && cy1==e.cy1 && cx2==e.cx2 && cy2==e.cy2){
+			return;
+		}
+
+		int nx1=e.cx1, ny1=e.cy1, nx2=e.cx2, ny2=e.cy2;
+		e.cx1=cx1; e.cy1=cy1; e.cx2=cx2; e.cy2=cy2;
+		this.unregister(e);
+		e.cx1=nx1; e.cy1=ny1; e.cx2=nx2; e.cy2=ny2;
+		this.register(e);
+	}
+
+	/**
+	 * Checks if the specified Drawable is contained by this grid.
+	 *
+	 * @param d The Drawable to be checked
+	 * @return TRUE, if it is contained. FALSE otherwise.
+	 */
+	public boolean contains(BoundedDrawable d){
+		return this.entries.containsKey(d);
+	}
+
+	/**
+	 * Returns the amount of Drawables contained by this grid.
+	 *
+	 * @return The amount of contained Drawables
+	 */
+	public int size(){
+		return this.entries.size();
+	}
+
+	/**
+	 * Adds every contained Drawable whose area intersects the specified rectangle to the specified list,
+	 * in the order in which they were added to this grid.<br>
+	 * Drawables in cells outside of the rectangle are not touched at all.
+	 *
+	 * @param area The rectangle to be searched
+	 * @param result The list the found Drawables are appended to
+	 * @return The amount of found Drawables
+	 */
+	public int query(Rectangle area, List<? super BoundedDrawable> result){
+		return this.query(area.x, area.y, area.width, area.height, result);
+	}
+
+	/**
+	 * Adds every contained Drawable whose area intersects the specified rectangle to the specified list,
+	 * in the order in which they were added to this grid.<br>
+	 * Drawables in cells outside of the rectangle are not touched at all.
+	 *
+	 * @param x The X coordinate of the rectangle
+	 * @param y The Y coordinate of the rectangle
+	 * @param width The width of the rectangle
+	 * @param height The height of the rectangle
+	 * @param result The list the found Drawables are appended to
+	 * @return The amount of found Drawables
+	 */
+	public int query(int x, int y, int width, int height, List<? super BoundedDrawable> result){
+		if(width<=0 || height<=0){
+			return 0;
+		}
+
+		int cx1 = this.column(x), cx2 = this.column(x+width-1);
+		int cy1 = this.row(y), cy2 = this.row(y+height-1);
+		int n = 0, stamp = ++this.queryStamp;
+		ArrayList<Entry> cell;
+		Entry e;
+		BoundedDrawable d;
+
+		for(int cy=cy1; cy<=cy2; cy++){
+			for(int cx=cx1; cx<=cx2; cx++){
+				cell = this.cells[cy*this.columns+cx];
+				for(int i=0, size=cell.size(); i<size; i++){
+					e = cell.get(i);
+					if(e.stamp==stamp){
+						continue;
+					}
+					e.stamp = stamp;
+
+					d = e.drawable;
+					if(d.getX()>=x+width || d.getX()+d.getWidth()<=x || d.getY()>=y+height || d.getY()+d.getHeight()<=y){
+						continue;
+					}
+
+					if(n==this.found.length){
+						this.found = Arrays.copyOf(this.found, 2*n);
+						this.sortKeys = Arrays.copyOf(this.sortKeys, 2*n);
+					}
+					this.found[n] = e;
+					this.sortKeys[n] = ((long) e.order << 32) | n;
+					n++;
+				}
+			}
+		}
+
+		Arrays.sort(this.sortKeys, 0, n);
+		for(int i=0; i<n; i++){
+			result.add(this.found[(int) this.sortKeys[i]].drawable);
+			this.found[(int) this.sortKeys[i]] = null;
+		}
+		return n;
+	}
+
+	private int column(int x){
+		return x<0 ? 0 : Math.min(this.columns-1, x/this.cellSize);
+	}
+
+	private int row(int y){
+		return y<0 ? 0 : Math.min(this.rows-1, y/this.cellSize);
+	}
+
+	private void computeCells(Entry e){
+		BoundedDrawable d = e.drawable;
+		e.cx1 = this.column(d.getX());
+		e.cy1 = this.row(d.getY());
+		e.cx2 = this.column(d.getX()+Math.max(1, d.getWidth())-1);
+		e.cy2 = this.row(d.getY()+Math.max(1, d.getHeight())-1);
+	}
+
+	private void register(Entry e){
+		for(int cy=e.cy1; cy<=e.cy2; cy++){
+			for(int cx=e.cx1; cx<=e.cx2; cx++){
+				this.cells[cy*this.columns+cx].add(e);
+			}
+		}
+	}
+
+	private void unregister(Entry e){
+		for(int cy=e.cy1; cy<=e.cy2; cy++){
+			for(int cx=e.cx1; cx<=e.cx2; cx++){
+				this.cells[cy*this.columns+cx].remove(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,381 @@
+package io.graphics;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+/**
+ * A Sprite is a Drawable which shows an Animation at a position on the 2D plane.<br>
+ * Its size is the size of a single animation step. Trimmed animation steps are drawn at their offset within this area (see FrameSet).<br>
+ * <br>
+ * The Animation of a Sprite is only advanced by calling nextFrame, drawing it always shows the current step.
+ * This way, a Sprite knows when its appearance changes: if it is assigned to a DirtyRegions set, every
+ * move and every change of the animation step marks the affected area as dirty.<br>
+ * If it is added to a SpatialGrid, every move updates its cells in the grid. If it is part of a StaticLayer,
+ * every move and every change of the animation step invalidates the affected cells of the layer. These changes are made
+ * while holding the lock of the layer, which renders its Sprites under the same lock on the render Thread.<br>
+ * The snapshot of a Sprite stores its position and its current animation step, so it can be drawn by the render Thread
+ * while the Sprite keeps moving and animating.
+ *
+ * @author Maxmanski
+ */
+public class Sprite implements BoundedDrawable {
+
+	private int x, y;
+	private Animation animation;
+	private BufferedImage image;
+	private AtlasRegion region;
+	private int offsetX, offsetY;
+	private DirtyRegions dirtyRegions;
+	private SpatialGrid grid;
+	private StaticLayer layer;
+	int frameStamp;
+
+	/**
+	 * Creates a new Sprite showing the specified Animation at the specified position.
+	 *
+	 * @param animation The Animation to be shown. Cannot be a NULL reference.
+	 * @param x The X coordinate of the upper left corner
+	 * @param y The Y coordinate of the upper left corner
+	 */
+	public Sprite(Animation animation, int x, int y){
+		if(animation==null){
+			throw new IllegalArgumentException("The Animation cannot be null!");
+		}
+
+		this.animation=animation;
+		this.show(animation.currentStep());
+		this.x=x;
+		this.y=y;
+	}
+
+	/**
+	 * Advances the Animation of this Sprite by calling its nextImage method.<br>
+	 * If the shown image changes, the area of this Sprite is marked as dirty.
+	 */
+	public void nextFrame(){
+		int step = this.animation.nextStep();
+		if(this.animation.getFrameSet().getFrame(step)!=this.image){
+			StaticLayer l = this.layer;
+			if(l==null){
+				this.show(step);
+				this.markDirty();
+				return;
+			}
+			synchronized(l){
+				this.show(step);
+				this.markDirty();
+				l.invalidate(this.x, this.y, this.getWidth(), this.getHeight());
+			}
+		}
+	}
+
+	/**
+	 * Replaces the Animation shown by this Sprite.<br>
+	 * The old and the new area of this Sprite are marked as dirty.
+	 *
+	 * @param animation The new Animation. Cannot be a NULL reference.
+	 */
+	public void setAnimation(Animation animation){
+		if(animation==null){
+			throw new IllegalArgumentException("The Animation cannot be null!");
+		}
+
+		StaticLayer l = this.layer;
+		if(l==null){
+			this.replaceAnimation(animation);
+			return;
+		}
+		synchronized(l){
+			int oldWidth=this.getWidth(), oldHeight=this.getHeight();
+			this.replaceAnimation(animation);
+			l.moved(this, this.x, this.y, oldWidth, oldHeight);
+		}
+	}
+
+	private void replaceAnimation(Animation animation){
+		this.markDirty();
+		this.animation=animation;
+		this.show(animation.currentStep());
+		this.markDirty();
+		if(this.grid!=null){
+			this.grid.update(this);
+		}
+	}
+
+	/**
+	 * Shows the specified step of the Animation, taking its frame, region and offsets from the same step.
+	 */
+	private void show(int step){
+		FrameSet frames = this.animation.getFrameSet();
+		this.image=frames.getFrame(step);
+		this.region=frames.getRegion(step);
+		this.offsetX=frames.getOffsetX(step);
+		this.offsetY=frames.getOffsetY(step);
+	}
+
+	/**
+	 * Returns the Animation shown by this Sprite.
+	 *
+	 * @return The current Animation
+	 */
+	public Animation getAnimation(){
+		return this.animation;
+	}
+
+	/**
+	 * Assigns this Sprite to the specified DirtyRegions set, which will be notified about every change of this Sprite.<br>
+	 * The current area of this Sprite is marked as dirty in both the old and the new set.
+	 *
+	 * @param regions The DirtyRegions set to be notified or NULL, if changes should not be tracked.
+	 */
+	public void setDirtyRegions(DirtyRegions regions){
+		this.markDirty();
+		this.dirtyRegions=regions;
+		this.markDirty();
+	}
+
+	/**
+	 * Returns the DirtyRegions set this Sprite is assigned to.
+	 *
+	 * @return The assigned DirtyRegions set or NULL, if changes are not tracked.
+	 */
+	public DirtyRegions getDirtyRegions(){
+		return this.dirtyRegions;
+	}
+
+	/**
+	 * Sets the SpatialGrid to be updated whenever this Sprite moves.<br>
+	 * This is done by SpatialGrid.add and SpatialGrid.remove.
+	 * 
+	 * @param grid The SpatialGrid containing this Sprite or NULL
+	 */
+	void setSpatialGrid(SpatialGrid grid){
+		this.grid=grid;
+	}
+
+	/**
+	 * Returns the SpatialGrid this Sprite has been added to.
+	 *
+	 * @return The SpatialGrid containing this Sprite or NULL, if it is not contained by any grid.
+	 */
+	public SpatialGrid getSpatialGrid(){
+		return this.grid;
+	}
+
+	/**
+	 * Sets the StaticLayer to be invalidated whenever this Sprite changes.<br>
+	 * This is done by StaticLayer.add and StaticLayer.remove.
+	 *
+	 * @param layer The StaticLayer containing this Sprite or NULL
+	 */
+	void setStaticLayer(StaticLayer layer){
+		this.layer=layer;
+	}
+
+	/**
+	 * Returns the StaticLayer this Sprite is part of.
+	 *
+	 * @return The StaticLayer containing this Sprite or NULL, if it is not part of any layer.
+	 */
+	public StaticLayer getStaticLayer(){
+		return this.layer;
+	}
+
+	/**
+	 * Marks the current area of this Sprite as dirty, if it is assigned to a DirtyRegions set.
+	 */
+	public void markDirty(){
+		DirtyRegions regions = this.dirtyRegions;
+		if(regions!=null){
+			regions.add(this.x, this.y, this.getWidth(), this.getHeight());
+		}
+	}
+
+	/**
+	 * Returns the width of this Sprite.
+	 *
+	 * @return The width of a single animation step
+	 */
+	@Override
+	public int getWidth(){
+		return this.animation.getWidth();
+	}
+
+	/**
+	 * Returns the height of this Sprite.
+	 *
+	 * @return The height of a single animation step
+	 */
+	@Override
+	public int getHeight(){
+		return this.animation.getHeight();
+	}
+
+	@Override
+	public void draw(Graphics g){
+		Sprite.draw(g, this.image, this.region, this.x+this.offsetX, this.y+this.offsetY);
+	}
+
+	/**
+	 * Draws the current animation step scaled by the specified factors.<br>
+	 * If the ScaledSpriteCache holds a pre-scaled copy of the step, it is drawn instead, so no scaling is necessary.
+	 */
+	@Override
+	public void draw(Graphics g, double scaleX, double scaleY){
+		Sprite.draw(g, this.image, this.region, this.x+this.offsetX, this.y+this.offsetY, scaleX, scaleY);
+	}
+
+	/**
+	 * Returns an immutable copy of the position, the size and the current animation step of this Sprite.
+	 */
+	@Override
+	public Drawable snapshot(){
+		return new Snapshot(this);
+	}
+
+	/**
+	 * Returns the Sprite the specified Drawable shows, i.e. the Sprite itself or the Sprite a snapshot has been taken of.
+	 *
+	 * @param d The Drawable
+	 * @return The Sprite or NULL, if the Drawable does not show a Sprite
+	 */
+	static Sprite sourceOf(Drawable d){
+		if(d instanceof Sprite){
+			return (Sprite) d;
+		}
+		return (d instanceof Snapshot) ? ((Snapshot) d).source : null;
+	}
+
+	private static void draw(Graphics g, BufferedImage img, AtlasRegion r, int x, int y){
+		if(r!=null){
+			r.draw(g, x, y);
+			return;
+		}
+		g.drawImage(img, x, y, null);
+	}
+
+	private static void draw(Graphics g, BufferedImage img, AtlasRegion r, int x, int y, double scaleX, double scaleY){
+		int dx = (int)(x*scaleX), dy = (int)(y*scaleY);
+		int dw = (int)((x+img.getWidth())*scaleX)-dx, dh = (int)((y+img.getHeight())*scaleY)-dy;
+
+		if(scaleX!=1.0 || scaleY!=1.0){
+			BufferedImage scaled = ScaledSpriteCache.getInstance().get(img, scaleX, scaleY);
+			if(scaled!=null){
+				// the copy has been scaled to its rounded size already, stretching it to dw x dh would scale it again
+				g.drawImage(scaled, dx, dy, null);
+				return;
+			}
+		}
+		if(r!=null){
+			r.draw(g, dx, dy, dw, dh);
+		}else{
+			g.drawImage(img, dx, dy, dw, dh, null);
+		}
+	}
+
+	@Override
+	public int getX(){
+		return this.x;
+	}
+
+	@Override
+	public int getY(){
+		return this.y;
+	}
+
+	/**
+	 * Moves this Sprite by the specified distances.<br>
+	 * The old and the new area of this Sprite are marked as dirty and its cells in the SpatialGrid and the StaticLayer are updated.
+	 *
+	 * @param dx The distance on the X axis
+	 * @param dy The distance on the Y axis
+	 */
+	@Override
+	public void move(int dx, int dy){
+		if(dx==0 && dy==0){
+			return;
+		}
+
+		StaticLayer l = this.layer;
+		if(l==null){
+			this.translate(dx, dy);
+			return;
+		}
+		synchronized(l){
+			this.translate(dx, dy);
+			l.moved(this, this.x-dx, this.y-dy, this.getWidth(), this.getHeight());
+		}
+	}
+
+	private void translate(int dx, int dy){
+		this.markDirty();
+		this.x+=dx;
+		this.y+=dy;
+		this.markDirty();
+		if(this.grid!=null){
+			this.grid.update(this);
+		}
+	}
+
+	/**
+	 * The immutable state of a Sprite at the time its snapshot has been taken.
+	 */
+	private static final class Snapshot implements BoundedDrawable {
+
+		private final Sprite source;
+		private final int x, y, width, height;
+		private final int drawX, drawY;
+		private final BufferedImage image;
+		private final AtlasRegion region;
+
+		private Snapshot(Sprite s){
+			this.source=s;
+			this.x=s.x;
+			this.y=s.y;
+			this.width=s.getWidth();
+			this.height=s.getHeight();
+			this.drawX=s.x+s.offsetX;
+			this.drawY=s.y+s.offsetY;
+			this.image=s.image;
+			this.region=s.region;
+		}
+
+		@Override
+		public void draw(Graphics g){
+			Sprite.draw(g, this.image, this.region, this.drawX, this.drawY);
+		}
+
+		@Override
+		public void draw(Graphics g, double scaleX, double scaleY){
+			Sprite.draw(g, this.image, this.region, this.drawX, this.drawY, scaleX, scaleY);
+		}
+
+		@Override
+		public int getX(){
+			return this.x;
+		}
+
+		@Override
+		public int getY(){
+			return this.y;
+		}
+
+		@Override
+		public int getWidth(){
+			return this.width;
+		}
+
+		@Override
+		public int getHeight(){
+			return this.height;
+		}
+
+		/**
+		 * Snapshots cannot be moved, move the Sprite instead.
+		 */
+		@Override
+		public void move(int dx, int dy){
+			throw new UnsupportedOperationException("A snapshot of a Sprite cannot be moved");
+		}
+	}
+}
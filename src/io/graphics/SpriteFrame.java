@@ -0,0 +1,132 @@
+package io.graphics;
+
+/**
+ * A single frame of a SpriteSequence: the area of the packed sheet holding its pixels and how they are
+ * placed in the (untrimmed) frame.<br>
+ * Packed sheets usually store frames trimmed, i.e. without their transparent border. The trim offset is the
+ * position of the stored area within the untrimmed frame, so the stored area can be drawn at its place in the full frame.
+ * The pivot is the point of the untrimmed frame which should be placed at the position of the drawn object
+ * (e.g. the feet of a character).
+ *
+ * @author Maxmanski
+ */
+public final class SpriteFrame {
+
+	private final int x, y, width, height;
+	private final int trimX, trimY;
+	private final int pivotX, pivotY;
+	private final int duration;
+
+	/**
+	 * Creates a new SpriteFrame.
+	 *
+	 * @param x The X coordinate of the stored area in the sheet
+	 * @param y The Y coordinate of the stored area in the sheet
+	 * @param width The width of the stored area. Must be greater than 0.
+	 * @param height The height of the stored area. Must be greater than 0.
+	 * @param trimX The X coordinate of the stored area within the untrimmed frame
+	 * @param trimY The Y coordinate of the stored area within the untrimmed frame
+	 * @param pivotX The X coordinate of the pivot within the untrimmed frame
+	 * @param pivotY The Y coordinate of the pivot within the untrimmed frame
+	 * @param duration The time this frame is shown in milliseconds. Must be greater than 0.
+	 */
+	public SpriteFrame(int x, int y, int width, int height, int trimX, int trimY, int pivotX, int pivotY, int duration){
+		if(x<0 || y<0 || width<=0 || height<=0 || trimX<0 || trimY<0){
+			throw new IllegalArgumentException("The area of a frame must be positive and lie within the sheet and the frame!");
+		}
+		if(duration<=0){
+			throw new IllegalArgumentException("The duration of a frame must not be <= 0!");
+		}
+
+		this.x=x;
+		this.y=y;
+		this.width=width;
+		this.height=height;
+		this.trimX=trimX;
+		this.trimY=trimY;
+		this.pivotX=pivotX;
+		this.pivotY=pivotY;
+		this.duration=duration;
+	}
+
+	/**
+	 * Returns the X coordinate of the stored area in the sheet.
+	 *
+	 * @return The X coordinate
+	 */
+	public int getX(){
+		return this.x;
+	}
+
+	/**
+	 * Returns the Y coordinate of the stored area in the sheet.
+	 *
+	 * @return The Y coordinate
+	 */
+	public int getY(){
+		return this.y;
+	}
+
+	/**
+	 * Returns the width of the stored area.
+	 *
+	 * @return The width in pixels
+	 */
+	public int getWidth(){
+		return this.width;
+	}
+
+	/**
+	 * Returns the height of the stored area.
+	 *
+	 * @return The height in pixels
+	 */
+	public int getHeight(){
+		return this.height;
+	}
+
+	/**
+	 * Returns the X coordinate of the stored area within the untrimmed frame.
+	 *
+	 * @return The horizontal trim offset
+	 */
+	public int getTrimX(){
+		return this.trimX;
+	}
+
+	/**
+	 * Returns the Y coordinate of the stored area within the untrimmed frame.
+	 *
+	 * @return The vertical trim offset
+	 */
+	public int getTrimY(){
+		return this.trimY;
+	}
+
+	/**
+	 * Returns the X coordinate of the pivot within the untrimmed frame.
+	 *
+	 * @return The X coordinate of the pivot
+	 */
+	public int getPivotX(){
+		return this.pivotX;
+	}
+
+	/**
+	 * Returns the Y coordinate of the pivot within the untrimmed frame.
+	 *
+	 * @return The Y coordinate of the pivot
+	 */
+	public int getPivotY(){
+		return this.pivotY;
+	}
+
+	/**
+	 * Returns the time this frame is shown.
+	 *
+	 * @return The duration in milliseconds
+	 */
+	public int getDuration(){
+		return this.duration;
+	}
+}
@@ -0,0 +1,140 @@
+package io.graphics;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A SpriteSequence describes one animation of a packed sprite sheet: the frames it consists of,
+ * the size of its untrimmed frames and how it is played (see SpriteSheetDescriptor).
+ *
+ * @author Maxmanski
+ */
+public final class SpriteSequence {
+
+	private final String name;
+	private final PlaybackMode mode;
+	private final int width, height;
+	private final SpriteFrame[] frames;
+
+	/**
+	 * Creates a new SpriteSequence.
+	 *
+	 * @param name The name of the sequence. Cannot be a NULL reference.
+	 * @param mode The way the frames are played. Cannot be a NULL reference.
+	 * @param width The width of the untrimmed frames. Must be greater than 0.
+	 * @param height The height of the untrimmed frames. Must be greater than 0.
+	 * @param frames The frames of the sequence. Cannot be empty and every frame has to fit into the untrimmed size.
+	 */
+	public SpriteSequence(String name, PlaybackMode mode, int width, int height, SpriteFrame[] frames){
+		if(name==null || mode==null){
+			throw new IllegalArgumentException("The name and the PlaybackMode cannot be null!");
+		}
+		if(width<=0 || height<=0){
+			throw new IllegalArgumentException("The size of the frames must not be <= 0!");
+		}
+		if(frames==null || frames.length==0){
+			throw new IllegalArgumentException("The sequence " + name + " must contain at least one frame!");
+		}
+		for(SpriteFrame f: frames){
+			if(f.getTrimX()+f.getWidth()>width || f.getTrimY()+f.getHeight()>height){
+				throw new IllegalArgumentException("A frame of the sequence " + name + " does not fit into " + width + "x" + height + "!");
+			}
+		}
+
+		this.name=name;
+		this.mode=mode;
+		this.width=width;
+		this.height=height;
+		this.frames=frames.clone();
+	}
+
+	/**
+	 * Cuts the frames of this sequence out of the specified packed sheet. The frames stay trimmed and are drawn
+	 * at their trim offsets, aligned by their pivots (see FrameSet).
+	 *
+	 * @param sheet The packed sheet described by the SpriteSheetDescriptor of this sequence
+	 * @return The frames of this sequence
+	 */
+	public FrameSet createFrameSet(BufferedImage sheet){
+		Rectangle[] areas = new Rectangle[this.frames.length];
+		Point[] offsets = new Point[this.frames.length];
+		Point[] pivots = new Point[this.frames.length];
+		for(int i=0; i<this.frames.length; i++){
+			SpriteFrame f = this.frames[i];
+			areas[i] = new Rectangle(f.getX(), f.getY(), f.getWidth(), f.getHeight());
+			offsets[i] = new Point(f.getTrimX(), f.getTrimY());
+			pivots[i] = new Point(f.getPivotX(), f.getPivotY());
+		}
+		return new FrameSet(sheet, areas, offsets, pivots, this.width, this.height);
+	}
+
+	/**
+	 * Returns the timing of this sequence, i.e. its PlaybackMode and the durations of its frames.
+	 *
+	 * @return The AnimationTiming of this sequence
+	 */
+	public AnimationTiming getTiming(){
+		long[] durations = new long[this.frames.length];
+		for(int i=0; i<durations.length; i++){
+			durations[i]=this.frames[i].getDuration();
+		}
+		return AnimationTiming.perFrame(this.mode, TimeUnit.MILLISECONDS, durations);
+	}
+
+	/**
+	 * Returns the name of this sequence.
+	 *
+	 * @return The name
+	 */
+	public String getName(){
+		return this.name;
+	}
+
+	/**
+	 * Returns the way the frames of this sequence are played.
+	 *
+	 * @return The PlaybackMode
+	 */
+	public PlaybackMode getMode(){
+		return this.mode;
+	}
+
+	/**
+	 * Returns the width of the untrimmed frames.
+	 *
+	 * @return The width in pixels
+	 */
+	public int getWidth(){
+		return this.width;
+	}
+
+	/**
+	 * Returns the height of the untrimmed frames.
+	 *
+	 * @return The height in pixels
+	 */
+	public int getHeight(){
+		return this.height;
+	}
+
+	/**
+	 * Returns the amount of frames.
+	 *
+	 * @return The amount of frames
+	 */
+	public int size(){
+		return this.frames.length;
+	}
+
+	/**
+	 * Returns the frame with the specified index, e.g. to look up its pivot.
+	 *
+	 * @param index The index of the frame
+	 * @return The frame
+	 */
+	public SpriteFrame getFrame(int index){
+		return this.frames[index];
+	}
+}
@@ -0,0 +1,318 @@
+package io.graphics;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A SpriteSheetDescriptor describes the animations of a packed sprite sheet, whose frames may have any size and position.<br>
+ * Every animation is a SpriteSequence of SpriteFrames, which store the area of the frame in the sheet, its trim offset,
+ * its pivot and its duration. This way, sheets can be packed tightly and timings are part of the assets instead of the code.<br>
+ * <br>
+ * Descriptors are stored in a compact binary format and can be written as text, which is compiled into the binary format with write.
+ * The text format consists of lines, where empty lines and lines starting with # are ignored:
+ * <pre>
+ * sequence &lt;name&gt; &lt;LOOP|PING_PONG|ONE_SHOT&gt; &lt;width&gt; &lt;height&gt; [&lt;duration&gt;]
+ * frame &lt;x&gt; &lt;y&gt; &lt;width&gt; &lt;height&gt; [&lt;trimX&gt; &lt;trimY&gt; [&lt;pivotX&gt; &lt;pivotY&gt; [&lt;duration&gt;]]]
+ * </pre>
+ * A sequence line starts a new animation with the size of its untrimmed frames, every following frame line adds a frame to it.
+ * Omitted trim offsets are 0, an omitted pivot is the center of the untrimmed frame and an omitted duration is
+ * the duration of the sequence (100 milliseconds, if it is omitted as well).<br>
+ * <br>
+ * The binary format starts with the magic number 0x53534431 ("SSD1") and the amount of sequences (unsigned short).
+ * Every sequence consists of its name (modified UTF-8), its PlaybackMode (byte), the width and height of its frames and the
+ * amount of frames (unsigned shorts), followed by the frames: x, y, width and height (unsigned shorts), trim offsets and pivot
+ * (signed shorts) and the duration in milliseconds (int).
+ *
+ * @author Maxmanski
+ */
+public final class SpriteSheetDescriptor {
+
+	private static final int MAGIC = 0x53534431;
+	private static final int DEFAULT_DURATION = 100;
+
+	private final LinkedHashMap<String, SpriteSequence> sequences;
+
+	/**
+	 * Creates a new SpriteSheetDescriptor consisting of the specified sequences.
+	 *
+	 * @param sequences The sequences of the sheet. Cannot be empty and their names must be unique.
+	 */
+	public SpriteSheetDescriptor(List<SpriteSequence> sequences){
+		if(sequences==null || sequences.isEmpty()){
+			throw new IllegalArgumentException("A sprite sheet must contain at least one sequence!");
+		}
+
+		this.sequences=new LinkedHashMap<>();
+		for(SpriteSequence s: sequences){
+			if(this.sequences.put(s.getName(), s)!=null){
+				throw new IllegalArgumentException("The sequence " + s.getName() + " is defined twice!");
+			}
+		}
+	}
+
+	/**
+	 * Loads the descriptor from the specified file, which may be in the binary or in the text format.
+	 *
+	 * @param file The descriptor file
+	 * @return The descriptor
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	public static SpriteSheetDescriptor load(File file) throws IOException{
+		try(InputStream in = new FileInputStream(file)){
+			return SpriteSheetDescriptor.load(in);
+		}
+	}
+
+	/**
+	 * Loads the descriptor from the specified stream, which may be in the binary or in the text format.<br>
+	 * The stream is not closed.
+	 *
+	 * @param in The stream
+	 * @return The descriptor
+	 * @throws IOException If the stream cannot be read or is malformed
+	 */
+	public static SpriteSheetDescriptor load(InputStream in) throws IOException{
+		BufferedInputStream buffered = new BufferedInputStream(in);
+		buffered.mark(4);
+		DataInputStream data = new DataInputStream(buffered);
+		int magic = data.readInt();
+		buffered.reset();
+
+		if(magic==MAGIC){
+			return SpriteSheetDescriptor.read(data);
+		}
+		return SpriteSheetDescriptor.parse(new InputStreamReader(buffered, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Parses a descriptor in the text format.
+	 *
+	 * @param source The text source
+	 * @return The descriptor
+	 * @throws IOException If the source cannot be read or is malformed
+	 */
+	public static SpriteSheetDescriptor parse(Reader source) throws IOException{
+		BufferedReader reader = new BufferedReader(source);
+		List<SpriteSequence> result = new ArrayList<>();
+		List<SpriteFrame> frames = new ArrayList<>();
+		String name = null;
+		PlaybackMode mode = null;
+		int width = 0, height = 0, duration = 0, lineNumber = 0;
+		String line;
+
+		while((line = reader.readLine())!=null){
+			lineNumber++;
+			line = line.trim();
+			if(line.isEmpty() || line.startsWith("#")){
+				continue;
+			}
+
+			String[] t = line.split("\\s+");
+			try {
+				if(t[0].equals("sequence") && (t.length==5 || t.length==6)){
+					if(name!=null){
+						result.add(SpriteSheetDescriptor.sequence(name, mode, width, height, frames));
+					}
+					name = t[1];
+					mode = PlaybackMode.valueOf(t[2]);
+					width = Integer.parseInt(t[3]);
+					height = Integer.parseInt(t[4]);
+					duration = (t.length==6) ? Integer.parseInt(t[5]) : DEFAULT_DURATION;
+					frames.clear();
+				}else if(t[0].equals("frame") && name!=null && (t.length==5 || t.length==7 || t.length==9 || t.length==10)){
+					int[] v = new int[t.length-1];
+					for(int i=0; i<v.length; i++){
+						v[i] = Integer.parseInt(t[i+1]);
+					}
+					frames.add(new SpriteFrame(v[0], v[1], v[2], v[3],
+							(v.length>4) ? v[4] : 0, (v.length>4) ? v[5] : 0,
+							(v.length>6) ? v[6] : width/2, (v.length>6) ? v[7] : height/2,
+							(v.length>8) ? v[8] : duration));
+				}else{
+					throw new IOException("Line " + lineNumber + ": Unexpected \"" + line + "\"");
+				}
+			} catch (IllegalArgumentException e) {
+				// also covers NumberFormatException and unknown PlaybackModes
+				throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+			}
+		}
+
+		if(name==null){
+			throw new IOException("The sprite sheet does not contain any sequence");
+		}
+		try {
+			result.add(SpriteSheetDescriptor.sequence(name, mode, width, height, frames));
+			return new SpriteSheetDescriptor(result);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Reads a descriptor in the binary format.
+	 *
+	 * @param in The stream, positioned at the magic number
+	 * @return The descriptor
+	 * @throws IOException If the stream cannot be read or is malformed
+	 */
+	public static SpriteSheetDescriptor read(DataInputStream in) throws IOException{
+		if(in.readInt()!=MAGIC){
+			throw new IOException("Not a sprite sheet descriptor");
+		}
+
+		int count = in.readUnsignedShort();
+		List<SpriteSequence> result = new ArrayList<>(count);
+		PlaybackMode[] modes = PlaybackMode.values();
+		try {
+			for(int s=0; s<count; s++){
+				String name = in.readUTF();
+				int mode = in.readUnsignedByte();
+				if(mode>=modes.length){
+					throw new IOException("Unknown PlaybackMode " + mode + " of the sequence " + name);
+				}
+				int width = in.readUnsignedShort(), height = in.readUnsignedShort();
+				SpriteFrame[] frames = new SpriteFrame[in.readUnsignedShort()];
+				for(int i=0; i<frames.length; i++){
+					frames[i] = new SpriteFrame(in.readUnsignedShort(), in.readUnsignedShort(), in.readUnsignedShort(), in.readUnsignedShort(),
+							in.readShort(), in.readShort(), in.readShort(), in.readShort(), in.readInt());
+				}
+				result.add(new SpriteSequence(name, modes[mode], width, height, frames));
+			}
+			return new SpriteSheetDescriptor(result);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Writes this descriptor in the binary format.<br>
+	 * The stream is flushed, but not closed. Every value is checked before anything is written, so a descriptor
+	 * which does not fit into the binary format does not leave a truncated descriptor in the stream.
+	 *
+	 * @param out The stream
+	 * @throws IOException If the stream cannot be written or a value exceeds the range of its field in the binary format
+	 */
+	public void write(OutputStream out) throws IOException{
+		SpriteSheetDescriptor.checkUnsigned("The amount of sequences", this.sequences.size());
+		for(SpriteSequence s: this.sequences.values()){
+			String name = "The sequence " + s.getName();
+			SpriteSheetDescriptor.checkUnsigned(name + ": width", s.getWidth());
+			SpriteSheetDescriptor.checkUnsigned(name + ": height", s.getHeight());
+			SpriteSheetDescriptor.checkUnsigned(name + ": amount of frames", s.size());
+			for(int i=0; i<s.size(); i++){
+				SpriteFrame f = s.getFrame(i);
+				String frame = name + ", frame " + i + ": ";
+				SpriteSheetDescriptor.checkUnsigned(frame + "x", f.getX());
+				SpriteSheetDescriptor.checkUnsigned(frame + "y", f.getY());
+				SpriteSheetDescriptor.checkUnsigned(frame + "width", f.getWidth());
+				SpriteSheetDescriptor.checkUnsigned(frame + "height", f.getHeight());
+				SpriteSheetDescriptor.checkSigned(frame + "trimX", f.getTrimX());
+				SpriteSheetDescriptor.checkSigned(frame + "trimY", f.getTrimY());
+				SpriteSheetDescriptor.checkSigned(frame + "pivotX", f.getPivotX());
+				SpriteSheetDescriptor.checkSigned(frame + "pivotY", f.getPivotY());
+			}
+		}
+
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeShort(this.sequences.size());
+		for(SpriteSequence s: this.sequences.values()){
+			data.writeUTF(s.getName());
+			data.writeByte(s.getMode().ordinal());
+			data.writeShort(s.getWidth());
+			data.writeShort(s.getHeight());
+			data.writeShort(s.size());
+			for(int i=0; i<s.size(); i++){
+				SpriteFrame f = s.getFrame(i);
+				data.writeShort(f.getX());
+				data.writeShort(f.getY());
+				data.writeShort(f.getWidth());
+				data.writeShort(f.getHeight());
+				data.writeShort(f.getTrimX());
+				data.writeShort(f.getTrimY());
+				data.writeShort(f.getPivotX());
+				data.writeShort(f.getPivotY());
+				data.writeInt(f.getDuration());
+			}
+		}
+		data.flush();
+	}
+
+	/**
+	 * Creates an Animation for every sequence by cutting its frames out of the specified packed sheet.<br>
+	 * If a clock is specified, every Animation is registered at it with the timing of its sequence. Otherwise, the durations
+	 * of the frames are not used and every call of nextImage returns the next frame.
+	 *
+	 * @param sheet The packed sheet. Cannot be a NULL reference.
+	 * @param clock The AnimationClock driving the Animations or NULL
+	 * @return The Animations, identified by the names of their sequences. The first sequence is the active Animation.
+	 */
+	public Animations<String> createAnimations(BufferedImage sheet, AnimationClock clock){
+		if(sheet==null){
+			throw new IllegalArgumentException("The sheet cannot be null!");
+		}
+
+		List<Animation> animations = new ArrayList<>(this.sequences.size());
+		List<String> names = new ArrayList<>(this.sequences.size());
+		for(SpriteSequence s: this.sequences.values()){
+			Animation a = new Animation(s.createFrameSet(sheet), null);
+			if(clock!=null){
+				clock.register(a, s.getTiming());
+			}
+			animations.add(a);
+			names.add(s.getName());
+		}
+		return new Animations<>(animations, names);
+	}
+
+	/**
+	 * Returns the sequence with the specified name.
+	 *
+	 * @param name The name of the sequence
+	 * @return The sequence or NULL, if there is no such sequence
+	 */
+	public SpriteSequence getSequence(String name){
+		return this.sequences.get(name);
+	}
+
+	/**
+	 * Returns every sequence, in the order of the descriptor.
+	 *
+	 * @return The unmodifiable collection of sequences
+	 */
+	public Collection<SpriteSequence> getSequences(){
+		return Collections.unmodifiableCollection(this.sequences.values());
+	}
+
+	private static void checkUnsigned(String field, int value) throws IOException{
+		if(value<0 || value>0xFFFF){
+			throw new IOException(field + " (" + value + ") does not fit into an unsigned short (0 to 65535)");
+		}
+	}
+
+	private static void checkSigned(String field, int value) throws IOException{
+		if(value<Short.MIN_VALUE || value>Short.MAX_VALUE){
+			throw new IOException(field + " (" + value + ") does not fit into a signed short (-32768 to 32767)");
+		}
+	}
+
+	private static SpriteSequence sequence(String name, PlaybackMode mode, int width, int height, List<SpriteFrame> frames){
+		return new SpriteSequence(name, mode, width, height, frames.toArray(new SpriteFrame[frames.size()]));
+	}
+}
@@ -0,0 +1,297 @@
+package io.graphics;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.VolatileImage;
+import java.util.ArrayList;
+
+/**
+ * A StaticLayer holds the Drawables of a board which (almost) never change, like the floor and the
+ * indestructible walls.<br>
+ * They are rendered once into an accelerated offscreen image of the size of the board, so every frame
+ * only needs a single blit of that image instead of drawing each of them again.<br>
+ * <br>
+ * The board is divided into cells (usually of the size of a tile). If a static Drawable changes, the cells
+ * it covers have to be invalidated and only those cells are rendered again in the next frame.
+ * Adding or removing a Drawable invalidates its cells automatically. Sprites of the layer invalidate their cells
+ * themselves whenever they move or change their animation step, but a Sprite can only be part of one layer at a time.<br>
+ * The layer may be changed by the game Thread while it is drawn by the render Thread.
+ *
+ * @author Maxmanski
+ */
+public class StaticLayer {
+
+	private static final Color TRANSPARENT = new Color(0, 0, 0, 0);
+
+	private final int width, height, cellSize;
+	private final SpatialGrid grid;
+	private final DirtyRegions dirty;
+	private final int[] drained;
+	private final ArrayList<BoundedDrawable> found;
+	private VolatileImage image;
+	private double lastScaleX, lastScaleY;
+
+	/**
+	 * Creates a new, empty StaticLayer for a board of the specified size (in logical coordinates).
+	 *
+	 * @param width The width of the board. Must be greater than 0.
+	 * @param height The height of the board. Must be greater than 0.
+	 * @param cellSize The width and height of a cell, usually the size of a tile. Must be greater than 0.
+	 */
+	public StaticLayer(int width, int height, int cellSize){
+		if(width<=0 || height<=0 || cellSize<=0){
+			throw new IllegalArgumentException("The board size and cell size must not be <= 0!");
+		}
+
+		this.width = width;
+		this.height = height;
+		this.cellSize = cellSize;
+		// the Sprites of the layer are updated through moved, under the lock of the layer
+		this.grid = new SpatialGrid(width, height, cellSize, false);
+		this.dirty = new DirtyRegions();
+		this.drained = new int[4*DirtyRegions.MAX_REGIONS];
+		this.found = new ArrayList<>();
+	}
+
+	/**
+	 * Adds the specified Drawable to this layer and invalidates the cells it covers.<br>
+	 * Drawables are rendered in the order they were added.
+	 *
+	 * @param d The static Drawable. Cannot be a NULL reference. A Sprite cannot be part of another layer.
+	 * @return TRUE, if the Drawable was added. FALSE, if it was already contained.
+	 */
+	public synchronized boolean add(BoundedDrawable d){
+		if(d instanceof Sprite && ((Sprite) d).getStaticLayer()!=null && ((Sprite) d).getStaticLayer()!=this){
+			throw new IllegalArgumentException("The Sprite is already part of another StaticLayer!");
+		}
+		if(!this.grid.add(d)){
+			return false;
+		}
+		if(d instanceof Sprite){
+			((Sprite) d).setStaticLayer(this);
+		}
+		this.invalidate(d.getX(), d.getY(), d.getWidth(), d.getHeight());
+		return true;
+	}
+
+	/**
+	 * Removes the specified Drawable from this layer and invalidates the cells it covered.
+	 *
+	 * @param d The static Drawable
+	 * @return TRUE, if the Drawable was removed. FALSE, if it was not contained.
+	 */
+	public synchronized boolean remove(BoundedDrawable d){
+		if(!this.grid.remove(d)){
+			return false;
+		}
+		if(d instanceof Sprite){
+			((Sprite) d).setStaticLayer(null);
+		}
+		this.invalidate(d.getX(), d.getY(), d.getWidth(), d.getHeight());
+		return true;
+	}
+
+	/**
+	 * Checks if the specified Drawable is part of this layer.
+	 *
+	 * @param d The Drawable
+	 * @return TRUE, if the Drawable is contained. FALSE otherwise.
+	 */
+	public synchronized boolean contains(BoundedDrawable d){
+		return this.grid.contains(d);
+	}
+
+	/**
+	 * Updates the cells of the specified Drawable after it has moved or changed its size and invalidates its old and new area.<br>
+	 * Sprites of the layer call this themselves. Other Drawables have to be changed while holding the lock of this layer,
+	 * since the render Thread reads their position and appearance under that lock.
+	 *
+	 * @param d The static Drawable which has changed
+	 * @param oldX The X coordinate of the area before the change
+	 * @param oldY The Y coordinate of the area before the change
+	 * @param oldWidth The width of the area before the change
+	 * @param oldHeight The height of the area before the change
+	 */
+	public synchronized void moved(BoundedDrawable d, int oldX, int oldY, int oldWidth, int oldHeight){
+		this.grid.update(d);
+		this.invalidate(oldX, oldY, oldWidth, oldHeight);
+		this.invalidate(d.getX(), d.getY(), d.getWidth(), d.getHeight());
+	}
+
+	/**
+	 * Invalidates every cell overlapping the specified region (in logical coordinates),
+	 * so they are rendered again in the next frame.<br>
+	 * This has to be called after a static Drawable other than a Sprite has changed its appearance.
+	 * Moved Drawables have to be reported with moved instead.
+	 *
+	 * @param region The changed region
+	 */
+	public void invalidate(Rectangle region){
+		this.invalidate(region.x, region.y, region.width, region.height);
+	}
+
+	/**
+	 * Invalidates every cell overlapping the specified region (in logical coordinates).
+	 *
+	 * @param x The X coordinate of the region
+	 * @param y The Y coordinate of the region
+	 * @param width The width of the region
+	 * @param height The height of the region
+	 */
+	public synchronized void invalidate(int x, int y, int width, int height){
+		if(width<=0 || height<=0){
+			return;
+		}
+
+		int x1 = Math.max(0, x), y1 = Math.max(0, y);
+		int x2 = Math.min(this.width, x+width), y2 = Math.min(this.height, y+height);
+		if(x1>=x2 || y1>=y2){
+			return;
+		}
+
+		// Drawables may overlap the borders of their cells, so whole cells are rendered again
+		x1 -= x1 % this.cellSize;
+		y1 -= y1 % this.cellSize;
+		x2 = Math.min(this.width, ((x2+this.cellSize-1)/this.cellSize)*this.cellSize);
+		y2 = Math.min(this.height, ((y2+this.cellSize-1)/this.cellSize)*this.cellSize);
+		this.dirty.add(x1, y1, x2-x1, y2-y1);
+	}
+
+	/**
+	 * Invalidates the cell at the specified column and row.
+	 *
+	 * @param column The column of the cell
+	 * @param row The row of the cell
+	 */
+	public void invalidateCell(int column, int row){
+		this.invalidate(column*this.cellSize, row*this.cellSize, this.cellSize, this.cellSize);
+	}
+
+	/**
+	 * Invalidates the whole layer.
+	 */
+	public void invalidateAll(){
+		this.dirty.markAll();
+	}
+
+	/**
+	 * Returns the size of a cell.
+	 *
+	 * @return The width and height of a cell
+	 */
+	public int getCellSize(){
+		return this.cellSize;
+	}
+
+	/**
+	 * Returns the width of the board covered by this layer.
+	 *
+	 * @return The width in logical coordinates
+	 */
+	public int getWidth(){
+		return this.width;
+	}
+
+	/**
+	 * Returns the height of the board covered by this layer.
+	 *
+	 * @return The height in logical coordinates
+	 */
+	public int getHeight(){
+		return this.height;
+	}
+
+	/**
+	 * Renders the invalidated cells into the offscreen image, if necessary, and blits the image onto the specified Graphics.<br>
+	 * The regions of the board which have been rendered again are added to the specified DirtyRegions,
+	 * so an incremental renderer can repaint them as well.
+	 *
+	 * @param g The Graphics to draw onto
+	 * @param scaleX The horizontal scale factor from logical to output coordinates
+	 * @param scaleY The vertical scale factor from logical to output coordinates
+	 * @param changed The DirtyRegions to add the rendered regions to or NULL
+	 */
+	void draw(Graphics2D g, double scaleX, double scaleY, DirtyRegions changed){
+		this.update(g.getDeviceConfiguration(), scaleX, scaleY, changed);
+		g.drawImage(this.image, 0, 0, null);
+	}
+
+	/**
+	 * Renders the invalidated cells into the offscreen image, if necessary.
+	 *
+	 * @param gc The GraphicsConfiguration the image has to be compatible with
+	 * @param scaleX The horizontal scale factor from logical to output coordinates
+	 * @param scaleY The vertical scale factor from logical to output coordinates
+	 * @param changed The DirtyRegions to add the rendered regions to or NULL
+	 * @return The offscreen image
+	 */
+	synchronized VolatileImage update(GraphicsConfiguration gc, double scaleX, double scaleY, DirtyRegions changed){
+		int w = Math.max(1, (int)Math.ceil(this.width*scaleX)), h = Math.max(1, (int)Math.ceil(this.height*scaleY));
+		int state = (this.image==null) ? VolatileImage.IMAGE_INCOMPATIBLE : this.image.validate(gc);
+
+		if(state==VolatileImage.IMAGE_INCOMPATIBLE || this.image.getWidth()!=w || this.image.getHeight()!=h){
+			if(this.image!=null){
+				this.image.flush();
+			}
+			this.image = gc.createCompatibleVolatileImage(w, h, Transparency.TRANSLUCENT);
+			this.image.validate(gc);
+			this.dirty.markAll();
+		}else if(state==VolatileImage.IMAGE_RESTORED || scaleX!=this.lastScaleX || scaleY!=this.lastScaleY){
+			this.dirty.markAll();
+		}
+		this.lastScaleX = scaleX;
+		this.lastScaleY = scaleY;
+
+		int n = this.dirty.drainTo(this.drained);
+		if(n!=0){
+			Graphics2D g = this.image.createGraphics();
+			if(n<0){
+				this.render(g, 0, 0, this.width, this.height, scaleX, scaleY);
+				if(changed!=null){
+					changed.add(0, 0, this.width, this.height);
+				}
+			}else{
+				for(int i=0; i<n; i++){
+					int x1=this.drained[4*i], y1=this.drained[4*i+1], x2=this.drained[4*i+2], y2=this.drained[4*i+3];
+					this.render(g, x1, y1, x2, y2, scaleX, scaleY);
+					if(changed!=null){
+						changed.add(x1, y1, x2-x1, y2-y1);
+					}
+				}
+			}
+			g.dispose();
+
+			if(this.image.contentsLost()){
+				// rendered again as soon as the image has been restored
+				this.dirty.markAll();
+			}
+		}
+
+		return this.image;
+	}
+
+	/**
+	 * Clears the specified region (in logical coordinates) of the image and draws every static Drawable overlapping it, clipped to the region.
+	 */
+	private void render(Graphics2D g, int x1, int y1, int x2, int y2, double scaleX, double scaleY){
+		int cx1 = (int)Math.floor(x1*scaleX), cy1 = (int)Math.floor(y1*scaleY);
+		int cx2 = (int)Math.ceil(x2*scaleX), cy2 = (int)Math.ceil(y2*scaleY);
+
+		g.setClip(cx1, cy1, cx2-cx1, cy2-cy1);
+		g.setComposite(AlphaComposite.Src);
+		g.setColor(TRANSPARENT);
+		g.fillRect(cx1, cy1, cx2-cx1, cy2-cy1);
+		g.setComposite(AlphaComposite.SrcOver);
+
+		this.found.clear();
+		this.grid.query(x1, y1, x2-x1, y2-y1, this.found);
+		for(int i=0, n=this.found.size(); i<n; i++){
+			this.found.get(i).draw(g, scaleX, scaleY);
+		}
+		this.found.clear();
+	}
+}
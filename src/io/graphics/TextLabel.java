@@ -0,0 +1,236 @@
+package io.graphics;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * A TextLabel is a Drawable showing a line of text drawn with a BitmapFont, like a score, a player name or a timer.<br>
+ * The whole text is rendered into an image when it changes, so drawing the label only needs a single blit,
+ * no matter how long the text is. Setting the same text again does not render anything.<br>
+ * The label keeps a copy of its image scaled to the last used scale factors itself, so frequently changing texts
+ * do not fill the ScaledSpriteCache with images which are never drawn again.<br>
+ * <br>
+ * The position of a label is the upper left corner of its text. Glyphs overhanging the start of the text or the top
+ * of the line are drawn left of or above the position, outside of the area reported by getWidth and getHeight.
+ * In incremental rendering mode, changes of the text have to be marked dirty at the GameFrame.
+ *
+ * @author Maxmanski
+ */
+public class TextLabel implements BoundedDrawable {
+
+	private final BitmapFont font;
+	private volatile String text;
+	private volatile Rendering rendering;
+	private int x, y;
+
+	/**
+	 * Creates a new TextLabel showing the specified text at the specified position.
+	 *
+	 * @param font The BitmapFont used to draw the text. Cannot be a NULL reference.
+	 * @param text The text to be shown
+	 * @param x The X coordinate of the upper left corner
+	 * @param y The Y coordinate of the upper left corner
+	 */
+	public TextLabel(BitmapFont font, String text, int x, int y){
+		if(font==null){
+			throw new IllegalArgumentException("The font cannot be null!");
+		}
+
+		this.font = font;
+		this.x = x;
+		this.y = y;
+		this.setText(text);
+	}
+
+	/**
+	 * Replaces the shown text. The text is only rendered again if it differs from the current one.
+	 *
+	 * @param text The new text. NULL is shown as empty text.
+	 */
+	public void setText(String text){
+		if(text==null){
+			text = "";
+		}
+		if(text.equals(this.text)){
+			return;
+		}
+
+		Rectangle bounds = this.font.getStringBounds(text);
+		BufferedImage img = new BufferedImage(Math.max(1, bounds.width), Math.max(1, bounds.height), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = img.createGraphics();
+		this.font.drawString(g, text, -bounds.x, this.font.getAscent()-bounds.y);
+		g.dispose();
+
+		this.rendering = new Rendering(img, bounds.x, bounds.y);
+		this.text = text;
+	}
+
+	/**
+	 * Returns the shown text.
+	 *
+	 * @return The current text
+	 */
+	public String getText(){
+		return this.text;
+	}
+
+	@Override
+	public void draw(Graphics g){
+		this.rendering.draw(g, this.x, this.y);
+	}
+
+	@Override
+	public void draw(Graphics g, double scaleX, double scaleY){
+		this.rendering.draw(g, this.x, this.y, scaleX, scaleY);
+	}
+
+	/**
+	 * Returns an immutable copy of the position and the rendered text of this label.
+	 */
+	@Override
+	public Drawable snapshot(){
+		return new Snapshot(this.rendering, this.x, this.y);
+	}
+
+	@Override
+	public int getX(){
+		return this.x;
+	}
+
+	@Override
+	public int getY(){
+		return this.y;
+	}
+
+	@Override
+	public int getWidth(){
+		return this.rendering.getWidth();
+	}
+
+	@Override
+	public int getHeight(){
+		return this.rendering.getHeight();
+	}
+
+	@Override
+	public void move(int dx, int dy){
+		this.x += dx;
+		this.y += dy;
+	}
+
+	/**
+	 * A rendered text: its image, the position of the image relative to the position of the label
+	 * and the copy of the image scaled to the last used scale factors.
+	 */
+	private static final class Rendering {
+
+		private final BufferedImage image;
+		private final int offsetX, offsetY;
+		private volatile Scaled scaled;
+
+		private Rendering(BufferedImage image, int offsetX, int offsetY){
+			this.image = image;
+			this.offsetX = offsetX;
+			this.offsetY = offsetY;
+		}
+
+		private void draw(Graphics g, int x, int y){
+			g.drawImage(this.image, x+this.offsetX, y+this.offsetY, null);
+		}
+
+		private void draw(Graphics g, int x, int y, double scaleX, double scaleY){
+			if(scaleX==1.0 && scaleY==1.0){
+				this.draw(g, x, y);
+				return;
+			}
+
+			Scaled s = this.scaled;
+			if(s==null || s.scaleX!=scaleX || s.scaleY!=scaleY){
+				s = new Scaled(this.image, scaleX, scaleY);
+				this.scaled = s;
+			}
+			g.drawImage(s.image, (int)((x+this.offsetX)*scaleX), (int)((y+this.offsetY)*scaleY), null);
+		}
+
+		private int getWidth(){
+			return Math.max(0, this.offsetX+this.image.getWidth());
+		}
+
+		private int getHeight(){
+			return Math.max(0, this.offsetY+this.image.getHeight());
+		}
+	}
+
+	/**
+	 * An image scaled by fixed factors.
+	 */
+	private static final class Scaled {
+
+		private final double scaleX, scaleY;
+		private final BufferedImage image;
+
+		private Scaled(BufferedImage source, double scaleX, double scaleY){
+			int w = Math.max(1, (int)Math.round(source.getWidth()*scaleX));
+			int h = Math.max(1, (int)Math.round(source.getHeight()*scaleY));
+			this.scaleX = scaleX;
+			this.scaleY = scaleY;
+			this.image = CompatibleImages.create(w, h, source.getTransparency());
+
+			Graphics2D g = this.image.createGraphics();
+			g.drawImage(source, 0, 0, w, h, null);
+			g.dispose();
+		}
+	}
+
+	/**
+	 * The immutable state of a TextLabel at the time its snapshot has been taken.
+	 */
+	private static final class Snapshot implements BoundedDrawable {
+
+		private final Rendering rendering;
+		private final int x, y;
+
+		private Snapshot(Rendering rendering, int x, int y){
+			this.rendering=rendering;
+			this.x=x;
+			this.y=y;
+		}
+
+		@Override
+		public void draw(Graphics g){
+			this.rendering.draw(g, this.x, this.y);
+		}
+
+		@Override
+		public void draw(Graphics g, double scaleX, double scaleY){
+			this.rendering.draw(g, this.x, this.y, scaleX, scaleY);
+		}
+
+		@Override
+		public int getX(){
+			return this.x;
+		}
+
+		@Override
+		public int getY(){
+			return this.y;
+		}
+
+		@Override
+		public int getWidth(){
+			return this.rendering.getWidth();
+		}
+
+		@Override
+		public int getHeight(){
+			return this.rendering.getHeight();
+		}
+
+		@Override
+		public void move(int dx, int dy){
+			throw new UnsupportedOperationException("A snapshot of a TextLabel cannot be moved");
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package io.graphics;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A TextureAtlas packs many small images (e.g. every loaded image and every frame of the sprite sheets)
+ * into a few large pages, so Java2D only has to cache and accelerate a few surfaces.<br>
+ * <br>
+ * Images are added by name and packed by calling pack, which places them into shelves (rows of images
+ * sorted by height) and opens a new page whenever the current one is full. Afterwards, the packed images
+ * can be looked up as AtlasRegions. Packing may be done repeatedly, images added later are placed into
+ * the remaining space.<br>
+ * The pages are compatible with the screen, unless the environment is headless.
+ *
+ * @author Maxmanski
+ */
+public class TextureAtlas {
+
+	/**
+	 * The width and height of the pages, if not specified otherwise.
+	 */
+	public static final int DEFAULT_PAGE_SIZE = 1024;
+
+	/**
+	 * The amount of transparent pixels between two packed images, so scaled drawing does not bleed into neighbours.
+	 */
+	private static final int PADDING = 1;
+
+	private final int pageSize;
+	private final LinkedHashMap<String, BufferedImage> pending;
+	private final HashMap<String, AtlasRegion> regions;
+	private final ArrayList<BufferedImage> pages;
+	private int shelfX, shelfY, shelfHeight;
+
+	/**
+	 * Creates a new, empty TextureAtlas with pages of the default size.
+	 */
+	public TextureAtlas(){
+		this(DEFAULT_PAGE_SIZE);
+	}
+
+	/**
+	 * Creates a new, empty TextureAtlas with pages of the specified size.
+	 *
+	 * @param pageSize The width and height of the pages. Must be greater than 0.
+	 */
+	public TextureAtlas(int pageSize){
+		if(pageSize<=0){
+			throw new IllegalArgumentException("The page size must not be <= 0!");
+		}
+
+		this.pageSize = pageSize;
+		this.pending = new LinkedHashMap<>();
+		this.regions = new HashMap<>();
+		this.pages = new ArrayList<>();
+	}
+
+	/**
+	 * Adds the specified image to be packed with the next call of pack.
+	 *
+	 * @param name The name the region can be looked up with. Must not be used already.
+	 * @param image The image to be packed. Must fit into a page.
+	 */
+	public synchronized void add(String name, BufferedImage image){
+		if(name==null || image==null){
+			throw new IllegalArgumentException("The name and the image cannot be null!");
+		}
+		if(image.getWidth()>this.pageSize || image.getHeight()>this.pageSize){
+			throw new IllegalArgumentException("The image " + name + " does not fit into a page of size " + this.pageSize + "!");
+		}
+		if(this.regions.containsKey(name) || this.pending.containsKey(name)){
+			throw new IllegalArgumentException("An image named " + name + " has already been added!");
+		}
+
+		this.pending.put(name, image);
+	}
+
+	/**
+	 * Adds every frame of the specified sprite sheet to be packed with the next call of pack.<br>
+	 * The frames are named with the specified name, followed by '#' and their index (row by row, starting with 0),
+	 * and can be looked up together with getFrames.
+	 *
+	 * @param name The name of the sheet
+	 * @param sheet The sprite sheet
+	 * @param rows The amount of rows the sheet is divided into. Must be greater than 0.
+	 * @param columns The amount of columns the sheet is divided into. Must be greater than 0.
+	 */
+	public synchronized void addFrames(String name, BufferedImage sheet, int rows, int columns){
+		if(rows<=0 || columns<=0){
+			throw new IllegalArgumentException("Columns and Rows must not be <= 0!");
+		}
+		if(sheet==null || sheet.getWidth()%columns!=0 || sheet.getHeight()%rows!=0){
+			throw new IllegalArgumentException("Given spritesheet cannot be split into the given amount of rows and columns");
+		}
+
+		int w = sheet.getWidth()/columns, h = sheet.getHeight()/rows;
+		for(int i=0; i<rows; i++){
+			for(int j=0; j<columns; j++){
+				this.add(name + "#" + (i*columns+j), sheet.getSubimage(j*w, i*h, w, h));
+			}
+		}
+	}
+
+	/**
+	 * Packs every added image into the pages, opening new pages if necessary.
+	 */
+	public synchronized void pack(){
+		if(this.pending.isEmpty()){
+			return;
+		}
+
+		List<Map.Entry<String, BufferedImage>> sorted = new ArrayList<>(this.pending.entrySet());
+		// packing the highest images first wastes the least space in the shelves
+		Collections.sort(sorted, new Comparator<Map.Entry<String, BufferedImage>>(){
+			@Override
+			public int compare(Map.Entry<String, BufferedImage> a, Map.Entry<String, BufferedImage> b){
+				return b.getValue().getHeight()-a.getValue().getHeight();
+			}
+		});
+
+		Graphics2D g = null;
+		int pageIndex = -1;
+
+		for(Map.Entry<String, BufferedImage> e: sorted){
+			BufferedImage img = e.getValue();
+			int w = img.getWidth(), h = img.getHeight();
+
+			if(this.pages.isEmpty() || this.shelfX+w>this.pageSize){
+				// next shelf
+				this.shelfY += this.shelfHeight;
+				this.shelfX = 0;
+				this.shelfHeight = 0;
+			}
+			if(this.pages.isEmpty() || this.shelfY+h>this.pageSize){
+				this.pages.add(TextureAtlas.createPage(this.pageSize));
+				this.shelfX = 0;
+				this.shelfY = 0;
+				this.shelfHeight = 0;
+			}
+
+			if(pageIndex!=this.pages.size()-1){
+				if(g!=null){
+					g.dispose();
+				}
+				pageIndex = this.pages.size()-1;
+				g = this.pages.get(pageIndex).createGraphics();
+				g.setComposite(AlphaComposite.Src);
+			}
+
+			g.drawImage(img, this.shelfX, this.shelfY, null);
+			this.regions.put(e.getKey(), new AtlasRegion(e.getKey(), this.pages.get(pageIndex), pageIndex, this.shelfX, this.shelfY, w, h));
+
+			this.shelfX += w+PADDING;
+			this.shelfHeight = Math.max(this.shelfHeight, h+PADDING);
+		}
+
+		if(g!=null){
+			g.dispose();
+		}
+		this.pending.clear();
+	}
+
+	/**
+	 * Returns the region of the packed image with the specified name.
+	 *
+	 * @param name The name of the image
+	 * @return The region of the image or NULL, if no image with that name has been packed
+	 */
+	public synchronized AtlasRegion getRegion(String name){
+		return this.regions.get(name);
+	}
+
+	/**
+	 * Returns the regions of the frames of the packed sprite sheet with the specified name.
+	 *
+	 * @param name The name of the sheet, as used by addFrames
+	 * @return The regions of the frames in their order or NULL, if no sheet with that name has been packed
+	 */
+	public synchronized AtlasRegion[] getFrames(String name){
+		ArrayList<AtlasRegion> frames = new ArrayList<>();
+		AtlasRegion r;
+		while((r = this.regions.get(name + "#" + frames.size()))!=null){
+			frames.add(r);
+		}
+		return frames.isEmpty() ? null : frames.toArray(new AtlasRegion[frames.size()]);
+	}
+
+	/**
+	 * Returns the amount of pages used by the packed images.
+	 *
+	 * @return The amount of pages
+	 */
+	public synchronized int getPageCount(){
+		return this.pages.size();
+	}
+
+	/**
+	 * Returns the page with the specified index.
+	 *
+	 * @param index The index of the page
+	 * @return The page image
+	 */
+	public synchronized BufferedImage getPage(int index){
+		return this.pages.get(index);
+	}
+
+	/**
+	 * Returns the width and height of the pages.
+	 *
+	 * @return The page size
+	 */
+	public int getPageSize(){
+		return this.pageSize;
+	}
+
+	private static BufferedImage createPage(int size){
+		return CompatibleImages.create(size, size, Transparency.TRANSLUCENT);
+	}
+}
@@ -0,0 +1,403 @@
+package io.graphics;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A TileMap draws a whole board of tiles as a single Drawable.<br>
+ * The board is stored as a grid of tile IDs, each ID being the index of an image in the tileset.
+ * The grid is divided into chunks of CHUNK_TILES x CHUNK_TILES tiles, which are rendered into cached
+ * accelerated images, so drawing the board only needs one blit per visible chunk.<br>
+ * <br>
+ * Changing a tile only renders its chunk again. The amount of cached chunk images is limited, chunks which
+ * have not been drawn for the longest time are dropped first, so the memory used by a board stays flat
+ * no matter how large it is. Only chunks intersecting the clip of the Graphics are drawn.<br>
+ * In incremental rendering mode, changed tiles additionally have to be marked dirty at the GameFrame.<br>
+ * <br>
+ * Tiles may be changed by the game Thread while the map is drawn by the render Thread, without waiting for it:
+ * changing a tile only increments the version of its chunk, and drawing renders every chunk again whose version differs
+ * from the version it has been rendered at. Only the cache of chunk images is locked by draw.
+ *
+ * @author Maxmanski
+ */
+public class TileMap implements BoundedDrawable {
+
+	/**
+	 * The width and height of a chunk in tiles.
+	 */
+	public static final int CHUNK_TILES = 16;
+
+	/**
+	 * The ID of a tile which is not drawn.
+	 */
+	public static final short EMPTY = -1;
+
+	private static final Color TRANSPARENT = new Color(0, 0, 0, 0);
+
+	private final int columns, rows, tileSize;
+	private final int chunkColumns, chunkRows;
+	private final short[] tiles;
+	private final AtomicIntegerArray chunkVersions;
+	private final Image[] tileset;
+	private volatile long position;
+
+	// only used while holding the lock of the chunk cache
+	private final LinkedHashMap<Integer, VolatileImage> chunks;
+	private final int[] renderedVersions;
+	private int maxChunks;
+	private long lastPosition;
+	private double lastScaleX, lastScaleY;
+
+	/**
+	 * Creates a new TileMap with the amount of tiles of the specified board size. Every tile is EMPTY.
+	 *
+	 * @param size The size of the board
+	 * @param tileSize The width and height of a tile in logical coordinates. Must be greater than 0.
+	 * @param tileset The images of the tiles, indexed by the tile IDs. Cannot be a NULL reference.
+	 */
+	public TileMap(BoardSize size, int tileSize, Image[] tileset){
+		this(size.getColumns(), size.getRows(), tileSize, tileset);
+	}
+
+	/**
+	 * Creates a new TileMap with the specified amount of tiles. Every tile is EMPTY.
+	 *
+	 * @param columns The width of the board in tiles. Must be greater than 0.
+	 * @param rows The height of the board in tiles. Must be greater than 0.
+	 * @param tileSize The width and height of a tile in logical coordinates. Must be greater than 0.
+	 * @param tileset The images of the tiles, indexed by the tile IDs. Cannot be a NULL reference.
+	 */
+	public TileMap(int columns, int rows, int tileSize, Image[] tileset){
+		if(columns<=0 || rows<=0 || tileSize<=0){
+			throw new IllegalArgumentException("The board size and tile size must not be <= 0!");
+		}
+		if(tileset==null || tileset.length>Short.MAX_VALUE){
+			throw new IllegalArgumentException("The tileset cannot be null or contain more than " + Short.MAX_VALUE + " tiles!");
+		}
+
+		this.columns = columns;
+		this.rows = rows;
+		this.tileSize = tileSize;
+		this.chunkColumns = (columns+CHUNK_TILES-1)/CHUNK_TILES;
+		this.chunkRows = (rows+CHUNK_TILES-1)/CHUNK_TILES;
+		this.tiles = new short[columns*rows];
+		Arrays.fill(this.tiles, EMPTY);
+		this.chunkVersions = new AtomicIntegerArray(this.chunkColumns*this.chunkRows);
+		this.renderedVersions = new int[this.chunkColumns*this.chunkRows];
+		Arrays.fill(this.renderedVersions, -1);
+		this.tileset = tileset.clone();
+		this.maxChunks = 64;
+		this.chunks = new LinkedHashMap<Integer, VolatileImage>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, VolatileImage> eldest){
+				if(this.size()>TileMap.this.maxChunks){
+					eldest.getValue().flush();
+					return true;
+				}
+				return false;
+			}
+		};
+		this.position = 0;
+		this.lastPosition = 0;
+	}
+
+	/**
+	 * Returns the ID of the tile at the specified column and row.
+	 *
+	 * @param column The column of the tile
+	 * @param row The row of the tile
+	 * @return The ID of the tile or EMPTY
+	 */
+	public synchronized short getTile(int column, int row){
+		this.checkBounds(column, row);
+		return this.tiles[row*this.columns+column];
+	}
+
+	/**
+	 * Sets the ID of the tile at the specified column and row.<br>
+	 * If the ID changes, the chunk of the tile will be rendered again the next time it is drawn.
+	 * This never waits for the map being drawn.
+	 *
+	 * @param column The column of the tile
+	 * @param row The row of the tile
+	 * @param id The index of the tile in the tileset or EMPTY
+	 */
+	public synchronized void setTile(int column, int row, short id){
+		this.checkBounds(column, row);
+		if(id!=EMPTY && (id<0 || id>=this.tileset.length)){
+			throw new IllegalArgumentException("The tile ID " + id + " is not part of the tileset!");
+		}
+
+		int index = row*this.columns+column;
+		if(this.tiles[index]!=id){
+			this.tiles[index] = id;
+			// publishes the tile to the drawing Thread, which reads the version before the tiles
+			this.chunkVersions.incrementAndGet((row/CHUNK_TILES)*this.chunkColumns + column/CHUNK_TILES);
+		}
+	}
+
+	/**
+	 * Sets every tile of the board to the specified ID.
+	 *
+	 * @param id The index of the tile in the tileset or EMPTY
+	 */
+	public synchronized void fill(short id){
+		if(id!=EMPTY && (id<0 || id>=this.tileset.length)){
+			throw new IllegalArgumentException("The tile ID " + id + " is not part of the tileset!");
+		}
+
+		Arrays.fill(this.tiles, id);
+		for(int i=0; i<this.chunkVersions.length(); i++){
+			this.chunkVersions.incrementAndGet(i);
+		}
+	}
+
+	/**
+	 * Sets the maximum amount of chunk images which are kept. The least recently drawn chunks are dropped first.<br>
+	 * To avoid rendering chunks in every frame, this should be at least the amount of chunks visible at once.
+	 *
+	 * @param maxChunks The maximum amount of cached chunks. Must be greater than 0.
+	 */
+	public void setMaxCachedChunks(int maxChunks){
+		if(maxChunks<=0){
+			throw new IllegalArgumentException("The amount of chunks must not be <= 0!");
+		}
+
+		synchronized(this.chunks){
+			this.maxChunks = maxChunks;
+			Iterator<VolatileImage> it = this.chunks.values().iterator();
+			while(this.chunks.size()>maxChunks){
+				it.next().flush();
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns the amount of currently cached chunk images.
+	 *
+	 * @return The amount of cached chunks
+	 */
+	public int getCachedChunks(){
+		synchronized(this.chunks){
+			return this.chunks.size();
+		}
+	}
+
+	/**
+	 * Returns the area (in logical coordinates) covered by the specified tile,
+	 * e.g. to mark it dirty after changing it.
+	 *
+	 * @param column The column of the tile
+	 * @param row The row of the tile
+	 * @return The area of the tile
+	 */
+	public Rectangle getTileBounds(int column, int row){
+		long pos = this.position;
+		return new Rectangle(TileMap.xOf(pos) + column*this.tileSize, TileMap.yOf(pos) + row*this.tileSize, this.tileSize, this.tileSize);
+	}
+
+	/**
+	 * Returns the width of the board in tiles.
+	 *
+	 * @return The amount of columns
+	 */
+	public int getColumns(){
+		return this.columns;
+	}
+
+	/**
+	 * Returns the height of the board in tiles.
+	 *
+	 * @return The amount of rows
+	 */
+	public int getRows(){
+		return this.rows;
+	}
+
+	/**
+	 * Returns the width and height of a tile.
+	 *
+	 * @return The size of a tile in logical coordinates
+	 */
+	public int getTileSize(){
+		return this.tileSize;
+	}
+
+	@Override
+	public void draw(Graphics g){
+		this.draw(g, 1, 1);
+	}
+
+	@Override
+	public void draw(Graphics g, double scaleX, double scaleY){
+		synchronized(this.chunks){
+			this.drawChunks(g, scaleX, scaleY);
+		}
+	}
+
+	private void drawChunks(Graphics g, double scaleX, double scaleY){
+		long pos = this.position;
+		if(scaleX!=this.lastScaleX || scaleY!=this.lastScaleY || pos!=this.lastPosition){
+			// the rounding of the chunk borders depends on the scale and the position
+			this.lastScaleX = scaleX;
+			this.lastScaleY = scaleY;
+			this.lastPosition = pos;
+			Arrays.fill(this.renderedVersions, -1);
+		}
+
+		GraphicsConfiguration gc = ((Graphics2D) g).getDeviceConfiguration();
+		int chunkSize = CHUNK_TILES*this.tileSize;
+		int x = TileMap.xOf(pos), y = TileMap.yOf(pos);
+		int cx1 = 0, cy1 = 0, cx2 = this.chunkColumns, cy2 = this.chunkRows;
+
+		Rectangle clip = g.getClipBounds();
+		if(clip!=null){
+			cx1 = Math.max(cx1, (int)Math.floor((clip.x/scaleX - x)/chunkSize));
+			cy1 = Math.max(cy1, (int)Math.floor((clip.y/scaleY - y)/chunkSize));
+			cx2 = Math.min(cx2, (int)Math.floor(((clip.x+clip.width)/scaleX - x)/chunkSize)+1);
+			cy2 = Math.min(cy2, (int)Math.floor(((clip.y+clip.height)/scaleY - y)/chunkSize)+1);
+		}
+
+		for(int cy=cy1; cy<cy2; cy++){
+			for(int cx=cx1; cx<cx2; cx++){
+				VolatileImage chunk = this.validateChunk(gc, x, y, cx, cy, scaleX, scaleY);
+				g.drawImage(chunk, (int)Math.floor((x + cx*chunkSize)*scaleX), (int)Math.floor((y + cy*chunkSize)*scaleY), null);
+			}
+		}
+	}
+
+	/**
+	 * Returns the cached image of the specified chunk, rendering it first if it has changed, is not cached or was lost.
+	 */
+	private VolatileImage validateChunk(GraphicsConfiguration gc, int x, int y, int cx, int cy, double scaleX, double scaleY){
+		int index = cy*this.chunkColumns+cx;
+		int chunkSize = CHUNK_TILES*this.tileSize;
+		int ox = (int)Math.floor((x + cx*chunkSize)*scaleX), oy = (int)Math.floor((y + cy*chunkSize)*scaleY);
+		int w = (int)Math.ceil((x + Math.min(this.columns, (cx+1)*CHUNK_TILES)*this.tileSize)*scaleX) - ox;
+		int h = (int)Math.ceil((y + Math.min(this.rows, (cy+1)*CHUNK_TILES)*this.tileSize)*scaleY) - oy;
+		w = Math.max(1, w);
+		h = Math.max(1, h);
+
+		VolatileImage chunk = this.chunks.get(index);
+		int state = (chunk==null) ? VolatileImage.IMAGE_INCOMPATIBLE : chunk.validate(gc);
+
+		if(state==VolatileImage.IMAGE_INCOMPATIBLE || chunk.getWidth()!=w || chunk.getHeight()!=h){
+			if(chunk!=null){
+				chunk.flush();
+			}
+			chunk = gc.createCompatibleVolatileImage(w, h, Transparency.TRANSLUCENT);
+			chunk.validate(gc);
+			this.chunks.put(index, chunk);
+			this.renderedVersions[index] = -1;
+		}else if(state==VolatileImage.IMAGE_RESTORED){
+			this.renderedVersions[index] = -1;
+		}
+
+		// the version is read before the tiles, so every tile set before it was incremented is visible
+		int version = this.chunkVersions.get(index);
+		if(this.renderedVersions[index]!=version){
+			this.renderedVersions[index] = version;
+			this.renderChunk(chunk, x, y, cx, cy, ox, oy, scaleX, scaleY);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Renders the tiles of the specified chunk into its image, whose top left corner lies at (ox,oy) in output coordinates.
+	 */
+	private void renderChunk(VolatileImage chunk, int x, int y, int cx, int cy, int ox, int oy, double scaleX, double scaleY){
+		Graphics2D g = chunk.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.setColor(TRANSPARENT);
+		g.fillRect(0, 0, chunk.getWidth(), chunk.getHeight());
+		g.setComposite(AlphaComposite.SrcOver);
+
+		int c2 = Math.min(this.columns, (cx+1)*CHUNK_TILES), r2 = Math.min(this.rows, (cy+1)*CHUNK_TILES);
+		int tx1, ty1, tx2, ty2;
+		short id;
+
+		for(int r=cy*CHUNK_TILES; r<r2; r++){
+			// the tiles' edges are rounded the same way as their neighbours', so no seams appear when scaled
+			ty1 = (int)Math.floor((y + r*this.tileSize)*scaleY) - oy;
+			ty2 = (int)Math.floor((y + (r+1)*this.tileSize)*scaleY) - oy;
+			for(int c=cx*CHUNK_TILES; c<c2; c++){
+				id = this.tiles[r*this.columns+c];
+				if(id==EMPTY){
+					continue;
+				}
+				tx1 = (int)Math.floor((x + c*this.tileSize)*scaleX) - ox;
+				tx2 = (int)Math.floor((x + (c+1)*this.tileSize)*scaleX) - ox;
+				g.drawImage(this.tileset[id], tx1, ty1, tx2-tx1, ty2-ty1, null);
+			}
+		}
+		g.dispose();
+
+		if(chunk.contentsLost()){
+			this.renderedVersions[cy*this.chunkColumns+cx] = -1;
+		}
+	}
+
+	private void checkBounds(int column, int row){
+		if(column<0 || column>=this.columns || row<0 || row>=this.rows){
+			throw new IndexOutOfBoundsException("Tile (" + column + "," + row + ") is outside of the board!");
+		}
+	}
+
+	@Override
+	public int getX(){
+		return TileMap.xOf(this.position);
+	}
+
+	@Override
+	public int getY(){
+		return TileMap.yOf(this.position);
+	}
+
+	@Override
+	public int getWidth(){
+		return this.columns*this.tileSize;
+	}
+
+	@Override
+	public int getHeight(){
+		return this.rows*this.tileSize;
+	}
+
+	@Override
+	public synchronized void move(int dx, int dy){
+		if(dx==0 && dy==0){
+			return;
+		}
+
+		// both coordinates are published at once, so a drawing Thread never sees half of a move
+		long pos = this.position;
+		this.position = TileMap.positionOf(TileMap.xOf(pos)+dx, TileMap.yOf(pos)+dy);
+	}
+
+	private static long positionOf(int x, int y){
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	private static int xOf(long position){
+		return (int)(position >> 32);
+	}
+
+	private static int yOf(long position){
+		return (int) position;
+	}
+}
@@ -0,0 +1,59 @@
+package io.graphics;
+
+/**
+ * The checks used by the tests of the graphics package.<br>
+ * Every failed check throws an AssertionError describing the expected and the actual value, so the tests
+ * do not depend on the assert statement being enabled.
+ *
+ * @author Maxmanski
+ */
+final class Check {
+
+	private Check(){}
+
+	static void isTrue(boolean condition, String message){
+		if(!condition){
+			throw new AssertionError(message);
+		}
+	}
+
+	static void equal(long expected, long actual, String message){
+		if(expected!=actual){
+			throw new AssertionError(message + ": expected " + expected + ", but was " + actual);
+		}
+	}
+
+	static void equal(Object expected, Object actual, String message){
+		if(expected==null ? actual!=null : !expected.equals(actual)){
+			throw new AssertionError(message + ": expected " + expected + ", but was " + actual);
+		}
+	}
+
+	static void same(Object expected, Object actual, String message){
+		if(expected!=actual){
+			throw new AssertionError(message + ": expected " + expected + ", but was " + actual);
+		}
+	}
+
+	/**
+	 * Checks that the specified code throws an exception of the specified type and returns it.
+	 */
+	static <T extends Throwable> T fails(Class<T> type, Action action, String message){
+		try {
+			action.run();
+		} catch (Throwable t) {
+			if(type.isInstance(t)){
+				return type.cast(t);
+			}
+			throw new AssertionError(message + ": expected " + type.getSimpleName() + ", but " + t + " was thrown", t);
+		}
+		throw new AssertionError(message + ": expected " + type.getSimpleName() + ", but nothing was thrown");
+	}
+
+	/**
+	 * Code which is expected to fail.
+	 */
+	interface Action {
+		void run() throws Exception;
+	}
+}
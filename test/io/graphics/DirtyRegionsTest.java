@@ -0,0 +1,82 @@
+package io.graphics;
+
+/**
+ * Tests merging, overflowing and draining of DirtyRegions.
+ *
+ * @author Maxmanski
+ */
+public final class DirtyRegionsTest {
+
+	private DirtyRegionsTest(){}
+
+	public static void main(String[] args){
+		DirtyRegionsTest.startsCompletelyDirty();
+		DirtyRegionsTest.mergesOverlappingRegions();
+		DirtyRegionsTest.marksEverythingWhenFull();
+		DirtyRegionsTest.drainsIntoAnotherSet();
+		System.out.println("DirtyRegionsTest passed.");
+	}
+
+	private static void startsCompletelyDirty(){
+		DirtyRegions r = new DirtyRegions();
+		int[] drained = new int[4*DirtyRegions.MAX_REGIONS];
+		Check.isTrue(!r.isEmpty(), "a new set is not empty");
+		Check.equal(-1, r.drainTo(drained), "a new set marks the whole area");
+		Check.isTrue(r.isEmpty(), "draining clears the set");
+		Check.equal(0, r.drainTo(drained), "nothing left after draining");
+	}
+
+	private static void mergesOverlappingRegions(){
+		DirtyRegions r = DirtyRegionsTest.cleared();
+		int[] drained = new int[4*DirtyRegions.MAX_REGIONS];
+		r.add(0, 0, 10, 10);
+		r.add(50, 50, 10, 10);
+		r.add(0, 0, 0, 5);
+		// bridges both regions, so all three are merged into their bounding box
+		r.add(5, 5, 50, 50);
+
+		Check.equal(1, r.drainTo(drained), "merged regions");
+		Check.equal(0, drained[0], "x1");
+		Check.equal(0, drained[1], "y1");
+		Check.equal(60, drained[2], "x2");
+		Check.equal(60, drained[3], "y2");
+	}
+
+	private static void marksEverythingWhenFull(){
+		DirtyRegions r = DirtyRegionsTest.cleared();
+		int[] drained = new int[4*DirtyRegions.MAX_REGIONS];
+		for(int i=0; i<DirtyRegions.MAX_REGIONS; i++){
+			r.add(20*i, 0, 5, 5);
+		}
+		Check.equal(DirtyRegions.MAX_REGIONS, r.drainTo(drained), "distinct regions up to the maximum");
+
+		for(int i=0; i<=DirtyRegions.MAX_REGIONS; i++){
+			r.add(20*i, 0, 5, 5);
+		}
+		Check.equal(-1, r.drainTo(drained), "one region too many marks the whole area");
+	}
+
+	private static void drainsIntoAnotherSet(){
+		DirtyRegions source = DirtyRegionsTest.cleared(), target = DirtyRegionsTest.cleared();
+		int[] drained = new int[4*DirtyRegions.MAX_REGIONS];
+		source.add(0, 0, 4, 4);
+		target.add(100, 100, 4, 4);
+		source.drainInto(target);
+
+		Check.isTrue(source.isEmpty(), "the source is cleared");
+		Check.equal(2, target.drainTo(drained), "the target holds both regions");
+
+		source.markAll();
+		source.drainInto(target);
+		Check.equal(-1, target.drainTo(drained), "a completely dirty source marks the whole target");
+	}
+
+	/**
+	 * Returns a set without any dirty region.
+	 */
+	static DirtyRegions cleared(){
+		DirtyRegions r = new DirtyRegions();
+		r.clear();
+		return r;
+	}
+}
@@ -0,0 +1,186 @@
+package io.graphics;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests handing frames and their dirty regions from the producing to the consuming Thread through a FrameHandoff.
+ *
+ * @author Maxmanski
+ */
+public final class FrameHandoffTest {
+
+	private FrameHandoffTest(){}
+
+	public static void main(String[] args) throws Exception{
+		FrameHandoffTest.handsOverTheNewestFrame();
+		FrameHandoffTest.publishesSnapshots();
+		FrameHandoffTest.carriesTheChangesOfReplacedFrames();
+		FrameHandoffTest.marksEverythingWithoutChanges();
+		FrameHandoffTest.neverTearsAFrame();
+		System.out.println("FrameHandoffTest passed.");
+	}
+
+	private static void handsOverTheNewestFrame(){
+		FrameHandoff h = new FrameHandoff();
+		Check.same(null, h.take(), "nothing published yet");
+
+		List<Drawable> first = FrameHandoffTest.frame(1), second = FrameHandoffTest.frame(2);
+		h.publish(first);
+		h.publish(second);
+		Check.isTrue(h.hasFreshFrame(), "a frame is available");
+
+		List<Drawable> taken = h.take();
+		Check.equal(1, taken.size(), "only the newest frame is taken");
+		Check.same(second.get(0), taken.get(0), "the Drawable of the newest frame");
+		Check.isTrue(!h.hasFreshFrame(), "the frame has been taken");
+		Check.same(null, h.take(), "a frame is only taken once");
+	}
+
+	private static void publishesSnapshots(){
+		FrameHandoff h = new FrameHandoff();
+		Sprite s = new Sprite(new Animation(new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB)), 10, 20);
+		List<Drawable> list = new ArrayList<>();
+		list.add(s);
+		h.publish(list);
+		s.move(5, 5);
+
+		BoundedDrawable taken = (BoundedDrawable) h.take().get(0);
+		Check.isTrue(taken!=s, "a snapshot is published instead of the Sprite");
+		Check.equal(10, taken.getX(), "x at the time of publishing");
+		Check.equal(20, taken.getY(), "y at the time of publishing");
+	}
+
+	/**
+	 * A frame which is replaced before it is taken must not lose its changes, otherwise an incremental
+	 * renderer would keep showing the old position of everything which moved in that frame.
+	 */
+	private static void carriesTheChangesOfReplacedFrames(){
+		FrameHandoff h = new FrameHandoff();
+		int[] drained = new int[4*DirtyRegions.MAX_REGIONS];
+		DirtyRegions changes = DirtyRegionsTest.cleared();
+
+		// the first frame is taken completely dirty
+		h.publish(FrameHandoffTest.frame(0), null);
+		h.take();
+		Check.equal(-1, h.getTakenChanges().drainTo(drained), "the first frame is completely dirty");
+
+		changes.add(0, 0, 10, 10);
+		h.publish(FrameHandoffTest.frame(1), changes);
+		Check.isTrue(changes.isEmpty(), "publishing drains the changes");
+		changes.add(100, 100, 10, 10);
+		h.publish(FrameHandoffTest.frame(2), changes);
+		changes.add(200, 200, 10, 10);
+		h.publish(FrameHandoffTest.frame(3), changes);
+
+		h.take();
+		Check.equal(3, h.getTakenChanges().drainTo(drained), "the changes of the replaced frames are carried over");
+		boolean[] found = new boolean[3];
+		for(int i=0; i<3; i++){
+			found[drained[4*i]/100] = true;
+		}
+		Check.isTrue(found[0] && found[1] && found[2], "every replaced change is part of the taken frame");
+
+		// a taken frame does not pass its changes on
+		changes.add(300, 300, 10, 10);
+		h.publish(FrameHandoffTest.frame(4), changes);
+		h.take();
+		Check.equal(1, h.getTakenChanges().drainTo(drained), "only the changes of the new frame");
+		Check.equal(300, drained[0], "x1 of the new change");
+	}
+
+	private static void marksEverythingWithoutChanges(){
+		FrameHandoff h = new FrameHandoff();
+		int[] drained = new int[4*DirtyRegions.MAX_REGIONS];
+		h.publish(FrameHandoffTest.frame(1));
+		h.take();
+		Check.equal(-1, h.getTakenChanges().drainTo(drained), "publishing without changes marks the whole frame");
+	}
+
+	/**
+	 * Publishes frames whose Drawables all carry the same number from one Thread and checks from another one
+	 * that every taken frame is complete and never mixes two published frames.
+	 */
+	private static void neverTearsAFrame() throws InterruptedException{
+		final FrameHandoff h = new FrameHandoff();
+		final int frames = 20000, size = 16;
+		final Throwable[] failure = new Throwable[1];
+
+		Thread consumer = new Thread(() -> {
+			try {
+				int last = -1;
+				while(last<frames-1){
+					List<Drawable> taken = h.take();
+					if(taken==null){
+						Thread.yield();
+						continue;
+					}
+					Check.equal(size, taken.size(), "size of a taken frame");
+					int n = ((Numbered) taken.get(0)).number;
+					Check.isTrue(n>last, "frames are taken in order");
+					for(Drawable d: taken){
+						Check.equal(n, ((Numbered) d).number, "every Drawable belongs to the same frame");
+					}
+					last = n;
+				}
+			} catch (Throwable t) {
+				failure[0] = t;
+			}
+		}, "FrameHandoffTest-Consumer");
+		consumer.start();
+
+		List<Drawable> list = new ArrayList<>();
+		for(int f=0; f<frames; f++){
+			list.clear();
+			for(int i=0; i<size; i++){
+				list.add(new Numbered(f));
+			}
+			h.publish(list);
+		}
+		consumer.join(60000);
+
+		if(failure[0]!=null){
+			throw new AssertionError("the consumer failed", failure[0]);
+		}
+		Check.isTrue(!consumer.isAlive(), "the consumer has taken the last frame");
+	}
+
+	private static List<Drawable> frame(int number){
+		List<Drawable> list = new ArrayList<>();
+		list.add(new Numbered(number));
+		return list;
+	}
+
+	/**
+	 * An immutable Drawable carrying the number of its frame.
+	 */
+	private static final class Numbered implements Drawable {
+
+		private final int number;
+
+		private Numbered(int number){
+			this.number = number;
+		}
+
+		@Override
+		public void draw(Graphics g){}
+
+		@Override
+		public void draw(Graphics g, double scaleX, double scaleY){}
+
+		@Override
+		public int getX(){
+			return 0;
+		}
+
+		@Override
+		public int getY(){
+			return 0;
+		}
+
+		@Override
+		public void move(int dx, int dy){}
+	}
+}
@@ -0,0 +1,23 @@
+package io.graphics;
+
+/**
+ * Runs every test of the graphics package and fails on the first failed check.<br>
+ * The tests render into main memory only, so they run in a headless environment (-Djava.awt.headless=true).
+ *
+ * @author Maxmanski
+ */
+public final class GraphicsTests {
+
+	private GraphicsTests(){}
+
+	public static void main(String[] args) throws Exception{
+		RenderQueueTest.main(args);
+		LatencyHistogramTest.main(args);
+		TextureAtlasTest.main(args);
+		SpriteSheetDescriptorTest.main(args);
+		DirtyRegionsTest.main(args);
+		FrameHandoffTest.main(args);
+		HeadlessFrameTest.main(args);
+		System.out.println("All graphics tests passed.");
+	}
+}
@@ -0,0 +1,145 @@
+package io.graphics;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the rendering of frames by comparing the checksums and pixels rendered by a HeadlessFrame.
+ *
+ * @author Maxmanski
+ */
+public final class HeadlessFrameTest {
+
+	private HeadlessFrameTest(){}
+
+	public static void main(String[] args) throws Exception{
+		HeadlessFrameTest.checksumsAnEmptyFrame();
+		HeadlessFrameTest.rendersTheSameFrameIdentically();
+		HeadlessFrameTest.rendersMovedSprites();
+		HeadlessFrameTest.scalesToTheOutputSize();
+		HeadlessFrameTest.rendersInTheOrderOfTheRenderQueue();
+		HeadlessFrameTest.rendersTheStaticLayer();
+		HeadlessFrameTest.failsWhenDisposed();
+		System.out.println("HeadlessFrameTest passed.");
+	}
+
+	private static void checksumsAnEmptyFrame() throws DeadInstanceException{
+		HeadlessFrame f = new HeadlessFrame(new Dimension(8, 4));
+		f.draw(Collections.<Drawable>emptyList());
+
+		// FNV-1a over 32 black pixels
+		long expected = 0xcbf29ce484222325L;
+		for(int i=0; i<32; i++){
+			expected *= 0x100000001b3L;
+		}
+		Check.equal(expected, f.checksum(), "checksum of a black frame");
+		Check.equal(1, f.getFrameCount(), "frames");
+
+		f.setBackground(Color.WHITE);
+		f.draw(Collections.<Drawable>emptyList());
+		Check.isTrue(f.checksum()!=expected, "the background is part of the checksum");
+	}
+
+	private static void rendersTheSameFrameIdentically() throws DeadInstanceException{
+		HeadlessFrame a = new HeadlessFrame(new Dimension(64, 48)), b = new HeadlessFrame(new Dimension(64, 48));
+		List<Drawable> list = HeadlessFrameTest.sprites(3);
+		a.draw(list);
+		b.draw(list);
+		Check.equal(a.checksum(), b.checksum(), "checksums of two frames rendering the same list");
+
+		long first = a.checksum();
+		a.draw(list);
+		Check.equal(first, a.checksum(), "checksum of the same list rendered again");
+	}
+
+	private static void rendersMovedSprites() throws DeadInstanceException{
+		HeadlessFrame f = new HeadlessFrame(new Dimension(64, 48));
+		List<Drawable> list = HeadlessFrameTest.sprites(1);
+		f.draw(list);
+		long before = f.checksum();
+		Check.equal(Color.RED.getRGB(), f.getImage().getRGB(2, 2), "pixel of the Sprite");
+
+		((Sprite) list.get(0)).move(20, 10);
+		f.draw(list);
+		Check.isTrue(before!=f.checksum(), "moving a Sprite changes the checksum");
+		Check.equal(Color.BLACK.getRGB(), f.getImage().getRGB(2, 2), "the old position is cleared");
+		Check.equal(Color.RED.getRGB(), f.getImage().getRGB(22, 12), "pixel at the new position");
+
+		((Sprite) list.get(0)).move(-20, -10);
+		f.draw(list);
+		Check.equal(before, f.checksum(), "moving the Sprite back restores the checksum");
+	}
+
+	private static void scalesToTheOutputSize() throws DeadInstanceException{
+		HeadlessFrame f = new HeadlessFrame(new Dimension(32, 24), 64, 48);
+		f.draw(HeadlessFrameTest.sprites(1));
+		// the 8x8 Sprite at (0,0) covers 16x16 pixels at twice the resolution
+		Check.equal(Color.RED.getRGB(), f.getImage().getRGB(15, 15), "last pixel of the scaled Sprite");
+		Check.equal(Color.BLACK.getRGB(), f.getImage().getRGB(16, 16), "first pixel beyond the scaled Sprite");
+	}
+
+	private static void rendersInTheOrderOfTheRenderQueue() throws DeadInstanceException{
+		HeadlessFrame f = new HeadlessFrame(new Dimension(16, 16));
+		Sprite red = new Sprite(new Animation(HeadlessFrameTest.image(Color.RED)), 0, 0);
+		Sprite blue = new Sprite(new Animation(HeadlessFrameTest.image(Color.BLUE)), 0, 0);
+
+		RenderQueue q = new RenderQueue();
+		q.submit(red, 1, 0);
+		q.submit(blue, 0, 0);
+		f.draw(q.asList());
+		Check.equal(Color.RED.getRGB(), f.getImage().getRGB(4, 4), "the higher layer is drawn on top");
+
+		q.clear();
+		q.submit(red, 0, 1);
+		q.submit(blue, 0, 2);
+		f.draw(q.asList());
+		Check.equal(Color.BLUE.getRGB(), f.getImage().getRGB(4, 4), "the higher z-key is drawn on top");
+	}
+
+	private static void rendersTheStaticLayer() throws DeadInstanceException{
+		HeadlessFrame f = new HeadlessFrame(new Dimension(32, 32));
+		StaticLayer layer = new StaticLayer(32, 32, 8);
+		Sprite wall = new Sprite(new Animation(HeadlessFrameTest.image(Color.GREEN)), 8, 8);
+		layer.add(wall);
+		f.setStaticLayer(layer);
+		f.draw(Collections.<Drawable>emptyList());
+		Check.equal(Color.GREEN.getRGB(), f.getImage().getRGB(10, 10), "pixel of the static Sprite");
+
+		wall.move(16, 0);
+		f.draw(Collections.<Drawable>emptyList());
+		Check.equal(Color.BLACK.getRGB(), f.getImage().getRGB(10, 10), "the old area of the static Sprite is rendered again");
+		Check.equal(Color.GREEN.getRGB(), f.getImage().getRGB(26, 10), "pixel at the new position of the static Sprite");
+	}
+
+	private static void failsWhenDisposed(){
+		final HeadlessFrame f = new HeadlessFrame(new Dimension(8, 8));
+		f.dispose();
+		Check.isTrue(!f.isAlive(), "a disposed frame is dead");
+		Check.fails(DeadInstanceException.class, () -> f.draw(Collections.<Drawable>emptyList()), "drawing onto a disposed frame");
+	}
+
+	/**
+	 * Returns the specified amount of red 8x8 Sprites, placed diagonally from (0,0) on.
+	 */
+	private static List<Drawable> sprites(int count){
+		List<Drawable> list = new ArrayList<>();
+		for(int i=0; i<count; i++){
+			list.add(new Sprite(new Animation(HeadlessFrameTest.image(Color.RED)), 10*i, 10*i));
+		}
+		return list;
+	}
+
+	private static BufferedImage image(Color color){
+		BufferedImage img = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = img.createGraphics();
+		g.setColor(color);
+		g.fillRect(0, 0, 8, 8);
+		g.dispose();
+		return img;
+	}
+}
@@ -0,0 +1,83 @@
+package io.graphics;
+
+/**
+ * Tests the percentiles, counts and resolution of LatencyHistogram.
+ *
+ * @author Maxmanski
+ */
+public final class LatencyHistogramTest {
+
+	private LatencyHistogramTest(){}
+
+	public static void main(String[] args){
+		LatencyHistogramTest.isEmptyInitially();
+		LatencyHistogramTest.reportsPercentilesWithinTheResolution();
+		LatencyHistogramTest.countsValuesAboveAThreshold();
+		LatencyHistogramTest.clampsOutOfRangeValues();
+		System.out.println("LatencyHistogramTest passed.");
+	}
+
+	private static void isEmptyInitially(){
+		LatencyHistogram h = new LatencyHistogram();
+		Check.equal(0, h.getCount(), "count");
+		Check.equal(0, h.getMax(), "max");
+		Check.equal(0, h.getPercentile(99), "p99");
+		Check.equal(0, h.countAbove(0), "values above 0");
+	}
+
+	private static void reportsPercentilesWithinTheResolution(){
+		LatencyHistogram h = new LatencyHistogram();
+		// 1ms to 10s in steps of 1ms
+		for(long v=1; v<=10000; v++){
+			h.record(v*1000000L);
+		}
+
+		Check.equal(10000, h.getCount(), "count");
+		Check.equal(10000L*1000000L, h.getMax(), "max");
+		LatencyHistogramTest.near(5000L*1000000L, h.getPercentile(50), "p50");
+		LatencyHistogramTest.near(9900L*1000000L, h.getPercentile(99), "p99");
+		LatencyHistogramTest.near(9990L*1000000L, h.getPercentile(99.9), "p99.9");
+		Check.equal(h.getMax(), h.getPercentile(100), "p100 is the max");
+		Check.isTrue(h.getPercentile(0)>=1000000L, "p0 is at least the lowest value");
+
+		h.reset();
+		Check.equal(0, h.getCount(), "count after reset");
+		Check.equal(0, h.getMax(), "max after reset");
+		Check.equal(0, h.getPercentile(50), "p50 after reset");
+	}
+
+	private static void countsValuesAboveAThreshold(){
+		LatencyHistogram h = new LatencyHistogram();
+		for(int i=0; i<90; i++){
+			h.record(10);
+		}
+		for(int i=0; i<10; i++){
+			h.record(1000000);
+		}
+
+		Check.equal(10, h.countAbove(1000), "values above 1000");
+		Check.equal(100, h.countAbove(0), "values above 0");
+		Check.equal(0, h.countAbove(2000000), "values above 2000000");
+		Check.equal(10, h.getPercentile(90), "p90 stays in the low bucket");
+	}
+
+	private static void clampsOutOfRangeValues(){
+		LatencyHistogram h = new LatencyHistogram();
+		h.record(-5);
+		Check.equal(1, h.getCount(), "count of a negative value");
+		Check.equal(0, h.getPercentile(100), "a negative value is recorded as 0");
+
+		h.record(Long.MAX_VALUE);
+		Check.equal(2, h.getCount(), "count of a huge value");
+		Check.equal(Long.MAX_VALUE, h.getMax(), "max of a huge value");
+		Check.isTrue(h.getPercentile(100)>0, "a huge value is recorded in the last bucket");
+	}
+
+	/**
+	 * Checks that the reported value lies within the relative error of the histogram (about 3%).
+	 */
+	private static void near(long expected, long actual, String message){
+		double error = Math.abs(actual-expected) / (double) expected;
+		Check.isTrue(error<=0.035, message + ": expected about " + expected + ", but was " + actual);
+	}
+}
@@ -0,0 +1,118 @@
+package io.graphics;
+
+import java.awt.Graphics;
+import java.util.List;
+
+/**
+ * Tests the drawing order established by RenderQueue.
+ *
+ * @author Maxmanski
+ */
+public final class RenderQueueTest {
+
+	private RenderQueueTest(){}
+
+	public static void main(String[] args){
+		RenderQueueTest.sortsByLayerSheetAndZ();
+		RenderQueueTest.keepsSubmissionOrderOfEqualKeys();
+		RenderQueueTest.growsAndClears();
+		RenderQueueTest.rejectsInvalidSubmissions();
+		System.out.println("RenderQueueTest passed.");
+	}
+
+	private static void sortsByLayerSheetAndZ(){
+		RenderQueue q = new RenderQueue();
+		Named a = new Named("a"), b = new Named("b"), c = new Named("c"), d = new Named("d"), e = new Named("e");
+		q.submit(a, 2, 0, 0);
+		q.submit(b, 0, 7, 5);
+		q.submit(c, 0, 3, 9);
+		q.submit(d, 0, 7, -5);
+		q.submit(e, 1, 0, Integer.MIN_VALUE);
+
+		List<Drawable> sorted = q.asList();
+		Check.equal(5, sorted.size(), "size");
+		// layer 0 first, within it sheet 3 before sheet 7, within sheet 7 the negative z first
+		Check.same(c, sorted.get(0), "first");
+		Check.same(d, sorted.get(1), "second");
+		Check.same(b, sorted.get(2), "third");
+		Check.same(e, sorted.get(3), "fourth");
+		Check.same(a, sorted.get(4), "fifth");
+		Check.equal(0, q.getLayer(2), "layer of the third");
+		Check.equal(1, q.getLayer(3), "layer of the fourth");
+		Check.equal(2, q.getLayer(4), "layer of the fifth");
+	}
+
+	private static void keepsSubmissionOrderOfEqualKeys(){
+		RenderQueue q = new RenderQueue(4);
+		Named[] items = new Named[50];
+		for(int i=0; i<items.length; i++){
+			items[i] = new Named("n" + i);
+			// every second item goes to layer 1, all of them share sheet and z
+			q.submit(items[i], i%2, 1, 0);
+		}
+		q.sort();
+
+		for(int i=0; i<25; i++){
+			Check.same(items[2*i], q.get(i), "layer 0, position " + i);
+			Check.same(items[2*i+1], q.get(25+i), "layer 1, position " + i);
+		}
+	}
+
+	private static void growsAndClears(){
+		RenderQueue q = new RenderQueue(1);
+		for(int i=0; i<1000; i++){
+			q.submit(new Named("n" + i), 0, 0, 1000-i);
+		}
+		Check.equal(1000, q.size(), "size after growing");
+		Check.equal("n999", q.get(0).toString(), "lowest z first");
+		Check.equal("n0", q.get(999).toString(), "highest z last");
+
+		q.clear();
+		Check.equal(0, q.size(), "size after clear");
+		Check.isTrue(q.asList().isEmpty(), "the sorted view is empty after clear");
+	}
+
+	private static void rejectsInvalidSubmissions(){
+		final RenderQueue q = new RenderQueue();
+		Check.fails(IllegalArgumentException.class, () -> q.submit(null, 0, 0), "null Drawable");
+		Check.fails(IllegalArgumentException.class, () -> q.submit(new Named("x"), RenderQueue.MAX_LAYER+1, 0), "layer too high");
+		Check.fails(IllegalArgumentException.class, () -> q.submit(new Named("x"), -1, 0), "negative layer");
+		Check.fails(IndexOutOfBoundsException.class, () -> q.get(0), "get from an empty queue");
+	}
+
+	/**
+	 * A Drawable which only has a name.
+	 */
+	private static final class Named implements Drawable {
+
+		private final String name;
+
+		private Named(String name){
+			this.name = name;
+		}
+
+		@Override
+		public void draw(Graphics g){}
+
+		@Override
+		public void draw(Graphics g, double scaleX, double scaleY){}
+
+		@Override
+		public int getX(){
+			return 0;
+		}
+
+		@Override
+		public int getY(){
+			return 0;
+		}
+
+		@Override
+		public void move(int dx, int dy){}
+
+		@Override
+		public String toString(){
+			return this.name;
+		}
+	}
+}
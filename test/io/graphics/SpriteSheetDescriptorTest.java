@@ -0,0 +1,130 @@
+package io.graphics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tests parsing the text format of SpriteSheetDescriptor and the round trip through its binary format.
+ *
+ * @author Maxmanski
+ */
+public final class SpriteSheetDescriptorTest {
+
+	private static final String TEXT =
+			"# a walking and a jumping animation\n"
+			+ "sequence walk LOOP 16 24 80\n"
+			+ "frame 0 0 16 24\n"
+			+ "frame 16 0 12 20 2 4\n"
+			+ "frame 28 0 14 22 1 2 7 20 120\n"
+			+ "\n"
+			+ "sequence jump ONE_SHOT 32 32\n"
+			+ "frame 0 24 32 32 0 0 -3 40\n";
+
+	private SpriteSheetDescriptorTest(){}
+
+	public static void main(String[] args) throws IOException{
+		SpriteSheetDescriptorTest.parsesTextWithDefaults();
+		SpriteSheetDescriptorTest.roundTripsThroughTheBinaryFormat();
+		SpriteSheetDescriptorTest.reportsMalformedLines();
+		SpriteSheetDescriptorTest.rejectsValuesOutOfRangeBeforeWriting();
+		System.out.println("SpriteSheetDescriptorTest passed.");
+	}
+
+	private static void parsesTextWithDefaults() throws IOException{
+		SpriteSheetDescriptor d = SpriteSheetDescriptor.parse(new StringReader(TEXT));
+		Check.equal(2, d.getSequences().size(), "sequences");
+
+		SpriteSequence walk = d.getSequence("walk");
+		Check.equal(PlaybackMode.LOOP, walk.getMode(), "mode of walk");
+		Check.equal(16, walk.getWidth(), "width of walk");
+		Check.equal(24, walk.getHeight(), "height of walk");
+		Check.equal(3, walk.size(), "frames of walk");
+
+		// omitted trim offsets are 0, an omitted pivot is the center and an omitted duration is the one of the sequence
+		SpriteSheetDescriptorTest.frame(walk.getFrame(0), 0, 0, 16, 24, 0, 0, 8, 12, 80, "walk 0");
+		SpriteSheetDescriptorTest.frame(walk.getFrame(1), 16, 0, 12, 20, 2, 4, 8, 12, 80, "walk 1");
+		SpriteSheetDescriptorTest.frame(walk.getFrame(2), 28, 0, 14, 22, 1, 2, 7, 20, 120, "walk 2");
+
+		SpriteSequence jump = d.getSequence("jump");
+		Check.equal(PlaybackMode.ONE_SHOT, jump.getMode(), "mode of jump");
+		// without a duration in the sequence line, the default of 100 milliseconds is used
+		SpriteSheetDescriptorTest.frame(jump.getFrame(0), 0, 24, 32, 32, 0, 0, -3, 40, 100, "jump 0");
+		Check.same(null, d.getSequence("missing"), "unknown sequence");
+	}
+
+	private static void roundTripsThroughTheBinaryFormat() throws IOException{
+		SpriteSheetDescriptor parsed = SpriteSheetDescriptor.parse(new StringReader(TEXT));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		parsed.write(out);
+		byte[] binary = out.toByteArray();
+
+		Check.equal(0x53534431, ((binary[0]&0xFF)<<24) | ((binary[1]&0xFF)<<16) | ((binary[2]&0xFF)<<8) | (binary[3]&0xFF), "magic number");
+		SpriteSheetDescriptor read = SpriteSheetDescriptor.load(new ByteArrayInputStream(binary));
+		SpriteSheetDescriptorTest.same(parsed, read);
+
+		// load recognizes the text format as well
+		SpriteSheetDescriptor loaded = SpriteSheetDescriptor.load(new ByteArrayInputStream(TEXT.getBytes(StandardCharsets.UTF_8)));
+		SpriteSheetDescriptorTest.same(parsed, loaded);
+
+		// writing what has been read gives the same bytes
+		ByteArrayOutputStream again = new ByteArrayOutputStream();
+		read.write(again);
+		Check.isTrue(Arrays.equals(binary, again.toByteArray()), "writing a read descriptor gives the same bytes");
+	}
+
+	private static void reportsMalformedLines(){
+		IOException e = Check.fails(IOException.class,
+				() -> SpriteSheetDescriptor.parse(new StringReader("sequence a LOOP 8 8\nframe 0 0 8\n")), "frame with three values");
+		Check.isTrue(e.getMessage().startsWith("Line 2"), "the message names the line: " + e.getMessage());
+
+		e = Check.fails(IOException.class,
+				() -> SpriteSheetDescriptor.parse(new StringReader("sequence a BOUNCE 8 8\nframe 0 0 8 8\n")), "unknown PlaybackMode");
+		Check.isTrue(e.getMessage().startsWith("Line 1"), "the message names the line: " + e.getMessage());
+
+		Check.fails(IOException.class, () -> SpriteSheetDescriptor.parse(new StringReader("frame 0 0 8 8\n")), "frame without a sequence");
+		Check.fails(IOException.class, () -> SpriteSheetDescriptor.parse(new StringReader("# nothing\n")), "no sequence at all");
+		Check.fails(IOException.class,
+				() -> SpriteSheetDescriptor.parse(new StringReader("sequence a LOOP 8 8\nframe 0 0 8 8\nsequence a LOOP 8 8\nframe 0 0 8 8\n")),
+				"sequence defined twice");
+	}
+
+	private static void rejectsValuesOutOfRangeBeforeWriting() throws IOException{
+		final SpriteSheetDescriptor d = SpriteSheetDescriptor.parse(new StringReader("sequence a LOOP 8 8\nframe 70000 0 8 8\n"));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Check.fails(IOException.class, () -> d.write(out), "x beyond an unsigned short");
+		Check.equal(0, out.size(), "nothing has been written");
+	}
+
+	private static void frame(SpriteFrame f, int x, int y, int w, int h, int trimX, int trimY, int pivotX, int pivotY, int duration, String name){
+		Check.equal(x, f.getX(), name + ": x");
+		Check.equal(y, f.getY(), name + ": y");
+		Check.equal(w, f.getWidth(), name + ": width");
+		Check.equal(h, f.getHeight(), name + ": height");
+		Check.equal(trimX, f.getTrimX(), name + ": trimX");
+		Check.equal(trimY, f.getTrimY(), name + ": trimY");
+		Check.equal(pivotX, f.getPivotX(), name + ": pivotX");
+		Check.equal(pivotY, f.getPivotY(), name + ": pivotY");
+		Check.equal(duration, f.getDuration(), name + ": duration");
+	}
+
+	private static void same(SpriteSheetDescriptor expected, SpriteSheetDescriptor actual){
+		Check.equal(expected.getSequences().size(), actual.getSequences().size(), "sequences");
+		for(SpriteSequence s: expected.getSequences()){
+			SpriteSequence t = actual.getSequence(s.getName());
+			Check.isTrue(t!=null, "sequence " + s.getName());
+			Check.equal(s.getMode(), t.getMode(), s.getName() + ": mode");
+			Check.equal(s.getWidth(), t.getWidth(), s.getName() + ": width");
+			Check.equal(s.getHeight(), t.getHeight(), s.getName() + ": height");
+			Check.equal(s.size(), t.size(), s.getName() + ": frames");
+			for(int i=0; i<s.size(); i++){
+				SpriteFrame f = s.getFrame(i);
+				SpriteSheetDescriptorTest.frame(t.getFrame(i), f.getX(), f.getY(), f.getWidth(), f.getHeight(), f.getTrimX(), f.getTrimY(),
+						f.getPivotX(), f.getPivotY(), f.getDuration(), s.getName() + " " + i);
+			}
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package io.graphics;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests that TextureAtlas packs images into its pages without overlaps and keeps their pixels.
+ *
+ * @author Maxmanski
+ */
+public final class TextureAtlasTest {
+
+	private TextureAtlasTest(){}
+
+	public static void main(String[] args){
+		TextureAtlasTest.packsWithoutOverlaps();
+		TextureAtlasTest.opensPagesWhenFull();
+		TextureAtlasTest.packsRepeatedly();
+		TextureAtlasTest.splitsSheetsIntoFrames();
+		TextureAtlasTest.rejectsInvalidImages();
+		System.out.println("TextureAtlasTest passed.");
+	}
+
+	private static void packsWithoutOverlaps(){
+		TextureAtlas atlas = new TextureAtlas(128);
+		List<String> names = new ArrayList<>();
+		for(int i=0; i<20; i++){
+			String name = "img" + i;
+			names.add(name);
+			atlas.add(name, TextureAtlasTest.image(5+i, 30-i, new Color(10*i, 255-10*i, 7*i)));
+		}
+		atlas.pack();
+
+		Check.equal(1, atlas.getPageCount(), "pages");
+		List<Rectangle> placed = new ArrayList<>();
+		for(int i=0; i<names.size(); i++){
+			AtlasRegion r = atlas.getRegion(names.get(i));
+			Check.isTrue(r!=null, "region of " + names.get(i));
+			Check.equal(5+i, r.getWidth(), "width of " + names.get(i));
+			Check.equal(30-i, r.getHeight(), "height of " + names.get(i));
+			Rectangle area = new Rectangle(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+			Check.isTrue(new Rectangle(0, 0, 128, 128).contains(area), names.get(i) + " lies within the page");
+			for(Rectangle other: placed){
+				Check.isTrue(!other.intersects(area), names.get(i) + " does not overlap " + other);
+			}
+			placed.add(area);
+
+			// the pixels have been copied into the page
+			Check.equal(new Color(10*i, 255-10*i, 7*i).getRGB(), r.getPage().getRGB(r.getX()+r.getWidth()-1, r.getY()+r.getHeight()-1),
+					"pixel of " + names.get(i));
+		}
+		Check.same(null, atlas.getRegion("missing"), "region of an unknown name");
+	}
+
+	private static void opensPagesWhenFull(){
+		TextureAtlas atlas = new TextureAtlas(64);
+		for(int i=0; i<5; i++){
+			atlas.add("big" + i, TextureAtlasTest.image(40, 40, Color.RED));
+		}
+		atlas.pack();
+
+		Check.equal(5, atlas.getPageCount(), "one page per image which only fits alone");
+		for(int i=0; i<5; i++){
+			AtlasRegion r = atlas.getRegion("big" + i);
+			Check.same(atlas.getPage(r.getPageIndex()), r.getPage(), "page of big" + i);
+		}
+	}
+
+	private static void packsRepeatedly(){
+		TextureAtlas atlas = new TextureAtlas(64);
+		atlas.add("first", TextureAtlasTest.image(10, 10, Color.RED));
+		atlas.pack();
+		AtlasRegion first = atlas.getRegion("first");
+
+		atlas.add("second", TextureAtlasTest.image(10, 10, Color.BLUE));
+		atlas.pack();
+		AtlasRegion second = atlas.getRegion("second");
+
+		Check.same(first, atlas.getRegion("first"), "packing again keeps earlier regions");
+		Check.equal(1, atlas.getPageCount(), "the remaining space of the page is used");
+		Check.isTrue(!new Rectangle(first.getX(), first.getY(), 10, 10).intersects(new Rectangle(second.getX(), second.getY(), 10, 10)),
+				"the later image does not overwrite the earlier one");
+		Check.equal(Color.RED.getRGB(), first.getPage().getRGB(first.getX(), first.getY()), "pixel of the first image");
+	}
+
+	private static void splitsSheetsIntoFrames(){
+		BufferedImage sheet = new BufferedImage(30, 20, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = sheet.createGraphics();
+		for(int i=0; i<6; i++){
+			g.setColor(new Color(40*i, 0, 0));
+			g.fillRect((i%3)*10, (i/3)*10, 10, 10);
+		}
+		g.dispose();
+
+		TextureAtlas atlas = new TextureAtlas(64);
+		atlas.addFrames("sheet", sheet, 2, 3);
+		atlas.pack();
+
+		AtlasRegion[] frames = atlas.getFrames("sheet");
+		Check.equal(6, frames.length, "frames");
+		for(int i=0; i<6; i++){
+			Check.equal(new Color(40*i, 0, 0).getRGB(), frames[i].getPage().getRGB(frames[i].getX()+5, frames[i].getY()+5), "pixel of frame " + i);
+		}
+		Check.same(null, atlas.getFrames("missing"), "frames of an unknown sheet");
+	}
+
+	private static void rejectsInvalidImages(){
+		final TextureAtlas atlas = new TextureAtlas(32);
+		atlas.add("taken", TextureAtlasTest.image(4, 4, Color.RED));
+		Check.fails(IllegalArgumentException.class, () -> atlas.add("large", TextureAtlasTest.image(33, 4, Color.RED)), "image larger than a page");
+		Check.fails(IllegalArgumentException.class, () -> atlas.add("taken", TextureAtlasTest.image(4, 4, Color.RED)), "name used twice");
+		Check.fails(IllegalArgumentException.class, () -> atlas.add(null, TextureAtlasTest.image(4, 4, Color.RED)), "null name");
+		Check.fails(IllegalArgumentException.class, () -> new TextureAtlas(0), "empty pages");
+	}
+
+	private static BufferedImage image(int width, int height, Color color){
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = img.createGraphics();
+		g.setColor(color);
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+		return img;
+	}
+}